@@ -32,8 +32,8 @@ function_declaration2   : DECLAREVARIABLE NAME arguments;
 function_call           : NAME ('.'NAME)? call_arguments;
 returning               : RETURN expression;
 
-arguments               : OPENBRACKET (argument (NEXTELEMENT argument)* )* CLOSEBRACKET;
-call_arguments          : OPENBRACKET (expression (NEXTELEMENT expression)* )* CLOSEBRACKET;
+arguments               : OPENBRACKET (argument (NEXTELEMENT argument)* )? CLOSEBRACKET;
+call_arguments          : OPENBRACKET (expression (NEXTELEMENT expression)* )? CLOSEBRACKET;
 argument                : INTSTATEMENT NAME         #int_argument
                           | REALSTATEMENT NAME      #real_argument
                           ;
@@ -0,0 +1,59 @@
+package mk.benchmarks;
+
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//every phase of the compiler on its own, each benchmark starts from the output of the phase before it
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PhaseBenchmark {
+    @Param({"test.mk", "synthetic-10", "synthetic-100"})
+    public String input;
+
+    private String source;
+    private List<? extends Token> tokens;
+    private ParseTree tree;
+    private Object walked;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        source = SyntheticSource.load(input);
+        tokens = Phases.lex(source);
+        tree = Phases.parse(tokens);
+        walked = Phases.walk(tree);
+    }
+
+    @Benchmark
+    public List<? extends Token> lex() {
+        return Phases.lex(source);
+    }
+
+    @Benchmark
+    public ParseTree parse() {
+        return Phases.parse(tokens);
+    }
+
+    @Benchmark
+    public Object walk() {
+        return Phases.walk(tree);
+    }
+
+    @Benchmark
+    public long generate() {
+        return Phases.generate(walked);
+    }
+
+    @Benchmark
+    public Object compile() {
+        return Phases.compile(source, input);
+    }
+}
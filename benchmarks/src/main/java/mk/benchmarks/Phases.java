@@ -0,0 +1,133 @@
+package mk.benchmarks;
+
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+
+//typed access to CompilerPhases, the compiler is in the default package which code in a named package (as JMH requires) only reaches through reflection
+public final class Phases {
+    private static final MethodHandle LEX;
+    private static final MethodHandle PARSE;
+    private static final MethodHandle WALK;
+    private static final MethodHandle GENERATE;
+    private static final MethodHandle COMPILE;
+    private static final MethodHandle IR;
+    private static final MethodHandle INTERPRETER;
+    private static final MethodHandle JVM_PROGRAM;
+    private static final MethodHandle RUN;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> phases = Class.forName("CompilerPhases");
+            LEX = lookup.findStatic(phases, "lex", MethodType.methodType(List.class, String.class));
+            PARSE = lookup.findStatic(phases, "parse", MethodType.methodType(ParseTree.class, List.class));
+            WALK = lookup.findStatic(phases, "walk", MethodType.methodType(Object.class, ParseTree.class));
+            GENERATE = lookup.findStatic(phases, "generate", MethodType.methodType(long.class, Object.class));
+            INTERPRETER = lookup.findStatic(phases, "interpreter", MethodType.methodType(Object.class, Object.class));
+            JVM_PROGRAM = lookup.findStatic(phases, "jvmProgram", MethodType.methodType(Object.class, Object.class));
+            RUN = lookup.findStatic(phases, "run", MethodType.methodType(int.class, Object.class));
+            Class<?> compiler = Class.forName("Compiler");
+            Class<?> result = Class.forName("CompilationResult");
+            COMPILE = lookup.findStatic(compiler, "compile", MethodType.methodType(result, CharSequence.class, String.class));
+            IR = lookup.findVirtual(result, "getIR", MethodType.methodType(String.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Phases() {
+    }
+
+    @SuppressWarnings("unchecked")
+    public static List<? extends Token> lex(String source) {
+        try {
+            return (List<? extends Token>) LEX.invoke(source);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    public static ParseTree parse(List<? extends Token> tokens) {
+        try {
+            return (ParseTree) PARSE.invoke(tokens);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    //returns the listener holding the checked classies, the input of generate()
+    public static Object walk(ParseTree tree) {
+        try {
+            return WALK.invoke(tree);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    //returns the number of characters of IR
+    public static long generate(Object walked) {
+        try {
+            return (long) GENERATE.invoke(walked);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    //the walked program prepared for the interpreter, the input of run()
+    public static Object interpreter(Object walked) {
+        try {
+            return INTERPRETER.invoke(walked);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    //the walked program compiled to JVM classes and loaded, the input of run()
+    public static Object jvmProgram(Object walked) {
+        try {
+            return JVM_PROGRAM.invoke(walked);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    //runs a program from interpreter() or jvmProgram() with its output discarded, returns what main() gave
+    public static int run(Object program) {
+        try {
+            return (int) RUN.invoke(program);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    //all phases through Compiler.compile, returns its CompilationResult
+    public static Object compile(String source, String name) {
+        try {
+            return COMPILE.invoke(source, name);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    //the IR of a CompilationResult, null when the compilation failed
+    public static String ir(Object result) {
+        try {
+            return (String) IR.invoke(result);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable e) {
+        if (e instanceof RuntimeException)
+            return (RuntimeException) e;
+        if (e instanceof Error)
+            throw (Error) e;
+        return new IllegalStateException(e);
+    }
+}
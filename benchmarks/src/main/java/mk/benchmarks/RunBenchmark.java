@@ -0,0 +1,73 @@
+package mk.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+//a loop heavy program run in process by the interpreter (--run) and as JVM bytecode (--run=jvm), prepare() is what each backend costs before the first run
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RunBenchmark {
+    @Param({"interpreter", "jvm"})
+    public String backend;
+
+    @Param({"100", "1000"})
+    public int iterations;
+
+    private Object walked;
+    private Object program;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        walked = Phases.walk(Phases.parse(Phases.lex(source(iterations))));
+        program = prepare();
+    }
+
+    @Benchmark
+    public Object prepare() {
+        return "jvm".equals(backend) ? Phases.jvmProgram(walked) : Phases.interpreter(walked);
+    }
+
+    @Benchmark
+    public int run() {
+        return Phases.run(program);
+    }
+
+    //nested loops over a field array with a method call and real arithmetic in the inner loop
+    static String source(int iterations) {
+        return "classy Accumulator {\n"
+                + "    int lady total;\n"
+                + "    int lady add(int value) {\n"
+                + "        total = total + value;\n"
+                + "        give total;\n"
+                + "    }\n"
+                + "}\n"
+                + "classy Main {\n"
+                + "    int lady cells[64];\n"
+                + "    int lady main() {\n"
+                + "        accumulator = classy Accumulator;\n"
+                + "        int lady i;\n"
+                + "        int lady j;\n"
+                + "        int lady last;\n"
+                + "        real lady mean;\n"
+                + "        while (i < " + iterations + ") {\n"
+                + "            j = 0;\n"
+                + "            while (j < 64) {\n"
+                + "                cells[j] = cells[j] + i * j;\n"
+                + "                last = accumulator.add(cells[j] - j);\n"
+                + "                mean = mean + last / 64;\n"
+                + "                j = j + 1;\n"
+                + "            }\n"
+                + "            i = i + 1;\n"
+                + "        }\n"
+                + "        whisper last;\n"
+                + "        whisper mean;\n"
+                + "        give 0;\n"
+                + "    }\n"
+                + "}\n";
+    }
+}
@@ -0,0 +1,93 @@
+package mk.benchmarks;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//compiles generated programs in process while one parameter grows and writes one CSV row per point
+//usage: ScalingHarness <classies|instances|methods|depth|expression> <value,value,...> [output.csv] [repeats]
+public class ScalingHarness {
+    private static final int CLASSIES = 10;
+    private static final int INSTANCES = 1;
+    private static final int METHODS = 2;
+    private static final int DEPTH = 2;
+    private static final int EXPRESSION_LENGTH = 4;
+
+    public static void main(String[] args) throws IOException {
+        String parameter = args[0];
+        String[] values = args[1].split(",");
+        String output = args.length > 2 ? args[2] : "scaling-" + parameter + ".csv";
+        int repeats = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+
+        //the JIT is warmed on a mid sized program first, so the first points are not dominated by it
+        for (int i = 0; i < 20; i++) {
+            Phases.compile(new WorkloadGenerator(CLASSIES, INSTANCES, METHODS, DEPTH, EXPRESSION_LENGTH).generate(), "warmup");
+        }
+
+        try (PrintWriter csv = new PrintWriter(Files.newBufferedWriter(Paths.get(output)))) {
+            csv.println("parameter,value,classies,instances,methods,depth,expression_length,source_bytes,wall_ms_median,wall_ms_min,peak_heap_bytes,ir_bytes");
+            for (int i = 0; i < values.length; i++) {
+                int value = Integer.parseInt(values[i].trim());
+                WorkloadGenerator generator = new WorkloadGenerator(
+                        "classies".equals(parameter) ? value : CLASSIES,
+                        "instances".equals(parameter) ? value : INSTANCES,
+                        "methods".equals(parameter) ? value : METHODS,
+                        "depth".equals(parameter) ? value : DEPTH,
+                        "expression".equals(parameter) ? value : EXPRESSION_LENGTH);
+                String row = measure(generator, repeats);
+                csv.println(parameter + "," + value + "," + row);
+                csv.flush();
+                System.err.println(parameter + "=" + value + ": " + row);
+            }
+        }
+    }
+
+    private static String measure(WorkloadGenerator generator, int repeats) {
+        String source = generator.generate();
+        List<MemoryPoolMXBean> heapPools = heapPools();
+
+        double[] times = new double[repeats];
+        long peakHeap = 0;
+        long irBytes = -1;
+        for (int i = 0; i < repeats; i++) {
+            System.gc();
+            for (int j = 0; j < heapPools.size(); j++) {
+                heapPools.get(j).resetPeakUsage();
+            }
+
+            long start = System.nanoTime();
+            Object result = Phases.compile(source, "scaling");
+            times[i] = (System.nanoTime() - start) / 1e6;
+
+            long peak = 0;
+            for (int j = 0; j < heapPools.size(); j++) {
+                peak += heapPools.get(j).getPeakUsage().getUsed();
+            }
+            peakHeap = Math.max(peakHeap, peak);
+
+            String ir = Phases.ir(result);
+            if (ir == null)
+                throw new IllegalStateException("generated program does not compile");
+            irBytes = ir.length();
+        }
+
+        Arrays.sort(times);
+        return generator.describe() + "," + source.length() + "," + times[repeats / 2] + "," + times[0] + "," + peakHeap + "," + irBytes;
+    }
+
+    private static List<MemoryPoolMXBean> heapPools() {
+        List<MemoryPoolMXBean> pools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP)
+                pools.add(pool);
+        }
+        return pools;
+    }
+}
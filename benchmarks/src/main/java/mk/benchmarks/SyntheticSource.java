@@ -0,0 +1,30 @@
+package mk.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+//benchmark inputs: test.mk from the repository or a generated program with a given number of classies
+public final class SyntheticSource {
+    private SyntheticSource() {
+    }
+
+    //"test.mk" or "synthetic-<classies>"
+    public static String load(String input) throws IOException {
+        if (input.startsWith("synthetic-"))
+            return new WorkloadGenerator(Integer.parseInt(input.substring("synthetic-".length())), 1, 2, 2, 4).generate();
+
+        try (InputStream stream = SyntheticSource.class.getResourceAsStream("/" + input)) {
+            if (stream == null)
+                throw new IOException("missing benchmark input " + input);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = stream.read(buffer)) > 0) {
+                bytes.write(buffer, 0, read);
+            }
+            return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package mk.benchmarks;
+
+//writes valid MK programs whose size grows along one parameter at a time
+public class WorkloadGenerator {
+    private final int classies;
+    private final int instances; //instances of every classy created in main
+    private final int methods; //methods of every classy
+    private final int depth; //nesting of while/if blocks in every method
+    private final int expressionLength; //operands of the expression in the innermost block
+
+    public WorkloadGenerator(int classies, int instances, int methods, int depth, int expressionLength) {
+        this.classies = classies;
+        this.instances = instances;
+        this.methods = methods;
+        this.depth = depth;
+        this.expressionLength = expressionLength;
+    }
+
+    public String generate() {
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; i < classies; i++) {
+            classy(source, i);
+        }
+
+        source.append("classy Main {\n");
+        source.append("    int lady main() {\n");
+        for (int i = 0; i < classies; i++) {
+            for (int j = 0; j < instances; j++) {
+                String instance = "o" + i + "x" + j;
+                source.append("        ").append(instance).append(" = classy C").append(i).append(";\n");
+                for (int k = 0; k < methods; k++) {
+                    source.append("        whisper ").append(instance).append(".m").append(k).append("(").append(j).append(");\n");
+                }
+            }
+        }
+        source.append("        give 0;\n");
+        source.append("    }\n");
+        source.append("}\n");
+        return source.toString();
+    }
+
+    //the parameters as CSV columns: classies,instances,methods,depth,expression length
+    public String describe() {
+        return classies + "," + instances + "," + methods + "," + depth + "," + expressionLength;
+    }
+
+    private void classy(StringBuilder source, int index) {
+        source.append("classy C").append(index).append(" {\n");
+        source.append("    int lady value;\n");
+        source.append("    int lady values[4];\n");
+        for (int k = 0; k < methods; k++) {
+            source.append("    int lady m").append(k).append("(int x) {\n");
+            source.append("        int lady acc;\n");
+            for (int level = 0; level < depth; level++) {
+                source.append("        int lady c").append(level).append(";\n");
+            }
+            block(source, 0, "        ");
+            source.append("        value = acc;\n");
+            source.append("        values[").append(k % 4).append("] = acc;\n");
+            source.append("        give acc;\n");
+            source.append("    }\n");
+        }
+        source.append("}\n\n");
+    }
+
+    //even levels are loops running twice, odd levels are ifs, so every block is reached and every loop ends
+    private void block(StringBuilder source, int level, String indent) {
+        if (level == depth) {
+            source.append(indent).append("acc = ");
+            expression(source);
+            source.append(";\n");
+            return;
+        }
+
+        String counter = "c" + level;
+        if (level % 2 == 0) {
+            source.append(indent).append(counter).append(" = 0;\n");
+            source.append(indent).append("while (").append(counter).append(" < 2) {\n");
+            source.append(indent).append("    ").append(counter).append(" = ").append(counter).append(" + 1;\n");
+        } else {
+            source.append(indent).append("if (x < ").append(level * 10).append(") {\n");
+        }
+        block(source, level + 1, indent + "    ");
+        source.append(indent).append("}\n");
+    }
+
+    //integer operands and operators only, so the type stays int whatever the length
+    private void expression(StringBuilder source) {
+        String[] operands = {"x", "acc", "value", "3"};
+        String[] operators = {" + ", " * ", " - "};
+        source.append("acc");
+        for (int i = 1; i < expressionLength; i++) {
+            source.append(operators[i % operators.length]).append(operands[i % operands.length]);
+        }
+    }
+}
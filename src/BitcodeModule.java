@@ -0,0 +1,1154 @@
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+//the IR LLVMGenerator wrote, read back line by line into types, constants, globals and functions and written as LLVM bitcode
+//only the part of the assembly language the generator writes is understood
+//a function is encoded into records when its closing brace is read, only the ids of module values are filled in at the end
+public class BitcodeModule {
+    private static final int IDENTIFICATION_BLOCK = 13;
+    private static final int MODULE_BLOCK = 8;
+    private static final int PARAMATTR_BLOCK = 9;
+    private static final int PARAMATTR_GROUP_BLOCK = 10;
+    private static final int CONSTANTS_BLOCK = 11;
+    private static final int FUNCTION_BLOCK = 12;
+    private static final int VALUE_SYMTAB_BLOCK = 14;
+    private static final int TYPE_BLOCK = 17;
+    private static final int STRTAB_BLOCK = 23;
+
+    private static final int NO_UNWIND = 18; //attribute kind
+    private static final int ABBREV_WIDTH = 4;
+
+    //kinds of the fields of function records
+    private static final int LITERAL = 0;
+    private static final int TYPE = 1; //serial of a type
+    private static final int GLOBAL = 2; //value number the record gets and index of the name of a global or function
+    private static final int CONSTANT = 3; //value number the record gets and index of a module constant
+    private static final int LOCAL_ID = 4; //number of a parameter or result in its function
+    private static final int ONE = 5; //the constant 1
+
+    private enum TypeKind {INTEGER, DOUBLE, VOID, ARRAY, POINTER, STRUCT, FUNCTION}
+
+    private enum ConstantKind {INTEGER, FLOAT, NULL, AGGREGATE, STRING, ELEMENT_POINTER}
+
+    private enum ValueKind {LOCAL, GLOBAL, CONSTANT}
+
+    private enum Opcode {ALLOCA, LOAD, STORE, BINOP, COMPARE, CAST, ELEMENT_POINTER, BR, RET, CALL}
+
+    private static final class Type {
+        private final String key; //its text, e.g. [4 x i8]*
+        private final TypeKind kind;
+        private final int width; //bits of an integer, length of an array
+        private final Type element; //of an array or pointer, return type of a function
+        private List<Type> members = new ArrayList<>(); //fields of a struct, parameters of a function
+        private final String name; //of a struct
+        private final boolean varArgs;
+        private final int serial; //order it was first seen in
+        private int id = -1;
+
+        private Type(String key, TypeKind kind, int width, Type element, String name, boolean varArgs, int serial) {
+            this.key = key;
+            this.kind = kind;
+            this.width = width;
+            this.element = element;
+            this.name = name;
+            this.varArgs = varArgs;
+            this.serial = serial;
+        }
+    }
+
+    private static final class Constant {
+        private final ConstantKind kind;
+        private final Type type;
+        private final long value; //an integer, or the bits of a double
+        private final byte[] bytes; //of a string
+        private final List<Value> operands; //elements of an aggregate, base and indexes of an element pointer
+
+        private Constant(ConstantKind kind, Type type, long value, byte[] bytes, List<Value> operands) {
+            this.kind = kind;
+            this.type = type;
+            this.value = value;
+            this.bytes = bytes;
+            this.operands = operands;
+        }
+    }
+
+    private static final class Value {
+        private final ValueKind kind;
+        private final String name; //of a local or global
+        private final int constant; //index into the constants
+        private final Type type;
+
+        private Value(ValueKind kind, String name, int constant, Type type) {
+            this.kind = kind;
+            this.name = name;
+            this.constant = constant;
+            this.type = type;
+        }
+    }
+
+    private static final class GlobalVariable {
+        private final String name;
+        private final Type type;
+        private final boolean constant;
+        private final Value initializer;
+
+        private GlobalVariable(String name, Type type, boolean constant, Value initializer) {
+            this.name = name;
+            this.type = type;
+            this.constant = constant;
+            this.initializer = initializer;
+        }
+    }
+
+    private static final class Function {
+        private final String name;
+        private final Type type;
+        private final boolean declaration;
+        private final boolean noUnwind;
+        private final List<String> parameters = new ArrayList<>(); //names, numbers for unnamed ones
+        private final List<Instruction> instructions = new ArrayList<>(); //until the function is encoded
+        private final Map<String, Integer> blocks = new HashMap<>(); //named blocks and their index
+        private int blockCount = 1;
+        private final Records records = new Records(); //the instructions
+        private final Records symbols = new Records(); //names of the values and blocks
+
+        private Function(String name, Type type, boolean declaration, boolean noUnwind) {
+            this.name = name;
+            this.type = type;
+            this.declaration = declaration;
+            this.noUnwind = noUnwind;
+        }
+    }
+
+    private static final class Instruction {
+        private final Opcode opcode;
+        private final String result; //null when there is none
+        private final Type type; //allocated, loaded, element pointer source, cast target or called function type
+        private final int code; //binary operation, predicate or cast operation
+        private final int flags;
+        private final List<Value> operands;
+        private final List<String> blocks; //branch targets
+
+        private Instruction(Opcode opcode, String result, Type type, int code, int flags, List<Value> operands, List<String> blocks) {
+            this.opcode = opcode;
+            this.result = result;
+            this.type = type;
+            this.code = code;
+            this.flags = flags;
+            this.operands = operands;
+            this.blocks = blocks;
+        }
+    }
+
+    private final Map<String, Type> types = new LinkedHashMap<>(); //by their text
+    private final List<Constant> constants = new ArrayList<>();
+    private final Map<String, Integer> constantIndexes = new HashMap<>();
+    private final List<GlobalVariable> globals = new ArrayList<>();
+    private final List<Function> functions = new ArrayList<>();
+    private final List<String> globalNames = new ArrayList<>(); //globals and functions used by instructions
+    private final Map<String, Integer> nameIndexes = new HashMap<>();
+    private final Type i32;
+    private Function function = null; //being read
+    private boolean terminated = false; //the block so far ends with a branch or ret
+    private int lines = 0;
+
+    public BitcodeModule() {
+        i32 = integerType(32);
+    }
+
+    public static byte[] assemble(CharSequence ir) {
+        BitcodeModule module = new BitcodeModule();
+        String[] lines = ir.toString().split("\n");
+        for (int i = 0; i < lines.length; i++) {
+            module.read(lines[i]);
+        }
+        return module.write();
+    }
+
+    //reading
+
+    //one line of IR without its line break
+    public void read(String line) {
+        lines++;
+        Tokens tokens = new Tokens(line);
+        if (!tokens.hasNext())
+            return;
+        try {
+            if (function != null) {
+                if (tokens.isNext("}")) {
+                    encode(function);
+                    function = null;
+                } else if (tokens.peek(1).equals(":")) {
+                    function.blocks.put(tokens.next(), function.blockCount++);
+                    terminated = false;
+                } else {
+                    //code after a terminator starts a new unnamed block
+                    if (terminated)
+                        function.blockCount++;
+                    Instruction instruction = readInstruction(tokens);
+                    function.instructions.add(instruction);
+                    terminated = instruction.opcode == Opcode.BR || instruction.opcode == Opcode.RET;
+                }
+            } else if (tokens.isNext("define")) {
+                function = readFunction(tokens, false);
+                terminated = false;
+            } else if (tokens.isNext("declare")) {
+                readFunction(tokens, true);
+            } else if (tokens.peek().startsWith("%")) {
+                //%classy.C = type { i32, double }
+                Type struct = structType(tokens.next().substring(1));
+                tokens.expect("=");
+                tokens.expect("type");
+                tokens.expect("{");
+                struct.members = readTypeList(tokens, "}");
+            } else if (tokens.peek().startsWith("@")) {
+                //@inst_c = global %classy.C zeroinitializer
+                String name = tokens.next().substring(1);
+                tokens.expect("=");
+                boolean constant = tokens.next().equals("constant");
+                Type type = readType(tokens);
+                globals.add(new GlobalVariable(name, type, constant, readValue(tokens, type)));
+            } else
+                throw new IllegalArgumentException("unexpected " + tokens.peek());
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Can not write line " + lines + " as bitcode: " + line.trim(), e);
+        }
+    }
+
+    //define i32 @func_C_m(%classy.C* %this, i32, double) nounwind {
+    private Function readFunction(Tokens tokens, boolean declaration) {
+        tokens.next();
+        Type returnType = readType(tokens);
+        String name = tokens.next().substring(1);
+        tokens.expect("(");
+        List<Type> parameterTypes = new ArrayList<>();
+        List<String> parameters = new ArrayList<>();
+        boolean varArgs = false;
+        int unnamed = 0;
+        while (!tokens.isNext(")")) {
+            if (tokens.isNext("...")) {
+                tokens.next();
+                varArgs = true;
+            } else {
+                parameterTypes.add(readType(tokens));
+                parameters.add(tokens.peek().startsWith("%") ? tokens.next().substring(1) : String.valueOf(unnamed++));
+            }
+            if (tokens.isNext(","))
+                tokens.next();
+        }
+        tokens.next();
+        boolean noUnwind = tokens.isNext("nounwind");
+
+        Function function = new Function(name, functionType(returnType, parameterTypes, varArgs), declaration, noUnwind);
+        function.parameters.addAll(parameters);
+        functions.add(function);
+        return function;
+    }
+
+    private Instruction readInstruction(Tokens tokens) {
+        String result = null;
+        if (tokens.peek().startsWith("%")) {
+            result = tokens.next().substring(1);
+            tokens.expect("=");
+        }
+        String opcode = tokens.next();
+        List<Value> operands = new ArrayList<>();
+        Type type;
+        switch (opcode) {
+            case "alloca":
+                //%var_x = alloca i32
+                return new Instruction(Opcode.ALLOCA, result, readType(tokens), 0, 0, operands, null);
+            case "load":
+                //%1 = load i32, i32* %var_x
+                type = readType(tokens);
+                tokens.expect(",");
+                operands.add(readTypedValue(tokens));
+                return new Instruction(Opcode.LOAD, result, type, 0, 0, operands, null);
+            case "store":
+                //store i32 %1, i32* %var_x
+                Value value = readTypedValue(tokens);
+                tokens.expect(",");
+                operands.add(readTypedValue(tokens));
+                operands.add(value);
+                return new Instruction(Opcode.STORE, null, null, 0, 0, operands, null);
+            case "add":
+            case "sub":
+            case "mul":
+            case "fadd":
+            case "fsub":
+            case "fmul":
+            case "fdiv":
+            case "sdiv":
+                //%3 = add nsw i32 %1, %2
+                int flags = 0;
+                while (tokens.isNext("nsw") || tokens.isNext("nuw")) {
+                    flags |= tokens.next().equals("nsw") ? 2 : 1;
+                }
+                readOperands(tokens, operands);
+                return new Instruction(Opcode.BINOP, result, null, binaryOperation(opcode), flags, operands, null);
+            case "icmp":
+            case "fcmp":
+                //%3 = icmp slt i32 %1, %2
+                int predicate = predicate(opcode, tokens.next());
+                readOperands(tokens, operands);
+                return new Instruction(Opcode.COMPARE, result, null, predicate, 0, operands, null);
+            case "sext":
+            case "zext":
+            case "trunc":
+            case "fptosi":
+            case "sitofp":
+                //%2 = sext i32 %1 to i64
+                operands.add(readTypedValue(tokens));
+                tokens.expect("to");
+                return new Instruction(Opcode.CAST, result, readType(tokens), castOperation(opcode), 0, operands, null);
+            case "getelementptr":
+                //%2 = getelementptr inbounds %classy.C, %classy.C* %this, i32 0, i32 1
+                tokens.expect("inbounds");
+                type = readType(tokens);
+                while (tokens.isNext(",")) {
+                    tokens.next();
+                    operands.add(readTypedValue(tokens));
+                }
+                return new Instruction(Opcode.ELEMENT_POINTER, result, type, 0, 0, operands, null);
+            case "br":
+                //br label %compare1 or br i1 %3, label %then1, label %end1
+                List<String> blocks = new ArrayList<>();
+                if (!tokens.isNext("label")) {
+                    operands.add(readTypedValue(tokens));
+                    tokens.expect(",");
+                }
+                tokens.expect("label");
+                blocks.add(tokens.next().substring(1));
+                if (tokens.isNext(",")) {
+                    tokens.next();
+                    tokens.expect("label");
+                    blocks.add(tokens.next().substring(1));
+                }
+                return new Instruction(Opcode.BR, null, null, 0, 0, operands, blocks);
+            case "ret":
+                //ret i32 %1
+                if (tokens.isNext("void"))
+                    tokens.next();
+                else
+                    operands.add(readTypedValue(tokens));
+                return new Instruction(Opcode.RET, null, null, 0, 0, operands, null);
+            case "call":
+                //%4 = call i32 @func_C_m(%classy.C* @inst_c, i32 %1) or %5 = call i32 (i8* , ...) @printf(...)
+                type = readType(tokens);
+                String callee = tokens.next().substring(1);
+                tokens.expect("(");
+                while (!tokens.isNext(")")) {
+                    operands.add(readTypedValue(tokens));
+                    if (tokens.isNext(","))
+                        tokens.next();
+                }
+                if (type.kind != TypeKind.FUNCTION) {
+                    List<Type> parameterTypes = new ArrayList<>();
+                    for (int i = 0; i < operands.size(); i++) {
+                        parameterTypes.add(operands.get(i).type);
+                    }
+                    type = functionType(type, parameterTypes, false);
+                }
+                operands.add(0, new Value(ValueKind.GLOBAL, callee, -1, pointerType(type)));
+                return new Instruction(Opcode.CALL, result, type, 0, 0, operands, null);
+            default:
+                throw new IllegalArgumentException("unsupported instruction " + opcode);
+        }
+    }
+
+    //i32 %1, %2, the second operand has the type of the first
+    private void readOperands(Tokens tokens, List<Value> operands) {
+        Value left = readTypedValue(tokens);
+        tokens.expect(",");
+        operands.add(left);
+        operands.add(readValue(tokens, left.type));
+    }
+
+    private Type readType(Tokens tokens) {
+        String token = tokens.next();
+        Type type;
+        if (token.equals("double")) {
+            type = type("double", TypeKind.DOUBLE, 0, null, null, false);
+        } else if (token.equals("void")) {
+            type = type("void", TypeKind.VOID, 0, null, null, false);
+        } else if (token.startsWith("i")) {
+            type = integerType(Integer.parseInt(token.substring(1)));
+        } else if (token.startsWith("%")) {
+            type = structType(token.substring(1));
+        } else if (token.equals("[")) {
+            int length = Integer.parseInt(tokens.next());
+            tokens.expect("x");
+            Type element = readType(tokens);
+            tokens.expect("]");
+            type = type("[" + length + " x " + element.key + "]", TypeKind.ARRAY, length, element, null, false);
+        } else
+            throw new IllegalArgumentException("unsupported type " + token);
+
+        while (true) {
+            if (tokens.isNext("*")) {
+                tokens.next();
+                type = pointerType(type);
+            } else if (tokens.isNext("(")) {
+                //i32 (i8* , ...), the type of a variadic callee
+                tokens.next();
+                List<Type> parameters = new ArrayList<>();
+                boolean varArgs = false;
+                while (!tokens.isNext(")")) {
+                    if (tokens.isNext("...")) {
+                        tokens.next();
+                        varArgs = true;
+                    } else
+                        parameters.add(readType(tokens));
+                    if (tokens.isNext(","))
+                        tokens.next();
+                }
+                tokens.next();
+                type = functionType(type, parameters, varArgs);
+            } else
+                return type;
+        }
+    }
+
+    private List<Type> readTypeList(Tokens tokens, String end) {
+        List<Type> list = new ArrayList<>();
+        while (!tokens.isNext(end)) {
+            list.add(readType(tokens));
+            if (tokens.isNext(","))
+                tokens.next();
+        }
+        tokens.next();
+        return list;
+    }
+
+    private Value readTypedValue(Tokens tokens) {
+        return readValue(tokens, readType(tokens));
+    }
+
+    private Value readValue(Tokens tokens, Type type) {
+        String token = tokens.next();
+        if (token.startsWith("%"))
+            return new Value(ValueKind.LOCAL, token.substring(1), -1, type);
+        if (token.startsWith("@"))
+            return new Value(ValueKind.GLOBAL, token.substring(1), -1, type);
+
+        List<Value> operands = new ArrayList<>();
+        switch (token) {
+            case "zeroinitializer":
+                return constant(ConstantKind.NULL, type, 0, null, operands);
+            case "{":
+            case "[":
+                //{ i32 0, [3 x i32] [i32 4, i32 5, i32 0] }
+                String end = token.equals("{") ? "}" : "]";
+                while (!tokens.isNext(end)) {
+                    operands.add(readTypedValue(tokens));
+                    if (tokens.isNext(","))
+                        tokens.next();
+                }
+                tokens.next();
+                return constant(ConstantKind.AGGREGATE, type, 0, null, operands);
+            case "getelementptr":
+                //getelementptr inbounds ([4 x i8], [4 x i8]*@sysvar_printint, i32 0, i32 0)
+                tokens.expect("inbounds");
+                tokens.expect("(");
+                Type source = readType(tokens);
+                while (tokens.isNext(",")) {
+                    tokens.next();
+                    operands.add(readTypedValue(tokens));
+                }
+                tokens.expect(")");
+                operands.add(0, new Value(ValueKind.CONSTANT, null, -1, source)); //only carries the source type
+                return constant(ConstantKind.ELEMENT_POINTER, type, 0, null, operands);
+        }
+        if (token.startsWith("c\""))
+            return constant(ConstantKind.STRING, type, 0, unescape(token.substring(2, token.length() - 1)), operands);
+        if (type.kind == TypeKind.DOUBLE) {
+            long bits = token.startsWith("0x") ? Long.parseUnsignedLong(token.substring(2), 16) : Double.doubleToRawLongBits(Double.parseDouble(token));
+            return constant(ConstantKind.FLOAT, type, bits, null, operands);
+        }
+        return constant(ConstantKind.INTEGER, type, Long.parseLong(token), null, operands);
+    }
+
+    private static byte[] unescape(String text) {
+        byte[] bytes = new byte[text.length()];
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\\') {
+                bytes[length++] = (byte) Integer.parseInt(text.substring(i + 1, i + 3), 16);
+                i += 2;
+            } else
+                bytes[length++] = (byte) text.charAt(i);
+        }
+        return Arrays.copyOf(bytes, length);
+    }
+
+    private static int binaryOperation(String opcode) {
+        switch (opcode) {
+            case "add":
+            case "fadd":
+                return 0;
+            case "sub":
+            case "fsub":
+                return 1;
+            case "mul":
+            case "fmul":
+                return 2;
+            default:
+                return 4; //sdiv and fdiv
+        }
+    }
+
+    private static int castOperation(String opcode) {
+        switch (opcode) {
+            case "trunc":
+                return 0;
+            case "zext":
+                return 1;
+            case "sext":
+                return 2;
+            case "fptosi":
+                return 4;
+            default:
+                return 6; //sitofp
+        }
+    }
+
+    private static int predicate(String opcode, String condition) {
+        if (opcode.equals("fcmp")) {
+            switch (condition) {
+                case "oeq":
+                    return 1;
+                case "ogt":
+                    return 2;
+                case "oge":
+                    return 3;
+                case "olt":
+                    return 4;
+                case "ole":
+                    return 5;
+                case "one":
+                    return 6;
+                case "une":
+                    return 14;
+            }
+        } else {
+            switch (condition) {
+                case "eq":
+                    return 32;
+                case "ne":
+                    return 33;
+                case "sgt":
+                    return 38;
+                case "sge":
+                    return 39;
+                case "slt":
+                    return 40;
+                case "sle":
+                    return 41;
+            }
+        }
+        throw new IllegalArgumentException("unsupported condition " + opcode + " " + condition);
+    }
+
+    //types and constants are shared by their text
+
+    private Type type(String key, TypeKind kind, int width, Type element, String name, boolean varArgs) {
+        Type type = types.get(key);
+        if (type == null) {
+            type = new Type(key, kind, width, element, name, varArgs, types.size());
+            types.put(key, type);
+        }
+        return type;
+    }
+
+    private Type integerType(int width) {
+        return type("i" + width, TypeKind.INTEGER, width, null, null, false);
+    }
+
+    private Type structType(String name) {
+        return type("%" + name, TypeKind.STRUCT, 0, null, name, false);
+    }
+
+    private Type pointerType(Type element) {
+        return type(element.key + "*", TypeKind.POINTER, 0, element, null, false);
+    }
+
+    private Type functionType(Type returnType, List<Type> parameters, boolean varArgs) {
+        StringBuilder key = new StringBuilder(returnType.key).append(" (");
+        for (int i = 0; i < parameters.size(); i++) {
+            key.append(i > 0 ? ", " : "").append(parameters.get(i).key);
+        }
+        key.append(varArgs ? ", ...)" : ")");
+        Type type = type(key.toString(), TypeKind.FUNCTION, 0, returnType, null, varArgs);
+        type.members = parameters;
+        return type;
+    }
+
+    private Value constant(ConstantKind kind, Type type, long value, byte[] bytes, List<Value> operands) {
+        StringBuilder key = new StringBuilder(kind.name()).append(' ').append(type.key).append(' ').append(value);
+        if (bytes != null)
+            key.append(' ').append(Arrays.toString(bytes));
+        for (int i = 0; i < operands.size(); i++) {
+            Value operand = operands.get(i);
+            key.append(' ').append(operand.kind == ValueKind.CONSTANT ? "#" + operand.constant + ":" + operand.type.key : operand.name);
+        }
+
+        Integer index = constantIndexes.get(key.toString());
+        if (index == null) {
+            index = constants.size();
+            constants.add(new Constant(kind, type, value, bytes, operands));
+            constantIndexes.put(key.toString(), index);
+        }
+        return new Value(ValueKind.CONSTANT, null, index, type);
+    }
+
+    //writing
+
+    //the module after its last line was read
+    public byte[] write() {
+        if (function != null)
+            throw new IllegalArgumentException("Can not write " + function.name + " as bitcode, its closing brace is missing");
+        Value one = constant(ConstantKind.INTEGER, i32, 1, null, new ArrayList<>()); //the element count of every alloca
+        List<Type> serials = new ArrayList<>(types.values());
+        List<Type> typeTable = new ArrayList<>();
+        Iterator<Type> typeIterator = serials.iterator();
+        while (typeIterator.hasNext()) {
+            number(typeIterator.next(), typeTable);
+        }
+
+        //globals, functions and constants are numbered in this order, function arguments and results after them
+        Map<String, Integer> globalIds = new HashMap<>();
+        for (int i = 0; i < globals.size(); i++) {
+            globalIds.put(globals.get(i).name, i);
+        }
+        for (int i = 0; i < functions.size(); i++) {
+            globalIds.put(functions.get(i).name, globals.size() + i);
+        }
+        int firstConstant = globals.size() + functions.size();
+
+        BitstreamWriter stream = new BitstreamWriter();
+        stream.writeBytes(new byte[]{'B', 'C', (byte) 0xC0, (byte) 0xDE});
+
+        stream.enterBlock(IDENTIFICATION_BLOCK, 5);
+        stream.record(1, chars("MK"));
+        stream.record(2, 0); //epoch
+        stream.exitBlock();
+
+        stream.enterBlock(MODULE_BLOCK, 3);
+        stream.record(1, 2); //version 2, relative value ids and names in the string table
+
+        stream.enterBlock(PARAMATTR_GROUP_BLOCK, 3);
+        stream.record(3, 1, 0xFFFFFFFFL, 0, NO_UNWIND); //group 1: nounwind on the function
+        stream.exitBlock();
+        stream.enterBlock(PARAMATTR_BLOCK, 3);
+        stream.record(2, 1);
+        stream.exitBlock();
+
+        writeTypes(stream, typeTable);
+
+        ByteArrayBuilder strings = new ByteArrayBuilder();
+        Iterator<GlobalVariable> globalIterator = globals.iterator();
+        GlobalVariable global;
+        while (globalIterator.hasNext()) {
+            global = globalIterator.next();
+            int offset = strings.add(global.name);
+            //[strtab offset, strtab size, type, constant | explicit type, initializer + 1, linkage, alignment, section]
+            stream.record(7, offset, global.name.length(), global.type.id, (global.constant ? 1 : 0) | 2, id(global.initializer, globalIds, firstConstant, null) + 1, 0, 0, 0);
+        }
+        Iterator<Function> functionIterator = functions.iterator();
+        Function function;
+        while (functionIterator.hasNext()) {
+            function = functionIterator.next();
+            int offset = strings.add(function.name);
+            //[strtab offset, strtab size, type, calling convention, prototype, linkage, attributes, alignment, section, visibility, gc]
+            stream.record(8, offset, function.name.length(), function.type.id, 0, function.declaration ? 1 : 0, 0, function.noUnwind ? 1 : 0, 0, 0, 0, 0);
+        }
+
+        writeConstants(stream, globalIds, firstConstant);
+
+        long[] ids = new long[globalNames.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = id(new Value(ValueKind.GLOBAL, globalNames.get(i), -1, null), globalIds, firstConstant, null);
+        }
+        Ids moduleIds = new Ids(serials, ids, firstConstant, firstConstant + constants.size(), firstConstant + one.constant);
+        functionIterator = functions.iterator();
+        while (functionIterator.hasNext()) {
+            function = functionIterator.next();
+            if (!function.declaration)
+                writeFunction(stream, function, moduleIds);
+        }
+        stream.exitBlock();
+
+        stream.enterBlock(STRTAB_BLOCK, 3);
+        stream.blobRecord(1, strings.toByteArray());
+        stream.exitBlock();
+        return stream.toByteArray();
+    }
+
+    //a type is numbered after the types it is made of, only named structs may be referenced before they are defined
+    private void number(Type type, List<Type> typeTable) {
+        if (type.id >= 0)
+            return;
+        if (type.kind == TypeKind.STRUCT) {
+            type.id = -2; //being numbered
+            for (int i = 0; i < type.members.size(); i++) {
+                if (type.members.get(i).kind != TypeKind.STRUCT)
+                    number(type.members.get(i), typeTable);
+            }
+        } else {
+            if (type.element != null && type.element.id == -1)
+                number(type.element, typeTable);
+            for (int i = 0; i < type.members.size(); i++) {
+                number(type.members.get(i), typeTable);
+            }
+        }
+        type.id = typeTable.size();
+        typeTable.add(type);
+    }
+
+    private void writeTypes(BitstreamWriter stream, List<Type> typeTable) {
+        stream.enterBlock(TYPE_BLOCK, ABBREV_WIDTH);
+        stream.record(1, typeTable.size());
+        Iterator<Type> iterator = typeTable.iterator();
+        Type type;
+        while (iterator.hasNext()) {
+            type = iterator.next();
+            switch (type.kind) {
+                case INTEGER:
+                    stream.record(7, type.width);
+                    break;
+                case DOUBLE:
+                    stream.record(4);
+                    break;
+                case VOID:
+                    stream.record(2);
+                    break;
+                case ARRAY:
+                    stream.record(11, type.width, type.element.id);
+                    break;
+                case POINTER:
+                    stream.record(8, type.element.id, 0);
+                    break;
+                case STRUCT:
+                    stream.record(19, chars(type.name));
+                    long[] fields = new long[type.members.size() + 1];
+                    for (int i = 0; i < type.members.size(); i++) {
+                        fields[i + 1] = type.members.get(i).id;
+                    }
+                    stream.record(20, fields);
+                    break;
+                case FUNCTION:
+                    long[] signature = new long[type.members.size() + 2];
+                    signature[0] = type.varArgs ? 1 : 0;
+                    signature[1] = type.element.id;
+                    for (int i = 0; i < type.members.size(); i++) {
+                        signature[i + 2] = type.members.get(i).id;
+                    }
+                    stream.record(21, signature);
+                    break;
+            }
+        }
+        stream.exitBlock();
+    }
+
+    private void writeConstants(BitstreamWriter stream, Map<String, Integer> globalIds, int firstConstant) {
+        stream.enterBlock(CONSTANTS_BLOCK, ABBREV_WIDTH);
+        Type current = null;
+        Iterator<Constant> iterator = constants.iterator();
+        Constant constant;
+        while (iterator.hasNext()) {
+            constant = iterator.next();
+            if (constant.type != current) {
+                stream.record(1, constant.type.id);
+                current = constant.type;
+            }
+            switch (constant.kind) {
+                case INTEGER:
+                    stream.record(4, constant.value >= 0 ? constant.value << 1 : (-constant.value << 1) | 1);
+                    break;
+                case FLOAT:
+                    stream.record(6, constant.value);
+                    break;
+                case NULL:
+                    stream.record(2);
+                    break;
+                case STRING:
+                    long[] bytes = new long[constant.bytes.length];
+                    for (int i = 0; i < bytes.length; i++) {
+                        bytes[i] = constant.bytes[i] & 0xFF;
+                    }
+                    stream.record(8, bytes);
+                    break;
+                case AGGREGATE:
+                    long[] elements = new long[constant.operands.size()];
+                    for (int i = 0; i < elements.length; i++) {
+                        elements[i] = id(constant.operands.get(i), globalIds, firstConstant, null);
+                    }
+                    stream.record(7, elements);
+                    break;
+                case ELEMENT_POINTER:
+                    //[source type, then type and id of the base and every index]
+                    long[] operands = new long[constant.operands.size() * 2 - 1];
+                    operands[0] = constant.operands.get(0).type.id;
+                    for (int i = 1; i < constant.operands.size(); i++) {
+                        operands[i * 2 - 1] = constant.operands.get(i).type.id;
+                        operands[i * 2] = id(constant.operands.get(i), globalIds, firstConstant, null);
+                    }
+                    stream.record(20, operands);
+                    break;
+            }
+        }
+        stream.exitBlock();
+    }
+
+    //the instructions and names of a function as records, its values are numbered from 0 until the module values are counted
+    private void encode(Function function) {
+        Records records = function.records;
+        Map<String, Integer> locals = new HashMap<>();
+        int next = 0;
+        for (int i = 0; i < function.parameters.size(); i++) {
+            locals.put(function.parameters.get(i), next++);
+        }
+
+        Iterator<Instruction> iterator = function.instructions.iterator();
+        Instruction instruction;
+        while (iterator.hasNext()) {
+            instruction = iterator.next();
+            List<Value> operands = instruction.operands;
+            switch (instruction.opcode) {
+                case ALLOCA:
+                    //[type, size type, size, alignment with the explicit type bit]
+                    records.start(19, 4);
+                    records.add(TYPE, instruction.type.serial);
+                    records.add(TYPE, i32.serial);
+                    records.add(ONE, 0);
+                    records.add(LITERAL, 1 << 6);
+                    break;
+                case LOAD:
+                    records.start(20, 4);
+                    operand(records, operands.get(0), locals, next);
+                    records.add(TYPE, instruction.type.serial);
+                    records.add(LITERAL, 0);
+                    records.add(LITERAL, 0);
+                    break;
+                case STORE:
+                    records.start(44, 4);
+                    operand(records, operands.get(0), locals, next);
+                    operand(records, operands.get(1), locals, next);
+                    records.add(LITERAL, 0);
+                    records.add(LITERAL, 0);
+                    break;
+                case BINOP:
+                    records.start(2, instruction.flags != 0 ? 4 : 3);
+                    operand(records, operands.get(0), locals, next);
+                    operand(records, operands.get(1), locals, next);
+                    records.add(LITERAL, instruction.code);
+                    if (instruction.flags != 0)
+                        records.add(LITERAL, instruction.flags);
+                    break;
+                case COMPARE:
+                    records.start(28, 3);
+                    operand(records, operands.get(0), locals, next);
+                    operand(records, operands.get(1), locals, next);
+                    records.add(LITERAL, instruction.code);
+                    break;
+                case CAST:
+                    records.start(3, 3);
+                    operand(records, operands.get(0), locals, next);
+                    records.add(TYPE, instruction.type.serial);
+                    records.add(LITERAL, instruction.code);
+                    break;
+                case ELEMENT_POINTER:
+                    records.start(43, operands.size() + 2);
+                    records.add(LITERAL, 1); //inbounds
+                    records.add(TYPE, instruction.type.serial);
+                    for (int i = 0; i < operands.size(); i++) {
+                        operand(records, operands.get(i), locals, next);
+                    }
+                    break;
+                case BR:
+                    records.start(11, instruction.blocks.size() > 1 ? 3 : 1);
+                    records.add(LITERAL, block(function, instruction.blocks.get(0)));
+                    if (instruction.blocks.size() > 1) {
+                        records.add(LITERAL, block(function, instruction.blocks.get(1)));
+                        operand(records, operands.get(0), locals, next);
+                    }
+                    break;
+                case RET:
+                    records.start(10, operands.size());
+                    if (!operands.isEmpty())
+                        operand(records, operands.get(0), locals, next);
+                    break;
+                default:
+                    //[attributes, explicit type flag, function type, callee, arguments]
+                    records.start(34, operands.size() + 3);
+                    records.add(LITERAL, 0);
+                    records.add(LITERAL, 1 << 15);
+                    records.add(TYPE, instruction.type.serial);
+                    for (int i = 0; i < operands.size(); i++) {
+                        operand(records, operands.get(i), locals, next);
+                    }
+                    break;
+            }
+            if (instruction.result != null)
+                locals.put(instruction.result, next++);
+        }
+
+        //names of the parameters, stack slots and labels, the numbered ones have none
+        Iterator<Map.Entry<String, Integer>> names = new TreeMap<>(locals).entrySet().iterator();
+        Map.Entry<String, Integer> name;
+        while (names.hasNext()) {
+            name = names.next();
+            if (!Character.isDigit(name.getKey().charAt(0)))
+                symbol(function.symbols, 1, LOCAL_ID, name.getValue(), name.getKey());
+        }
+        names = new TreeMap<>(function.blocks).entrySet().iterator();
+        while (names.hasNext()) {
+            name = names.next();
+            symbol(function.symbols, 2, LITERAL, name.getValue(), name.getKey());
+        }
+
+        function.instructions.clear();
+        function.blocks.clear();
+        function.records.trim();
+        function.symbols.trim();
+    }
+
+    //relative to the value number next, the one of a local is known now, the one of a module value when the module is written
+    private void operand(Records records, Value value, Map<String, Integer> locals, int next) {
+        switch (value.kind) {
+            case CONSTANT:
+                records.add(CONSTANT, (long) next << 32 | value.constant);
+                break;
+            case GLOBAL:
+                Integer index = nameIndexes.get(value.name);
+                if (index == null) {
+                    index = globalNames.size();
+                    globalNames.add(value.name);
+                    nameIndexes.put(value.name, index);
+                }
+                records.add(GLOBAL, (long) next << 32 | index);
+                break;
+            default:
+                Integer id = locals.get(value.name);
+                if (id == null)
+                    throw new IllegalArgumentException("Unknown value " + value.name);
+                records.add(LITERAL, next - id);
+                break;
+        }
+    }
+
+    private static void symbol(Records symbols, int code, int kind, int id, String name) {
+        symbols.start(code, name.length() + 1);
+        symbols.add(kind, id);
+        for (int i = 0; i < name.length(); i++) {
+            symbols.add(LITERAL, name.charAt(i));
+        }
+    }
+
+    private void writeFunction(BitstreamWriter stream, Function function, Ids ids) {
+        stream.enterBlock(FUNCTION_BLOCK, ABBREV_WIDTH);
+        stream.record(1, function.blockCount);
+        function.records.writeTo(stream, ids);
+        stream.enterBlock(VALUE_SYMTAB_BLOCK, ABBREV_WIDTH);
+        function.symbols.writeTo(stream, ids);
+        stream.exitBlock();
+        stream.exitBlock();
+    }
+
+    private static int block(Function function, String name) {
+        Integer index = function.blocks.get(name);
+        if (index == null)
+            throw new IllegalArgumentException("Unknown label " + name + " in " + function.name);
+        return index;
+    }
+
+    private static int id(Value value, Map<String, Integer> globalIds, int firstConstant, Map<String, Integer> locals) {
+        Integer id;
+        switch (value.kind) {
+            case CONSTANT:
+                return firstConstant + value.constant;
+            case GLOBAL:
+                id = globalIds.get(value.name);
+                break;
+            default:
+                id = locals == null ? null : locals.get(value.name);
+                break;
+        }
+        if (id == null)
+            throw new IllegalArgumentException("Unknown value " + value.name);
+        return id;
+    }
+
+    private static long[] chars(String text) {
+        long[] chars = new long[text.length()];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = text.charAt(i);
+        }
+        return chars;
+    }
+
+    private static long[] prepend(long first, long[] rest) {
+        long[] result = new long[rest.length + 1];
+        result[0] = first;
+        System.arraycopy(rest, 0, result, 1, rest.length);
+        return result;
+    }
+
+    //the numbers of types and module values, known once the whole module is read
+    private static final class Ids {
+        private final List<Type> types; //by serial
+        private final long[] names; //value numbers of the globals and functions in globalNames
+        private final int firstConstant;
+        private final int moduleValues; //globals, functions and constants, the values of a function are numbered after them
+        private final int one;
+
+        private Ids(List<Type> types, long[] names, int firstConstant, int moduleValues, int one) {
+            this.types = types;
+            this.names = names;
+            this.firstConstant = firstConstant;
+            this.moduleValues = moduleValues;
+            this.one = one;
+        }
+
+        private long of(long kind, long value) {
+            switch ((int) kind) {
+                case TYPE:
+                    return types.get((int) value).id;
+                case GLOBAL:
+                    return moduleValues + (value >>> 32) - names[(int) value];
+                case CONSTANT:
+                    return moduleValues + (value >>> 32) - (firstConstant + (int) value);
+                case LOCAL_ID:
+                    return moduleValues + value;
+                case ONE:
+                    return one;
+                default:
+                    return value;
+            }
+        }
+    }
+
+    //records of one function: code and length of every record, then a kind and a value per field
+    private static final class Records {
+        private long[] fields = new long[64];
+        private int size = 0;
+
+        private void start(int code, int length) {
+            add(code, length);
+        }
+
+        private void add(long kind, long value) {
+            if (size + 2 > fields.length)
+                fields = Arrays.copyOf(fields, fields.length * 2);
+            fields[size++] = kind;
+            fields[size++] = value;
+        }
+
+        //keeps only what was added, the function is complete
+        private void trim() {
+            fields = Arrays.copyOf(fields, size);
+        }
+
+        private void writeTo(BitstreamWriter stream, Ids ids) {
+            long[] record = new long[16];
+            int i = 0;
+            while (i < size) {
+                int code = (int) fields[i];
+                int length = (int) fields[i + 1];
+                i += 2;
+                if (length > record.length)
+                    record = new long[length];
+                for (int j = 0; j < length; j++) {
+                    record[j] = ids.of(fields[i], fields[i + 1]);
+                    i += 2;
+                }
+                stream.record(code, record, length);
+            }
+        }
+    }
+
+    //the string table holding the names of globals and functions
+    private static final class ByteArrayBuilder {
+        private final StringBuilder builder = new StringBuilder();
+
+        private int add(String name) {
+            int offset = builder.length();
+            builder.append(name);
+            return offset;
+        }
+
+        private byte[] toByteArray() {
+            return builder.toString().getBytes(StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    //splits one line of IR into names, numbers, strings and punctuation
+    private static final class Tokens {
+        private final List<String> tokens = new ArrayList<>();
+        private int position = 0;
+
+        private Tokens(String line) {
+            int i = 0;
+            while (i < line.length()) {
+                char c = line.charAt(i);
+                int start = i;
+                if (c == ' ' || c == '\t' || c == '\r') {
+                    i++;
+                    continue;
+                }
+                if (c == ';')
+                    break;
+                if (c == 'c' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    i = line.indexOf('"', i + 2) + 1;
+                } else if (c == '%' || c == '@' || Character.isLetter(c) || c == '_') {
+                    i++;
+                    while (i < line.length() && isNameChar(line.charAt(i))) {
+                        i++;
+                    }
+                } else if (Character.isDigit(c) || c == '-') {
+                    i++;
+                    while (i < line.length() && (Character.isLetterOrDigit(line.charAt(i)) || line.charAt(i) == '.'
+                            || ((line.charAt(i) == '-' || line.charAt(i) == '+') && (line.charAt(i - 1) == 'E' || line.charAt(i - 1) == 'e') && !line.startsWith("0x", start)))) {
+                        i++;
+                    }
+                } else if (line.startsWith("...", i)) {
+                    i += 3;
+                } else
+                    i++;
+                tokens.add(line.substring(start, i));
+            }
+        }
+
+        private static boolean isNameChar(char c) {
+            return Character.isLetterOrDigit(c) || c == '_' || c == '.' || c == '$' || c == '-';
+        }
+
+        private boolean hasNext() {
+            return position < tokens.size();
+        }
+
+        private String peek() {
+            return peek(0);
+        }
+
+        private String peek(int ahead) {
+            return position + ahead < tokens.size() ? tokens.get(position + ahead) : "";
+        }
+
+        private boolean isNext(String token) {
+            return peek().equals(token);
+        }
+
+        private String next() {
+            if (!hasNext())
+                throw new IllegalArgumentException("unexpected end of line");
+            return tokens.get(position++);
+        }
+
+        private void expect(String token) {
+            String next = next();
+            if (!next.equals(token))
+                throw new IllegalArgumentException("expected " + token + " but found " + next);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.CharBuffer;
+
+//takes the IR text LLVMBuilder writes and writes it as LLVM bitcode when closed, see --emit=bc
+//every line is read as soon as it is complete and every function is encoded at its end, so the module text is never held
+//values are numbered across the whole module, so nothing can be written before the last classy was read
+public class BitcodeWriter extends Writer {
+    private final OutputStream out;
+    private final BitcodeModule module = new BitcodeModule();
+    private final StringBuilder line = new StringBuilder(); //the part of the line not yet ended
+    private boolean closed = false;
+
+    public BitcodeWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void write(char[] buffer, int offset, int length) {
+        append(CharBuffer.wrap(buffer, offset, length));
+    }
+
+    @Override
+    public Writer append(CharSequence text) {
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                line.append(text, start, i);
+                module.read(line.toString());
+                line.setLength(0);
+                start = i + 1;
+            }
+        }
+        line.append(text, start, text.length());
+        return this;
+    }
+
+    @Override
+    public void write(String text) {
+        append(text);
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+        if (line.length() > 0)
+            module.read(line.toString());
+        out.write(module.write());
+        out.close();
+    }
+}
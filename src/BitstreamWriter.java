@@ -0,0 +1,125 @@
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+//the LLVM bitstream container: fixed and variable width fields, nested blocks and unabbreviated records
+public class BitstreamWriter {
+    private static final int END_BLOCK = 0;
+    private static final int ENTER_SUBBLOCK = 1;
+    private static final int DEFINE_ABBREV = 2;
+    private static final int UNABBREV_RECORD = 3;
+    private static final int FIRST_ABBREV = 4; //abbreviations defined in a block are numbered from here
+    private static final int BLOB_ENCODING = 5;
+
+    private byte[] buffer = new byte[4096];
+    private int size = 0;
+    private long pending = 0; //bits not yet written, the first one lowest
+    private int pendingBits = 0;
+    private int abbrevWidth = 2;
+    private final Deque<int[]> blocks = new ArrayDeque<>(); //abbreviation width outside and position of the length word of every open block
+
+    //width is at most 32
+    public void emit(long value, int width) {
+        pending |= (value & ((1L << width) - 1)) << pendingBits;
+        pendingBits += width;
+        if (pendingBits >= 32) {
+            writeWord((int) pending);
+            pending >>>= 32;
+            pendingBits -= 32;
+        }
+    }
+
+    public void emitVBR(long value, int width) {
+        long high = 1L << (width - 1);
+        while ((value >>> (width - 1)) != 0) {
+            emit((value & (high - 1)) | high, width);
+            value >>>= width - 1;
+        }
+        emit(value, width);
+    }
+
+    public void align32() {
+        if (pendingBits > 0)
+            emit(0, 32 - pendingBits);
+    }
+
+    public void enterBlock(int blockId, int newAbbrevWidth) {
+        emit(ENTER_SUBBLOCK, abbrevWidth);
+        emitVBR(blockId, 8);
+        emitVBR(newAbbrevWidth, 4);
+        align32();
+        blocks.push(new int[]{abbrevWidth, size});
+        writeWord(0); //length of the block in words, known when it ends
+        abbrevWidth = newAbbrevWidth;
+    }
+
+    public void exitBlock() {
+        emit(END_BLOCK, abbrevWidth);
+        align32();
+        int[] block = blocks.pop();
+        int words = (size - block[1]) / 4 - 1;
+        buffer[block[1]] = (byte) words;
+        buffer[block[1] + 1] = (byte) (words >>> 8);
+        buffer[block[1] + 2] = (byte) (words >>> 16);
+        buffer[block[1] + 3] = (byte) (words >>> 24);
+        abbrevWidth = block[0];
+    }
+
+    public void record(int code, long... operands) {
+        record(code, operands, operands.length);
+    }
+
+    public void record(int code, long[] operands, int count) {
+        emit(UNABBREV_RECORD, abbrevWidth);
+        emitVBR(code, 6);
+        emitVBR(count, 6);
+        for (int i = 0; i < count; i++) {
+            emitVBR(operands[i], 6);
+        }
+    }
+
+    //a record holding only a blob, blobs can not be written unabbreviated so the block gets an abbreviation for it
+    public void blobRecord(int code, byte[] blob) {
+        emit(DEFINE_ABBREV, abbrevWidth);
+        emitVBR(2, 5);
+        emit(1, 1); //literal code
+        emitVBR(code, 8);
+        emit(0, 1);
+        emit(BLOB_ENCODING, 3);
+
+        emit(FIRST_ABBREV, abbrevWidth);
+        emitVBR(blob.length, 6);
+        align32();
+        ensureCapacity(blob.length + 4);
+        System.arraycopy(blob, 0, buffer, size, blob.length);
+        size += blob.length;
+        while (size % 4 != 0) {
+            buffer[size++] = 0;
+        }
+    }
+
+    public void writeBytes(byte[] bytes) {
+        align32();
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+    }
+
+    public byte[] toByteArray() {
+        align32();
+        return Arrays.copyOf(buffer, size);
+    }
+
+    private void writeWord(int word) {
+        ensureCapacity(4);
+        buffer[size++] = (byte) word;
+        buffer[size++] = (byte) (word >>> 8);
+        buffer[size++] = (byte) (word >>> 16);
+        buffer[size++] = (byte) (word >>> 24);
+    }
+
+    private void ensureCapacity(int more) {
+        if (size + more > buffer.length)
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + more));
+    }
+}
@@ -0,0 +1,458 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+
+//writes one JVM class file: constant pool, fields and methods with their code
+//the class file version is 49, which is verified without stack map frames, so branches need no frame computation
+public class ClassFileWriter {
+    public static final int ACC_PUBLIC = 0x0001;
+    public static final int ACC_STATIC = 0x0008;
+    public static final int ACC_FINAL = 0x0010;
+    public static final int ACC_SUPER = 0x0020;
+
+    public static final int ICONST_0 = 3;
+    public static final int DCONST_0 = 14;
+    public static final int DCONST_1 = 15;
+    public static final int BIPUSH = 16;
+    public static final int SIPUSH = 17;
+    public static final int LDC_W = 19;
+    public static final int LDC2_W = 20;
+    public static final int ILOAD = 21;
+    public static final int DLOAD = 24;
+    public static final int ALOAD = 25;
+    public static final int IALOAD = 46;
+    public static final int DALOAD = 49;
+    public static final int ISTORE = 54;
+    public static final int DSTORE = 57;
+    public static final int IASTORE = 79;
+    public static final int DASTORE = 82;
+    public static final int DUP = 89;
+    public static final int IADD = 96;
+    public static final int DADD = 99;
+    public static final int ISUB = 100;
+    public static final int DSUB = 103;
+    public static final int IMUL = 104;
+    public static final int DMUL = 107;
+    public static final int DDIV = 111;
+    public static final int I2D = 135;
+    public static final int D2I = 142;
+    public static final int DCMPL = 151;
+    public static final int DCMPG = 152;
+    public static final int IFEQ = 153;
+    public static final int IFNE = 154;
+    public static final int IFLT = 155;
+    public static final int IFGE = 156;
+    public static final int IFGT = 157;
+    public static final int IFLE = 158;
+    public static final int IF_ICMPEQ = 159;
+    public static final int IF_ICMPNE = 160;
+    public static final int IF_ICMPLT = 161;
+    public static final int IF_ICMPGE = 162;
+    public static final int IF_ICMPGT = 163;
+    public static final int IF_ICMPLE = 164;
+    public static final int GOTO = 167;
+    public static final int IRETURN = 172;
+    public static final int DRETURN = 175;
+    public static final int RETURN = 177;
+    public static final int GETSTATIC = 178;
+    public static final int PUTSTATIC = 179;
+    public static final int GETFIELD = 180;
+    public static final int PUTFIELD = 181;
+    public static final int INVOKEVIRTUAL = 182;
+    public static final int INVOKESPECIAL = 183;
+    public static final int NEW = 187;
+    public static final int NEWARRAY = 188;
+    public static final int WIDE = 196;
+
+    public static final int T_DOUBLE = 7;
+    public static final int T_INT = 10;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+    private final DataOutputStream pool = new DataOutputStream(poolBytes);
+    private final Map<String, Integer> poolIndexes = new HashMap<>(); //every entry is written once
+    private int poolSize = 1;
+    private final int thisClass;
+    private final int superClass;
+    private final ByteArrayOutputStream fieldBytes = new ByteArrayOutputStream();
+    private final DataOutputStream fields = new DataOutputStream(fieldBytes);
+    private int fieldCount = 0;
+    private final List<Code> methods = new ArrayList<>();
+
+    //name with slashes, e.g. mk/classy/Calc
+    public ClassFileWriter(String name) {
+        thisClass = classConstant(name);
+        superClass = classConstant("java/lang/Object");
+    }
+
+    public void field(int access, String name, String descriptor) {
+        try {
+            fields.writeShort(access);
+            fields.writeShort(utf8(name));
+            fields.writeShort(utf8(descriptor));
+            fields.writeShort(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        fieldCount++;
+    }
+
+    //the code is written into the returned Code, the first locals hold this (unless static) and the parameters
+    public Code method(int access, String name, String descriptor) {
+        Code code = new Code(this, access, utf8(name), utf8(descriptor));
+        code.locals = ((access & ACC_STATIC) != 0 ? 0 : 1) + argumentSlots(descriptor);
+        methods.add(code);
+        return code;
+    }
+
+    public byte[] toByteArray() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        int code = utf8("Code");
+        try {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(49);
+            out.writeShort(poolSize);
+            poolBytes.writeTo(out);
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(0); //interfaces
+            out.writeShort(fieldCount);
+            fieldBytes.writeTo(out);
+
+            out.writeShort(methods.size());
+            Iterator<Code> iterator = methods.iterator();
+            Code method;
+            while (iterator.hasNext()) {
+                method = iterator.next();
+                method.resolveJumps();
+                out.writeShort(method.access);
+                out.writeShort(method.name);
+                out.writeShort(method.descriptor);
+                out.writeShort(1);
+                out.writeShort(code);
+                out.writeInt(12 + method.length);
+                out.writeShort(method.maxStack);
+                out.writeShort(method.locals);
+                out.writeInt(method.length);
+                out.write(method.bytes, 0, method.length);
+                out.writeShort(0); //exception table
+                out.writeShort(0); //attributes
+            }
+            out.writeShort(0); //attributes
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private int utf8(String text) {
+        Integer index = poolIndexes.get("U" + text);
+        if (index != null)
+            return index;
+        try {
+            pool.writeByte(CONSTANT_UTF8);
+            pool.writeUTF(text);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return add("U" + text, 1);
+    }
+
+    private int classConstant(String name) {
+        Integer index = poolIndexes.get("C" + name);
+        if (index != null)
+            return index;
+        int nameIndex = utf8(name);
+        writeEntry(CONSTANT_CLASS, nameIndex, -1);
+        return add("C" + name, 1);
+    }
+
+    private int member(int tag, String owner, String name, String descriptor) {
+        String key = tag + owner + "." + name + ":" + descriptor;
+        Integer index = poolIndexes.get(key);
+        if (index != null)
+            return index;
+        int ownerIndex = classConstant(owner);
+        int nameAndType = nameAndType(name, descriptor);
+        writeEntry(tag, ownerIndex, nameAndType);
+        return add(key, 1);
+    }
+
+    private int nameAndType(String name, String descriptor) {
+        Integer index = poolIndexes.get("N" + name + ":" + descriptor);
+        if (index != null)
+            return index;
+        int nameIndex = utf8(name);
+        int descriptorIndex = utf8(descriptor);
+        writeEntry(CONSTANT_NAME_AND_TYPE, nameIndex, descriptorIndex);
+        return add("N" + name + ":" + descriptor, 1);
+    }
+
+    private int integerConstant(int value) {
+        Integer index = poolIndexes.get("I" + value);
+        if (index != null)
+            return index;
+        try {
+            pool.writeByte(CONSTANT_INTEGER);
+            pool.writeInt(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return add("I" + value, 1);
+    }
+
+    private int doubleConstant(double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        Integer index = poolIndexes.get("D" + bits);
+        if (index != null)
+            return index;
+        try {
+            pool.writeByte(CONSTANT_DOUBLE);
+            pool.writeLong(bits);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return add("D" + bits, 2); //a double takes two entries
+    }
+
+    private void writeEntry(int tag, int first, int second) {
+        try {
+            pool.writeByte(tag);
+            pool.writeShort(first);
+            if (second >= 0)
+                pool.writeShort(second);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int add(String key, int entries) {
+        int index = poolSize;
+        poolIndexes.put(key, index);
+        poolSize += entries;
+        if (poolSize > 0xFFFF)
+            throw new IllegalStateException("too many constants in one class");
+        return index;
+    }
+
+    //slots taken by the parameters of a method descriptor, doubles take two
+    static int argumentSlots(String descriptor) {
+        int slots = 0;
+        int i = 1;
+        while (descriptor.charAt(i) != ')') {
+            char c = descriptor.charAt(i);
+            if (c == 'D' || c == 'J') {
+                slots += 2;
+            } else if (c == 'L') {
+                slots++;
+                i = descriptor.indexOf(';', i);
+            } else if (c == '[') {
+                slots++;
+                while (descriptor.charAt(i) == '[') {
+                    i++;
+                }
+                if (descriptor.charAt(i) == 'L')
+                    i = descriptor.indexOf(';', i);
+            } else
+                slots++;
+            i++;
+        }
+        return slots;
+    }
+
+    static int returnSlots(String descriptor) {
+        char c = descriptor.charAt(descriptor.indexOf(')') + 1);
+        return c == 'V' ? 0 : c == 'D' || c == 'J' ? 2 : 1;
+    }
+
+    static int typeSlots(String descriptor) {
+        return descriptor.equals("D") || descriptor.equals("J") ? 2 : 1;
+    }
+
+    public static final class Label {
+        private int position = -1;
+        private final List<int[]> jumps = new ArrayList<>(); //instruction and offset position of every jump to this label
+    }
+
+    //the code of one method, tracks the operand stack depth so max_stack is known when the class is written
+    public static final class Code {
+        private final ClassFileWriter owner;
+        private final int access;
+        private final int name;
+        private final int descriptor;
+        private byte[] bytes = new byte[64];
+        private int length = 0;
+        private int stack = 0;
+        private int maxStack = 0;
+        private int locals;
+        private final List<Label> labels = new ArrayList<>();
+
+        private Code(ClassFileWriter owner, int access, int name, int descriptor) {
+            this.owner = owner;
+            this.access = access;
+            this.name = name;
+            this.descriptor = descriptor;
+        }
+
+        //a new local of one or two (double) slots
+        public int newLocal(boolean wide) {
+            int local = locals;
+            locals += wide ? 2 : 1;
+            return local;
+        }
+
+        public void op(int opcode, int stackChange) {
+            write(opcode);
+            stack(stackChange);
+        }
+
+        public void intConstant(int value) {
+            if (value >= -1 && value <= 5) {
+                write(ICONST_0 + value);
+            } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+                write(BIPUSH);
+                write(value);
+            } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+                write(SIPUSH);
+                writeShort(value);
+            } else {
+                write(LDC_W);
+                writeShort(owner.integerConstant(value));
+            }
+            stack(1);
+        }
+
+        public void doubleConstant(double value) {
+            if (Double.doubleToRawLongBits(value) == 0L) {
+                write(DCONST_0);
+            } else if (value == 1.0) {
+                write(DCONST_1);
+            } else {
+                write(LDC2_W);
+                writeShort(owner.doubleConstant(value));
+            }
+            stack(2);
+        }
+
+        //ILOAD, DLOAD, ALOAD, ISTORE or DSTORE
+        public void local(int opcode, int local) {
+            if (local > 0xFF) {
+                write(WIDE);
+                write(opcode);
+                writeShort(local);
+            } else {
+                write(opcode);
+                write(local);
+            }
+            int slots = opcode == DLOAD || opcode == DSTORE ? 2 : 1;
+            stack(opcode == ISTORE || opcode == DSTORE ? -slots : slots);
+        }
+
+        public void field(int opcode, String owner, String name, String descriptor) {
+            write(opcode);
+            writeShort(this.owner.member(CONSTANT_FIELDREF, owner, name, descriptor));
+            int slots = typeSlots(descriptor);
+            switch (opcode) {
+                case GETSTATIC:
+                    stack(slots);
+                    break;
+                case PUTSTATIC:
+                    stack(-slots);
+                    break;
+                case GETFIELD:
+                    stack(slots - 1);
+                    break;
+                default:
+                    stack(-slots - 1);
+                    break;
+            }
+        }
+
+        //INVOKEVIRTUAL or INVOKESPECIAL
+        public void invoke(int opcode, String owner, String name, String descriptor) {
+            write(opcode);
+            writeShort(this.owner.member(CONSTANT_METHODREF, owner, name, descriptor));
+            stack(returnSlots(descriptor) - argumentSlots(descriptor) - 1);
+        }
+
+        public void newObject(String type) {
+            write(NEW);
+            writeShort(owner.classConstant(type));
+            stack(1);
+        }
+
+        //T_INT or T_DOUBLE, takes the length from the stack
+        public void newArray(int type) {
+            write(NEWARRAY);
+            write(type);
+        }
+
+        public Label newLabel() {
+            Label label = new Label();
+            labels.add(label);
+            return label;
+        }
+
+        public void bind(Label label) {
+            label.position = length;
+        }
+
+        //GOTO or a conditional jump, the offset is filled in when the class is written
+        public void jump(int opcode, Label label) {
+            label.jumps.add(new int[]{length, length + 1});
+            write(opcode);
+            writeShort(0);
+            if (opcode >= IF_ICMPEQ && opcode <= IF_ICMPLE)
+                stack(-2);
+            else if (opcode != GOTO)
+                stack(-1);
+        }
+
+        private void resolveJumps() {
+            if (length > 0xFFFF)
+                throw new IllegalStateException("method too large for the JVM");
+            Iterator<Label> iterator = labels.iterator();
+            Label label;
+            while (iterator.hasNext()) {
+                label = iterator.next();
+                for (int i = 0; i < label.jumps.size(); i++) {
+                    int[] jump = label.jumps.get(i);
+                    int offset = label.position - jump[0];
+                    if (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE)
+                        throw new IllegalStateException("method too large for the JVM");
+                    bytes[jump[1]] = (byte) (offset >> 8);
+                    bytes[jump[1] + 1] = (byte) offset;
+                }
+            }
+        }
+
+        private void stack(int change) {
+            stack += change;
+            if (stack > maxStack)
+                maxStack = stack;
+        }
+
+        private void write(int value) {
+            if (length == bytes.length)
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            bytes[length++] = (byte) value;
+        }
+
+        private void writeShort(int value) {
+            write(value >> 8);
+            write(value);
+        }
+    }
+}
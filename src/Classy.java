@@ -1,44 +1,66 @@
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 public class Classy {
     private String name;
-    private Map<String, GlobalVarExpression> fields = new HashMap();
-    private Map<String, Method> methods = new HashMap<>();
+    private final int symbol;
+    private final String llvmType; //computed once, it is part of nearly every instruction working on a field
+    private List<GlobalVarExpression> fields = new ArrayList<>(); //keeps declaration order of the struct members
+    private SymbolTable<GlobalVarExpression> fieldsBySymbol = new SymbolTable<>();
+    private SymbolTable<Integer> fieldIndexes = new SymbolTable<>();
+    private SymbolTable<Method> methods = new SymbolTable<>();
     private List<GeneratorMethod> generatorMethods = new ArrayList<>();
 
-    public Classy(String name) {
+    public Classy(String name, int symbol) {
         this.name = name;
+        this.symbol = symbol;
+        this.llvmType = "%classy." + name;
     }
 
     public String getName() {
         return name;
     }
 
+    public int getSymbol() {
+        return symbol;
+    }
+
+    public String getLLVMType() {
+        return llvmType;
+    }
+
     public void addField(GlobalVarExpression expression) {
-        fields.put(expression.getName(), expression);
+        fieldIndexes.put(expression.getSymbol(), fields.size());
+        fieldsBySymbol.put(expression.getSymbol(), expression);
+        fields.add(expression);
+    }
+
+    public List<GlobalVarExpression> getFields() {
+        return fields;
+    }
+
+    public int getFieldIndex(int symbol) {
+        return fieldIndexes.get(symbol);
     }
 
-    public GlobalVarExpression getField(String name) {
-        return fields.get(name);
+    public GlobalVarExpression getField(int symbol) {
+        return fieldsBySymbol.get(symbol);
     }
 
-    public boolean hasField(String name) {
-        return fields.containsKey(name);
+    public boolean hasField(int symbol) {
+        return fieldsBySymbol.contains(symbol);
     }
 
-    public void addMethod(String name, Method method) {
-        methods.put(name, method);
+    public void addMethod(int symbol, Method method) {
+        methods.put(symbol, method);
     }
 
-    public Method getMethod(String name) {
-        return methods.get(name);
+    public Method getMethod(int symbol) {
+        return methods.get(symbol);
     }
 
-    public boolean hasMethod(String name) {
-        return methods.containsKey(name);
+    public boolean hasMethod(int symbol) {
+        return methods.contains(symbol);
     }
 
     public List<GeneratorMethod> getGeneratorMethods() {
@@ -0,0 +1,113 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+//IR fragments of already generated classies kept on disk, keyed by a hash of the classy source and of the classies it references
+public class ClassyCache {
+    private static final String VERSION = "mk-ir-6"; //change whenever the generated IR changes
+    private static final String HEADER_MARKER = "; mkcache header\n";
+
+    private final Path directory;
+    private final Map<String, String> sources = new HashMap<>();
+
+    public ClassyCache(Path directory) {
+        this.directory = directory;
+    }
+
+    public void addSource(String classyName, String source) {
+        sources.put(classyName, source);
+    }
+
+    //a classy's IR also depends on the fields and methods of the classies it creates instances of or calls, and on how much of them is inlined
+    public String key(Classy classy, int inlineLimit) {
+        SortedSet<String> referenced = new TreeSet<>();
+        Iterator<GeneratorMethod> iterator = classy.getGeneratorMethods().iterator();
+        GeneratorMethod generatorMethod;
+        while (iterator.hasNext()) {
+            generatorMethod = iterator.next();
+            switch (generatorMethod.getType()) {
+                case DECLARE_INSTANCE:
+                    referenced.add(((GeneratorMethod.DeclareInstance) generatorMethod).getInstance().getClassy().getName());
+                    break;
+                case CALL_FUNCTION:
+                    referenced.add(((GeneratorMethod.CallFunction) generatorMethod).getInstance().getClassy().getName());
+                    break;
+            }
+        }
+        referenced.remove(classy.getName());
+
+        MessageDigest digest = sha256();
+        update(digest, VERSION);
+        update(digest, Integer.toString(inlineLimit));
+        update(digest, classy.getName());
+        update(digest, sources.get(classy.getName()));
+        Iterator<String> names = referenced.iterator();
+        String name;
+        while (names.hasNext()) {
+            name = names.next();
+            update(digest, name);
+            update(digest, sources.get(name));
+        }
+
+        StringBuilder key = new StringBuilder();
+        byte[] hash = digest.digest();
+        for (int i = 0; i < hash.length; i++) {
+            key.append(String.format("%02x", hash[i]));
+        }
+        return key.toString();
+    }
+
+    //returns null when the fragment is not cached
+    public IRFragment load(String key) {
+        String text;
+        try {
+            text = new String(Files.readAllBytes(file(key)), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return null;
+        }
+
+        int marker = text.indexOf(HEADER_MARKER);
+        if (marker < 0)
+            return null;
+        return new IRFragment(text.substring(0, marker), text.substring(marker + HEADER_MARKER.length()));
+    }
+
+    public void store(String key, IRFragment fragment) {
+        String text = fragment.getBody() + HEADER_MARKER + fragment.getHeader();
+        try {
+            Files.createDirectories(directory);
+            //written next to the final file and moved, so a reader never sees half of a fragment
+            Path temporary = Files.createTempFile(directory, key, ".tmp");
+            Files.write(temporary, text.getBytes(StandardCharsets.UTF_8));
+            Files.move(temporary, file(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            //the cache is only an optimization, the IR was already written
+        }
+    }
+
+    private Path file(String key) {
+        return directory.resolve(key + ".ll");
+    }
+
+    private static void update(MessageDigest digest, String text) {
+        byte[] bytes = (text == null ? "" : text).getBytes(StandardCharsets.UTF_8);
+        digest.update((byte) (bytes.length >>> 24));
+        digest.update((byte) (bytes.length >>> 16));
+        digest.update((byte) (bytes.length >>> 8));
+        digest.update((byte) bytes.length);
+        digest.update(bytes);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
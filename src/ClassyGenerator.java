@@ -0,0 +1,106 @@
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+//generates the IR of one classy, every method on its own fork-join task, and joins the parts in declaration order
+public class ClassyGenerator extends RecursiveTask<IRFragment> {
+    private static final long serialVersionUID = 1L;
+    private final LLVMActions actions;
+    private final Classy classy;
+    private final int line;
+    private final ClassyCache cache; //null when every classy is generated
+    private final String key;
+    private final CompilationStats stats; //null unless --stats
+
+    public ClassyGenerator(LLVMActions actions, Classy classy, int line, ClassyCache cache, String key, CompilationStats stats) {
+        this.actions = actions;
+        this.classy = classy;
+        this.line = line;
+        this.cache = cache;
+        this.key = key;
+        this.stats = stats;
+    }
+
+    @Override
+    protected IRFragment compute() {
+        if (cache != null) {
+            IRFragment fragment = cache.load(key);
+            if (fragment != null) {
+                if (stats != null)
+                    stats.addClassy(classy, true);
+                return fragment;
+            }
+        }
+        if (stats != null)
+            stats.addClassy(classy, false);
+
+        long foldStart = System.nanoTime();
+        long foldAllocated = stats == null ? -1 : CompilationStats.allocatedBytes();
+        List<GeneratorMethod> generatorMethods = new LoopInvariantMotion().hoist(new ConstantFolder().fold(new Inliner(actions.getInlineLimit()).inline(classy.getGeneratorMethods())));
+        if (stats != null)
+            stats.addPhase("fold", System.nanoTime() - foldStart, CompilationStats.allocatedSince(foldAllocated));
+
+        //a part is either one method or the classy level GeneratorMethods between two methods
+        List<ForkJoinTask<IRFragment>> parts = new ArrayList<>();
+        int start = 0;
+        int end;
+        for (int i = 0; i < generatorMethods.size(); i++) {
+            if (generatorMethods.get(i).getType() != GeneratorMethodType.DECLARE_FUNCTION)
+                continue;
+            parts.add(fork(generatorMethods.subList(start, i), start == 0));
+
+            end = i;
+            while (end < generatorMethods.size() - 1 && generatorMethods.get(end).getType() != GeneratorMethodType.END_FUNCTION_DEFINITION) {
+                end++;
+            }
+            parts.add(fork(generatorMethods.subList(i, end + 1), false));
+            start = end + 1;
+            i = end;
+        }
+        parts.add(fork(generatorMethods.subList(start, generatorMethods.size()), start == 0));
+
+        StringBuilder body = new StringBuilder();
+        StringBuilder header = new StringBuilder();
+        List<FunctionStats> functionStats = new ArrayList<>();
+        IRFragment part;
+        for (int i = 0; i < parts.size(); i++) {
+            part = parts.get(i).join();
+            body.append(part.getBody());
+            header.append(part.getHeader());
+            functionStats.addAll(part.getFunctionStats());
+        }
+
+        IRFragment fragment = new IRFragment(body.toString(), header.toString(), functionStats);
+        if (cache != null)
+            cache.store(key, fragment);
+        return fragment;
+    }
+
+    private ForkJoinTask<IRFragment> fork(List<GeneratorMethod> generatorMethods, boolean declareClassy) {
+        return ForkJoinTask.adapt(() -> generate(generatorMethods, declareClassy)).fork();
+    }
+
+    //every part has its own generator and builder, nothing is shared with the other parts
+    private IRFragment generate(List<GeneratorMethod> generatorMethods, boolean declareClassy) {
+        long start = System.nanoTime();
+        long allocated = stats == null ? -1 : CompilationStats.allocatedBytes();
+        StringWriter body = new StringWriter();
+        LLVMBuilder llvm = new LLVMBuilder(body);
+        if (stats != null)
+            llvm.collectStats();
+        LLVMGenerator generator = new LLVMGenerator(actions, classy, line, llvm);
+
+        if (declareClassy)
+            generator.declareClassy();
+        for (int i = 0; i < generatorMethods.size(); i++) {
+            generatorMethods.get(i).generate(generator);
+        }
+        llvm.flush();
+        IRFragment fragment = new IRFragment(body.toString(), llvm.getHeader(), llvm.getFunctionStats());
+        if (stats != null)
+            stats.addPhase("generate", System.nanoTime() - start, CompilationStats.allocatedSince(allocated));
+        return fragment;
+    }
+}
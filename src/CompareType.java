@@ -1,8 +1,21 @@
 public enum CompareType {
-    EQ, SLT, SLE, SGE, SGT, NE;
+    EQ("eq", "oeq"), SLT("slt", "olt"), SLE("sle", "ole"), SGE("sge", "oge"), SGT("sgt", "ogt"), NE("ne", "une");
+
+    private final String integerCondition;
+    private final String realCondition;
+
+    CompareType(String integerCondition, String realCondition) {
+        this.integerCondition = integerCondition;
+        this.realCondition = realCondition;
+    }
+
+    //condition of icmp, or of fcmp when real
+    public String toLLVM(boolean real) {
+        return real ? realCondition : integerCondition;
+    }
 
     @Override
     public String toString() {
-        return this.name().toLowerCase();
+        return integerCondition;
     }
 }
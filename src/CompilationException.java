@@ -0,0 +1,33 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+//thrown with the semantic errors of a file, so one failing file does not stop other compilations in the same JVM
+public class CompilationException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+    private final List<Diagnostic> diagnostics;
+
+    public CompilationException(int line, String message, String fileName) {
+        this(Collections.singletonList(new Diagnostic(DiagnosticType.SEMANTIC, line, 0, message)), fileName);
+    }
+
+    public CompilationException(List<Diagnostic> diagnostics, String fileName) {
+        super(format(diagnostics, fileName));
+        this.diagnostics = new ArrayList<>(diagnostics);
+    }
+
+    public List<Diagnostic> getDiagnostics() {
+        return diagnostics;
+    }
+
+    //one line per error
+    private static String format(List<Diagnostic> diagnostics, String fileName) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < diagnostics.size(); i++) {
+            if (i > 0)
+                text.append("\n");
+            text.append(diagnostics.get(i).format(fileName));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,23 @@
+import java.util.List;
+
+public class CompilationResult {
+    private final String ir; //null when the compilation failed
+    private final List<Diagnostic> diagnostics;
+
+    public CompilationResult(String ir, List<Diagnostic> diagnostics) {
+        this.ir = ir;
+        this.diagnostics = diagnostics;
+    }
+
+    public String getIR() {
+        return ir;
+    }
+
+    public List<Diagnostic> getDiagnostics() {
+        return diagnostics;
+    }
+
+    public boolean isSuccessful() {
+        return ir != null;
+    }
+}
@@ -0,0 +1,155 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+
+//time and allocation of every compiler phase and the size of the generated IR, printed by --stats
+//phases running on the generator threads add up their parts, so they can take longer than the whole compilation
+public class CompilationStats {
+    private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    private final Map<String, long[]> phases = new LinkedHashMap<>(); //name to nanoseconds and allocated bytes, in the order first seen
+    private final Map<String, int[]> classies = new LinkedHashMap<>(); //name to GeneratorMethods, instances and 1 when taken from the cache
+    private final List<FunctionStats> functions = new ArrayList<>();
+
+    public synchronized void addPhase(String name, long nanos, long bytes) {
+        long[] phase = phases.get(name);
+        if (phase == null) {
+            phase = new long[2];
+            phases.put(name, phase);
+        }
+        phase[0] += nanos;
+        phase[1] += bytes;
+    }
+
+    public synchronized long getNanos(String name) {
+        return phases.containsKey(name) ? phases.get(name)[0] : 0;
+    }
+
+    public synchronized long getBytes(String name) {
+        return phases.containsKey(name) ? phases.get(name)[1] : 0;
+    }
+
+    public synchronized void addClassy(Classy classy, boolean cached) {
+        int instances = 0;
+        Iterator<GeneratorMethod> iterator = classy.getGeneratorMethods().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getType() == GeneratorMethodType.DECLARE_INSTANCE)
+                instances++;
+        }
+        classies.put(classy.getName(), new int[]{classy.getGeneratorMethods().size(), instances, cached ? 1 : 0});
+    }
+
+    public synchronized void addFunctions(List<FunctionStats> functionStats) {
+        functions.addAll(functionStats);
+    }
+
+    //bytes allocated by the current thread so far, -1 when the JVM does not count them
+    public static long allocatedBytes() {
+        if (!(threads instanceof com.sun.management.ThreadMXBean))
+            return -1;
+        com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) threads;
+        if (!counter.isThreadAllocatedMemorySupported() || !counter.isThreadAllocatedMemoryEnabled())
+            return -1;
+        return counter.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    //bytes allocated by the current thread since allocatedBytes() returned start
+    public static long allocatedSince(long start) {
+        return start < 0 ? -1 : allocatedBytes() - start;
+    }
+
+    public synchronized String format() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("%-12s %12s %14s%n", "phase", "time ms", "allocated KB"));
+        Iterator<Map.Entry<String, long[]>> phaseIterator = phases.entrySet().iterator();
+        Map.Entry<String, long[]> phase;
+        while (phaseIterator.hasNext()) {
+            phase = phaseIterator.next();
+            text.append(String.format("%-12s %12.3f %14s%n", phase.getKey(), phase.getValue()[0] / 1e6, phase.getValue()[1] < 0 ? "n/a" : String.valueOf(phase.getValue()[1] / 1024)));
+        }
+
+        int[] totals = totals();
+        text.append(String.format("%nclassies %d (%d from cache), generator methods %d, instances %d%n", classies.size(), totals[2], totals[0], totals[1]));
+        text.append(String.format("functions %d, instructions %d, allocas %d, loads %d, stores %d%n", functions.size(), totals[3], totals[4], totals[5], totals[6]));
+
+        if (!classies.isEmpty()) {
+            text.append(String.format("%n%-32s %17s %9s %6s%n", "classy", "generator methods", "instances", "cached"));
+            Iterator<Map.Entry<String, int[]>> classyIterator = classies.entrySet().iterator();
+            Map.Entry<String, int[]> classy;
+            while (classyIterator.hasNext()) {
+                classy = classyIterator.next();
+                text.append(String.format("%-32s %17d %9d %6s%n", classy.getKey(), classy.getValue()[0], classy.getValue()[1], classy.getValue()[2] == 1 ? "yes" : "no"));
+            }
+        }
+
+        if (!functions.isEmpty()) {
+            text.append(String.format("%n%-32s %12s %8s %8s %8s%n", "function", "instructions", "allocas", "loads", "stores"));
+            Iterator<FunctionStats> functionIterator = functions.iterator();
+            FunctionStats function;
+            while (functionIterator.hasNext()) {
+                function = functionIterator.next();
+                text.append(String.format("%-32s %12d %8d %8d %8d%n", function.getName(), function.getInstructions(), function.getAllocas(), function.getLoads(), function.getStores()));
+            }
+        }
+        return text.toString();
+    }
+
+    public synchronized String toJson() {
+        StringBuilder json = new StringBuilder("{\n  \"phases\": {");
+        Iterator<Map.Entry<String, long[]>> phaseIterator = phases.entrySet().iterator();
+        Map.Entry<String, long[]> phase;
+        while (phaseIterator.hasNext()) {
+            phase = phaseIterator.next();
+            json.append("\n    \"").append(phase.getKey()).append("\": {\"nanos\": ").append(phase.getValue()[0]).append(", \"allocatedBytes\": ").append(phase.getValue()[1]).append("}");
+            if (phaseIterator.hasNext())
+                json.append(",");
+        }
+        json.append("\n  },\n  \"classies\": [");
+
+        Iterator<Map.Entry<String, int[]>> classyIterator = classies.entrySet().iterator();
+        Map.Entry<String, int[]> classy;
+        while (classyIterator.hasNext()) {
+            classy = classyIterator.next();
+            json.append("\n    {\"name\": \"").append(classy.getKey()).append("\", \"generatorMethods\": ").append(classy.getValue()[0])
+                    .append(", \"instances\": ").append(classy.getValue()[1]).append(", \"cached\": ").append(classy.getValue()[2] == 1).append("}");
+            if (classyIterator.hasNext())
+                json.append(",");
+        }
+        json.append("\n  ],\n  \"functions\": [");
+
+        Iterator<FunctionStats> functionIterator = functions.iterator();
+        FunctionStats function;
+        while (functionIterator.hasNext()) {
+            function = functionIterator.next();
+            json.append("\n    {\"name\": \"").append(function.getName()).append("\", \"instructions\": ").append(function.getInstructions())
+                    .append(", \"allocas\": ").append(function.getAllocas()).append(", \"loads\": ").append(function.getLoads()).append(", \"stores\": ").append(function.getStores()).append("}");
+            if (functionIterator.hasNext())
+                json.append(",");
+        }
+        json.append("\n  ]\n}\n");
+        return json.toString();
+    }
+
+    //GeneratorMethods, instances, cached classies, instructions, allocas, loads, stores
+    private int[] totals() {
+        int[] totals = new int[7];
+        Iterator<int[]> classyIterator = classies.values().iterator();
+        int[] classy;
+        while (classyIterator.hasNext()) {
+            classy = classyIterator.next();
+            totals[0] += classy[0];
+            totals[1] += classy[1];
+            totals[2] += classy[2];
+        }
+        Iterator<FunctionStats> functionIterator = functions.iterator();
+        FunctionStats function;
+        while (functionIterator.hasNext()) {
+            function = functionIterator.next();
+            totals[3] += function.getInstructions();
+            totals[4] += function.getAllocas();
+            totals[5] += function.getLoads();
+            totals[6] += function.getStores();
+        }
+        return totals;
+    }
+}
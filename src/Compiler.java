@@ -0,0 +1,36 @@
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+
+import java.io.StringWriter;
+import java.util.Collections;
+
+//compiles MK source held in memory, every call has its own parser, listener and generators so it can be called from many threads
+public class Compiler {
+    public static CompilationResult compile(CharSequence source, String name) {
+        return compile(source, name, LLVMActions.DEFAULT_ERROR_LIMIT);
+    }
+
+    //errorLimit is the number of semantic errors after which the compilation stops looking for more
+    public static CompilationResult compile(CharSequence source, String name, int errorLimit) {
+        return compile(source, name, errorLimit, Inliner.DEFAULT_LIMIT);
+    }
+
+    //inlineLimit is the size of the largest method inlined at its calls, 0 inlines nothing
+    public static CompilationResult compile(CharSequence source, String name, int errorLimit, int inlineLimit) {
+        SyntaxErrorListener errorListener = new SyntaxErrorListener();
+        ParseTree tree = SourceParser.parse(CharStreams.fromString(source.toString(), name), errorListener);
+        if (errorListener.hasErrors())
+            return new CompilationResult(null, errorListener.getErrors());
+
+        StringWriter writer = new StringWriter();
+        LLVMActions actions = new LLVMActions(name, writer, null, errorLimit);
+        actions.setInlineLimit(inlineLimit);
+        try {
+            new ParseTreeWalker().walk(actions, tree);
+        } catch (CompilationException e) {
+            return new CompilationResult(null, e.getDiagnostics());
+        }
+        return new CompilationResult(writer.toString(), Collections.emptyList());
+    }
+}
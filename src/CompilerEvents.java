@@ -0,0 +1,61 @@
+import jdk.jfr.*;
+
+//Java Flight Recorder events of the compiler phases, start a recording with -XX:StartFlightRecording
+//they cost next to nothing while no recording is running
+public class CompilerEvents {
+    @Name("mk.Parse")
+    @Label("Parse")
+    @Category({"MK Compiler"})
+    @Description("Lexing and parsing of one source file")
+    public static final class Parse extends Event {
+        @Label("Source")
+        public String source;
+    }
+
+    @Name("mk.Walk")
+    @Label("Walk")
+    @Category({"MK Compiler"})
+    @Description("Walk of the parse tree, including the wait for classies still being generated")
+    public static final class Walk extends Event {
+        @Label("File")
+        public String file;
+
+        @Label("Classies")
+        public int classies;
+    }
+
+    @Name("mk.DeclareInstance")
+    @Label("Declare Instance")
+    @Category({"MK Compiler", "Generation"})
+    @Description("Generation of one instance declaration")
+    public static final class DeclareInstance extends Event {
+        @Label("Classy")
+        public String classy;
+
+        @Label("Instance")
+        public String instance;
+
+        @Label("GeneratorMethods")
+        @Description("GeneratorMethods of the classy of the instance")
+        public int generatorMethods;
+    }
+
+    @Name("mk.Function")
+    @Label("Function")
+    @Category({"MK Compiler", "Generation"})
+    @Description("Generation of one function, from its declaration to the end of its definition")
+    public static final class Function extends Event {
+        @Label("Classy")
+        public String classy;
+
+        @Label("Function")
+        public String function;
+    }
+
+    @Name("mk.GenerateOutput")
+    @Label("Generate Output")
+    @Category({"MK Compiler"})
+    @Description("Writing of the module header once every classy was written")
+    public static final class GenerateOutput extends Event {
+    }
+}
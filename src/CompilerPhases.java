@@ -0,0 +1,91 @@
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.List;
+
+//the phases of a compilation one by one, for measuring them separately
+//the types are from the ANTLR runtime or Object, so code outside the default package can call these through reflection
+public class CompilerPhases {
+    public static List<? extends Token> lex(String source) {
+        MKLexer lexer = new MKLexer(CharStreams.fromString(source));
+        lexer.removeErrorListeners();
+        return lexer.getAllTokens();
+    }
+
+    //the parser the compiler uses, SLL with the LL fallback
+    public static ParseTree parse(List<? extends Token> tokens) {
+        return SourceParser.parse(new CommonTokenStream(new ListTokenSource(tokens)), new SyntaxErrorListener());
+    }
+
+    //checks the tree and records the GeneratorMethods of its classies, returns the listener holding them
+    public static Object walk(ParseTree tree) {
+        LLVMActions actions = new LLVMActions("benchmark", new DiscardingWriter());
+        actions.setGenerate(false);
+        ParseTreeWalker.DEFAULT.walk(actions, tree);
+        return actions;
+    }
+
+    //folds and generates every classy recorded by walk(), returns the number of characters of IR
+    public static long generate(Object walked) {
+        LLVMActions actions = (LLVMActions) walked;
+        DiscardingWriter writer = new DiscardingWriter();
+        LLVMBuilder llvm = new LLVMBuilder(writer);
+
+        Iterator<Classy> iterator = actions.getClassies().iterator();
+        while (iterator.hasNext()) {
+            llvm.appendFragment(new ClassyGenerator(actions, iterator.next(), 0, null, null, null).invoke());
+        }
+        LLVMGenerator.generateOutput(llvm);
+        return writer.getLength();
+    }
+
+    //the classies recorded by walk() prepared for the interpreter, the input of run()
+    public static Object interpreter(Object walked) {
+        return new Interpreter(((LLVMActions) walked).getClassies());
+    }
+
+    //the classies recorded by walk() compiled to JVM classes and loaded, the input of run()
+    public static Object jvmProgram(Object walked) {
+        return new JvmProgram(((LLVMActions) walked).getClassies());
+    }
+
+    //runs a program from interpreter() or jvmProgram() without input and with its output discarded, returns what main() gave
+    public static int run(Object program) throws IOException {
+        if (program instanceof JvmProgram)
+            return ((JvmProgram) program).run(InputStream.nullInputStream(), OutputStream.nullOutputStream());
+        return ((Interpreter) program).run(InputStream.nullInputStream(), OutputStream.nullOutputStream());
+    }
+
+    private static class DiscardingWriter extends Writer {
+        private long length = 0;
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            this.length += length;
+        }
+
+        @Override
+        public Writer append(CharSequence text) {
+            length += text.length();
+            return this;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        public long getLength() {
+            return length;
+        }
+    }
+}
@@ -0,0 +1,298 @@
+import java.util.*;
+
+//folds literal arithmetic and constant conditions in the GeneratorMethods of a classy before they are generated
+public class ConstantFolder {
+    private final Map<Expression, Expression> replacements = new HashMap<>(); //folded calculation results and their new values
+
+    public List<GeneratorMethod> fold(List<GeneratorMethod> generatorMethods) {
+        List<GeneratorMethod> result = new ArrayList<>(generatorMethods.size());
+        boolean[] removed = new boolean[generatorMethods.size()];
+        replacements.clear();
+
+        GeneratorMethod generatorMethod;
+        for (int i = 0; i < generatorMethods.size(); i++) {
+            if (removed[i])
+                continue;
+            generatorMethod = generatorMethods.get(i);
+
+            switch (generatorMethod.getType()) {
+                case CALCULATION:
+                    if (foldCalculation((GeneratorMethod.Calculation) generatorMethod, result))
+                        continue;
+                    break;
+                case START_INSTRUCTION:
+                    GeneratorMethod.StartInstruction startInstruction = (GeneratorMethod.StartInstruction) generatorMethod;
+                    Expression left = resolve(startInstruction.getLeftExpression());
+                    Expression right = resolve(startInstruction.getRightExpression());
+                    if (isValue(left) && isValue(right)) {
+                        int end = findEndInstruction(generatorMethods, i);
+                        InstructionType instructionType = ((GeneratorMethod.EndInstruction) generatorMethods.get(end)).getInstructionType();
+                        boolean condition = compare((ValueExpression) left, startInstruction.getCompareType(), (ValueExpression) right);
+
+                        if (!condition) {
+                            removeBlock(generatorMethods, i, end, removed);
+                            if (instructionType == InstructionType.WHILE)
+                                removeLoopHead(result);
+                            continue;
+                        } else if (instructionType == InstructionType.IF) {
+                            removed[end] = true;
+                            continue;
+                        }
+                    }
+                    break;
+                case ASSIGN_VARIABLE:
+                    //an inlined method gave a value, it replaces the result of the call
+                    GeneratorMethod.AssignVariable assignVariable = (GeneratorMethod.AssignVariable) generatorMethod;
+                    if (assignVariable.getLeftExpression().getClass().equals(UnnamedVarExpression.class)) {
+                        Expression value = resolve(assignVariable.getRightExpression());
+                        if (isValue(value) || value.getClass().equals(UnnamedVarExpression.class)) {
+                            replacements.put(assignVariable.getLeftExpression(), value);
+                            continue;
+                        }
+                    }
+                    break;
+            }
+
+            result.add(substitute(generatorMethod));
+        }
+        return result;
+    }
+
+    //returns true when the calculation was folded away or replaced by a load
+    private boolean foldCalculation(GeneratorMethod.Calculation calculation, List<GeneratorMethod> generated) {
+        Expression left = resolve(calculation.getLeftExpression());
+        CalculationType calculationType = calculation.getCalculationType();
+        Expression right = resolve(calculation.getRightExpression());
+        boolean realCalculation = calculation.isRealCalculation();
+        Expression result = calculation.getResult();
+
+        if (isValue(left) && isValue(right)) {
+            Number leftValue = (Number) ((ValueExpression) left).getValue();
+            Number rightValue = (Number) ((ValueExpression) right).getValue();
+            Object value = null;
+
+            if (realCalculation) {
+                switch (calculationType) {
+                    case ADD:
+                        value = leftValue.doubleValue() + rightValue.doubleValue();
+                        break;
+                    case SUB:
+                        value = leftValue.doubleValue() - rightValue.doubleValue();
+                        break;
+                    case MUL:
+                        value = leftValue.doubleValue() * rightValue.doubleValue();
+                        break;
+                    case DIV:
+                        value = leftValue.doubleValue() / rightValue.doubleValue();
+                        break;
+                }
+            } else {
+                switch (calculationType) {
+                    case ADD:
+                        value = leftValue.intValue() + rightValue.intValue();
+                        break;
+                    case SUB:
+                        value = leftValue.intValue() - rightValue.intValue();
+                        break;
+                    case MUL:
+                        value = leftValue.intValue() * rightValue.intValue();
+                        break;
+                }
+            }
+            replacements.put(result, new ValueExpression(ObjectType.VARIABLE, result.getDataType(), value));
+            return true;
+        }
+
+        Expression simplified = simplify(left, calculationType, right, result.getDataType());
+        if (simplified == null)
+            return false;
+
+        //a variable is loaded here, a later use of the result must not see a write made after the calculation
+        if (!isValue(simplified) && !simplified.getClass().equals(UnnamedVarExpression.class)) {
+            generated.add(new GeneratorMethod.AssignVariable(result, simplified));
+            return true;
+        }
+        replacements.put(result, simplified);
+        return true;
+    }
+
+    //algebraic identities, only those that hold for every value of the other operand
+    private Expression simplify(Expression left, CalculationType calculationType, Expression right, DataType resultType) {
+        switch (calculationType) {
+            case ADD:
+                if (resultType == DataType.INT) {
+                    if (isValue(left, 0))
+                        return right;
+                    if (isValue(right, 0))
+                        return left;
+                }
+                break;
+            case SUB:
+                if (isValue(right, 0) && left.getDataType() == resultType)
+                    return left;
+                break;
+            case MUL:
+                if (isValue(left, 1) && right.getDataType() == resultType)
+                    return right;
+                if (isValue(right, 1) && left.getDataType() == resultType)
+                    return left;
+                if (resultType == DataType.INT && (isValue(left, 0) || isValue(right, 0)))
+                    return new ValueExpression(ObjectType.VARIABLE, DataType.INT, 0);
+                break;
+            case DIV:
+                if (isValue(right, 1) && left.getDataType() == resultType)
+                    return left;
+                break;
+        }
+        return null;
+    }
+
+    private boolean compare(ValueExpression left, CompareType compareType, ValueExpression right) {
+        double leftValue = ((Number) left.getValue()).doubleValue();
+        double rightValue = ((Number) right.getValue()).doubleValue();
+
+        switch (compareType) {
+            case EQ:
+                return leftValue == rightValue;
+            case SLT:
+                return leftValue < rightValue;
+            case SLE:
+                return leftValue <= rightValue;
+            case SGE:
+                return leftValue >= rightValue;
+            case SGT:
+                return leftValue > rightValue;
+            case NE:
+                return leftValue != rightValue;
+            default:
+                return false;
+        }
+    }
+
+    private int findEndInstruction(List<GeneratorMethod> generatorMethods, int start) {
+        int depth = 0;
+        for (int i = start; i < generatorMethods.size(); i++) {
+            switch (generatorMethods.get(i).getType()) {
+                case START_INSTRUCTION:
+                    depth++;
+                    break;
+                case END_INSTRUCTION:
+                    depth--;
+                    if (depth == 0)
+                        return i;
+                    break;
+            }
+        }
+        return generatorMethods.size() - 1;
+    }
+
+    //variables and instances declared in a removed block may still be used after it, so their declarations stay
+    private void removeBlock(List<GeneratorMethod> generatorMethods, int start, int end, boolean[] removed) {
+        GeneratorMethodType type;
+        for (int i = start; i <= end; i++) {
+            type = generatorMethods.get(i).getType();
+            if (type != GeneratorMethodType.DECLARE_VARIABLE && type != GeneratorMethodType.DECLARE_INSTANCE)
+                removed[i] = true;
+        }
+    }
+
+    //the head of a loop that never runs, only computations of its condition and inlined calls in it may follow it
+    private void removeLoopHead(List<GeneratorMethod> result) {
+        for (int i = result.size() - 1; i >= 0; i--) {
+            GeneratorMethodType type = result.get(i).getType();
+            if (type == GeneratorMethodType.START_LOOP) {
+                result.remove(i);
+                return;
+            }
+            if (type != GeneratorMethodType.CALCULATION && type != GeneratorMethodType.CALL_FUNCTION && type != GeneratorMethodType.ASSIGN_VARIABLE)
+                return;
+        }
+    }
+
+    private GeneratorMethod substitute(GeneratorMethod generatorMethod) {
+        switch (generatorMethod.getType()) {
+            case START_INSTRUCTION:
+                GeneratorMethod.StartInstruction startInstruction = (GeneratorMethod.StartInstruction) generatorMethod;
+                if (changes(startInstruction.getLeftExpression()) || changes(startInstruction.getRightExpression()))
+                    return new GeneratorMethod.StartInstruction(resolve(startInstruction.getLeftExpression()), startInstruction.getCompareType(), resolve(startInstruction.getRightExpression()));
+                break;
+            case CALL_FUNCTION:
+                GeneratorMethod.CallFunction callFunction = (GeneratorMethod.CallFunction) generatorMethod;
+                if (changes(callFunction.getArguments()))
+                    return new GeneratorMethod.CallFunction(callFunction.getInstance(), callFunction.getMethod(), resolve(callFunction.getArguments()), callFunction.getResult());
+                break;
+            case DO_RETURNING:
+                GeneratorMethod.DoReturning doReturning = (GeneratorMethod.DoReturning) generatorMethod;
+                if (changes(doReturning.getExpression()))
+                    return new GeneratorMethod.DoReturning(resolve(doReturning.getExpression()));
+                break;
+            case CALCULATION:
+                GeneratorMethod.Calculation calculation = (GeneratorMethod.Calculation) generatorMethod;
+                if (changes(calculation.getLeftExpression()) || changes(calculation.getRightExpression()))
+                    return new GeneratorMethod.Calculation(resolve(calculation.getLeftExpression()), calculation.getCalculationType(), resolve(calculation.getRightExpression()), calculation.isRealCalculation(), calculation.getResult());
+                break;
+            case ASSIGN_VARIABLE:
+                GeneratorMethod.AssignVariable assignVariable = (GeneratorMethod.AssignVariable) generatorMethod;
+                if (changes(assignVariable.getLeftExpression()) || changes(assignVariable.getRightExpression()))
+                    return new GeneratorMethod.AssignVariable(resolve(assignVariable.getLeftExpression()), resolve(assignVariable.getRightExpression()));
+                break;
+            case PRINT:
+                GeneratorMethod.Print print = (GeneratorMethod.Print) generatorMethod;
+                if (changes(print.getExpression()))
+                    return new GeneratorMethod.Print(resolve(print.getExpression()));
+                break;
+            case SCAN:
+                GeneratorMethod.Scan scan = (GeneratorMethod.Scan) generatorMethod;
+                if (changes(scan.getExpression()))
+                    return new GeneratorMethod.Scan(scan.getDataType(), resolve(scan.getExpression()));
+                break;
+            case DECLARE_ARRAY:
+                GeneratorMethod.DeclareArray declareArray = (GeneratorMethod.DeclareArray) generatorMethod;
+                if (changes(declareArray.getElements()))
+                    return new GeneratorMethod.DeclareArray(declareArray.getArray(), declareArray.getLength(), resolve(declareArray.getElements()));
+                break;
+        }
+        return generatorMethod;
+    }
+
+    private boolean changes(Expression expression) {
+        return resolve(expression) != expression;
+    }
+
+    private boolean changes(List<Expression> expressions) {
+        for (int i = 0; i < expressions.size(); i++) {
+            if (changes(expressions.get(i)))
+                return true;
+        }
+        return false;
+    }
+
+    private List<Expression> resolve(List<Expression> expressions) {
+        List<Expression> resolved = new ArrayList<>(expressions.size());
+        for (int i = 0; i < expressions.size(); i++) {
+            resolved.add(resolve(expressions.get(i)));
+        }
+        return resolved;
+    }
+
+    private Expression resolve(Expression expression) {
+        if (replacements.containsKey(expression))
+            return replacements.get(expression);
+
+        if (expression.getObjectType() == ObjectType.ARRAY_ELEMENT && expression.getClass().equals(GlobalVarExpression.class)) {
+            GlobalVarExpression element = (GlobalVarExpression) expression;
+            Expression index = element.getLength();
+            if (index != null && replacements.containsKey(index))
+                return new GlobalVarExpression(element, replacements.get(index), element.getInstance());
+        }
+        return expression;
+    }
+
+    private boolean isValue(Expression expression) {
+        return expression.getClass().equals(ValueExpression.class);
+    }
+
+    private boolean isValue(Expression expression, int value) {
+        return isValue(expression) && ((Number) ((ValueExpression) expression).getValue()).doubleValue() == value;
+    }
+}
@@ -0,0 +1,88 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+//one request per connection: file name, source and limits from the client, the CompilationResult back from the daemon
+public class DaemonProtocol {
+    public static final int DEFAULT_PORT = 7474;
+    private static final int MAX_TEXT_BYTES = 256 * 1024 * 1024; //of a source or IR, lengths come from another process and are checked before allocating
+    private static final int MAX_DIAGNOSTICS = 1000000;
+
+    public static void writeRequest(DataOutputStream output, String name, String source, int errorLimit, int inlineLimit) throws IOException {
+        output.writeUTF(name);
+        writeText(output, source);
+        output.writeInt(errorLimit);
+        output.writeInt(inlineLimit);
+        output.flush();
+    }
+
+    public static String readName(DataInputStream input) throws IOException {
+        return input.readUTF();
+    }
+
+    public static String readSource(DataInputStream input) throws IOException {
+        return readText(input);
+    }
+
+    public static int readErrorLimit(DataInputStream input) throws IOException {
+        return input.readInt();
+    }
+
+    public static int readInlineLimit(DataInputStream input) throws IOException {
+        return input.readInt();
+    }
+
+    public static void writeResult(DataOutputStream output, CompilationResult result) throws IOException {
+        output.writeBoolean(result.isSuccessful());
+        if (result.isSuccessful())
+            writeText(output, result.getIR());
+
+        List<Diagnostic> diagnostics = result.getDiagnostics();
+        output.writeInt(diagnostics.size());
+        Diagnostic diagnostic;
+        for (int i = 0; i < diagnostics.size(); i++) {
+            diagnostic = diagnostics.get(i);
+            output.writeUTF(diagnostic.getType().name());
+            output.writeInt(diagnostic.getLine());
+            output.writeInt(diagnostic.getColumn());
+            output.writeUTF(diagnostic.getMessage());
+        }
+        output.flush();
+    }
+
+    public static CompilationResult readResult(DataInputStream input) throws IOException {
+        String ir = null;
+        if (input.readBoolean())
+            ir = readText(input);
+
+        int count = checkLength(input.readInt(), MAX_DIAGNOSTICS);
+        List<Diagnostic> diagnostics = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            diagnostics.add(new Diagnostic(DiagnosticType.valueOf(input.readUTF()), input.readInt(), input.readInt(), input.readUTF()));
+        }
+        return new CompilationResult(ir, diagnostics);
+    }
+
+    //writeUTF is limited to 64 KB, sources and IR are not
+    private static void writeText(DataOutputStream output, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readText(DataInputStream input) throws IOException {
+        byte[] bytes = new byte[checkLength(input.readInt(), MAX_TEXT_BYTES)];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    //the connection is dropped, the process reading it goes on
+    private static int checkLength(int length, int max) throws IOException {
+        if (length < 0 || length > max)
+            throw new IOException("invalid length " + length);
+        return length;
+    }
+}
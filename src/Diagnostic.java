@@ -0,0 +1,45 @@
+//an error found while compiling, with the position it was found at
+public class Diagnostic {
+    private final DiagnosticType type;
+    private final int line;
+    private final int column;
+    private final String message;
+
+    public Diagnostic(DiagnosticType type, int line, int column, String message) {
+        this.type = type;
+        this.line = line;
+        this.column = column;
+        this.message = message;
+    }
+
+    public DiagnosticType getType() {
+        return type;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    //the text the command line tools print for this error
+    public String format(String fileName) {
+        switch (type) {
+            case SYNTAX:
+                return "Syntax error at " + this + " in " + fileName;
+            default:
+                return "Compilation error at line " + line + " - " + message + " in " + fileName;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "line " + line + ":" + column + " " + message;
+    }
+}
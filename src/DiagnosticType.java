@@ -0,0 +1,3 @@
+public enum DiagnosticType {
+    SYNTAX, SEMANTIC;
+}
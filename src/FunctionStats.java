@@ -0,0 +1,48 @@
+//what was emitted for one function, counted by LLVMBuilder while it is written
+public class FunctionStats {
+    private final String name;
+    private int instructions = 0;
+    private int allocas = 0;
+    private int loads = 0;
+    private int stores = 0;
+
+    public FunctionStats(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getInstructions() {
+        return instructions;
+    }
+
+    public int getAllocas() {
+        return allocas;
+    }
+
+    public int getLoads() {
+        return loads;
+    }
+
+    public int getStores() {
+        return stores;
+    }
+
+    public void addInstruction() {
+        instructions++;
+    }
+
+    public void addAlloca() {
+        allocas++;
+    }
+
+    public void addLoad() {
+        loads++;
+    }
+
+    public void addStore() {
+        stores++;
+    }
+}
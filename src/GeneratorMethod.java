@@ -1,23 +1,339 @@
-import java.util.Arrays;
 import java.util.List;
 
-public class GeneratorMethod {
-    private GeneratorMethodType type;
-    private List<Object> arguments;
+//one recorded generator call, every operation keeps its own typed operands
+public abstract class GeneratorMethod {
+    private final GeneratorMethodType type;
 
-    public GeneratorMethod(GeneratorMethodType type, Object ...arguments) {
+    protected GeneratorMethod(GeneratorMethodType type) {
         this.type = type;
-        if (arguments == null)
-            this.arguments = null;
-        else
-            this.arguments = Arrays.asList(arguments);
     }
 
     public GeneratorMethodType getType() {
         return type;
     }
 
-    public List<Object> getArguments() {
-        return arguments;
+    public abstract void generate(LLVMGenerator generator);
+
+    //the head of a while loop, its condition is computed again after this on every iteration
+    public static final class StartLoop extends GeneratorMethod {
+        public StartLoop() {
+            super(GeneratorMethodType.START_LOOP);
+        }
+
+        @Override
+        public void generate(LLVMGenerator generator) {
+            generator.startLoop();
+        }
+    }
+
+    public static final class StartInstruction extends GeneratorMethod {
+        private final Expression leftExpression;
+        private final CompareType compareType;
+        private final Expression rightExpression;
+
+        public StartInstruction(Expression leftExpression, CompareType compareType, Expression rightExpression) {
+            super(GeneratorMethodType.START_INSTRUCTION);
+            this.leftExpression = leftExpression;
+            this.compareType = compareType;
+            this.rightExpression = rightExpression;
+        }
+
+        public Expression getLeftExpression() {
+            return leftExpression;
+        }
+
+        public CompareType getCompareType() {
+            return compareType;
+        }
+
+        public Expression getRightExpression() {
+            return rightExpression;
+        }
+
+        @Override
+        public void generate(LLVMGenerator generator) {
+            generator.startInstruction(leftExpression, compareType, rightExpression);
+        }
+    }
+
+    public static final class EndInstruction extends GeneratorMethod {
+        private final InstructionType instructionType;
+
+        public EndInstruction(InstructionType instructionType) {
+            super(GeneratorMethodType.END_INSTRUCTION);
+            this.instructionType = instructionType;
+        }
+
+        public InstructionType getInstructionType() {
+            return instructionType;
+        }
+
+        @Override
+        public void generate(LLVMGenerator generator) {
+            generator.endInstruction(instructionType);
+        }
+    }
+
+    public static final class CallFunction extends GeneratorMethod {
+        private final Instance instance;
+        private final Method method;
+        private final List<Expression> arguments;
+        private final UnnamedVarExpression result;
+
+        public CallFunction(Instance instance, Method method, List<Expression> arguments, UnnamedVarExpression result) {
+            super(GeneratorMethodType.CALL_FUNCTION);
+            this.instance = instance;
+            this.method = method;
+            this.arguments = arguments;
+            this.result = result;
+        }
+
+        public Instance getInstance() {
+            return instance;
+        }
+
+        public Method getMethod() {
+            return method;
+        }
+
+        public List<Expression> getArguments() {
+            return arguments;
+        }
+
+        public UnnamedVarExpression getResult() {
+            return result;
+        }
+
+        @Override
+        public void generate(LLVMGenerator generator) {
+            generator.callFunction(instance, method, arguments, result);
+        }
+    }
+
+    public static final class DeclareFunction extends GeneratorMethod {
+        private final Method method;
+        private final List<NamedVarExpression> arguments;
+
+        public DeclareFunction(Method method, List<NamedVarExpression> arguments) {
+            super(GeneratorMethodType.DECLARE_FUNCTION);
+            this.method = method;
+            this.arguments = arguments;
+        }
+
+        public Method getMethod() {
+            return method;
+        }
+
+        public List<NamedVarExpression> getArguments() {
+            return arguments;
+        }
+
+        @Override
+        public void generate(LLVMGenerator generator) {
+            generator.declareFunction(method, arguments);
+        }
+    }
+
+    public static final class EndFunctionDefinition extends GeneratorMethod {
+        public EndFunctionDefinition() {
+            super(GeneratorMethodType.END_FUNCTION_DEFINITION);
+        }
+
+        @Override
+        public void generate(LLVMGenerator generator) {
+            generator.endFunctionDefinition();
+        }
+    }
+
+    public static final class DoReturning extends GeneratorMethod {
+        private final Expression expression;
+
+        public DoReturning(Expression expression) {
+            super(GeneratorMethodType.DO_RETURNING);
+            this.expression = expression;
+        }
+
+        public Expression getExpression() {
+            return expression;
+        }
+
+        @Override
+        public void generate(LLVMGenerator generator) {
+            generator.doReturning(expression);
+        }
+    }
+
+    public static final class Calculation extends GeneratorMethod {
+        private final Expression leftExpression;
+        private final CalculationType calculationType;
+        private final Expression rightExpression;
+        private final boolean realCalculation;
+        private final UnnamedVarExpression result;
+
+        public Calculation(Expression leftExpression, CalculationType calculationType, Expression rightExpression, boolean realCalculation, UnnamedVarExpression result) {
+            super(GeneratorMethodType.CALCULATION);
+            this.leftExpression = leftExpression;
+            this.calculationType = calculationType;
+            this.rightExpression = rightExpression;
+            this.realCalculation = realCalculation;
+            this.result = result;
+        }
+
+        public Expression getLeftExpression() {
+            return leftExpression;
+        }
+
+        public CalculationType getCalculationType() {
+            return calculationType;
+        }
+
+        public Expression getRightExpression() {
+            return rightExpression;
+        }
+
+        public boolean isRealCalculation() {
+            return realCalculation;
+        }
+
+        public UnnamedVarExpression getResult() {
+            return result;
+        }
+
+        @Override
+        public void generate(LLVMGenerator generator) {
+            generator.calculate(leftExpression, calculationType, rightExpression, realCalculation, result);
+        }
+    }
+
+    public static final class DeclareVariable extends GeneratorMethod {
+        private final Expression expression;
+
+        public DeclareVariable(Expression expression) {
+            super(GeneratorMethodType.DECLARE_VARIABLE);
+            this.expression = expression;
+        }
+
+        public Expression getExpression() {
+            return expression;
+        }
+
+        @Override
+        public void generate(LLVMGenerator generator) {
+            generator.declareVariable(expression);
+        }
+    }
+
+    public static final class AssignVariable extends GeneratorMethod {
+        private final Expression leftExpression;
+        private final Expression rightExpression;
+
+        public AssignVariable(Expression leftExpression, Expression rightExpression) {
+            super(GeneratorMethodType.ASSIGN_VARIABLE);
+            this.leftExpression = leftExpression;
+            this.rightExpression = rightExpression;
+        }
+
+        public Expression getLeftExpression() {
+            return leftExpression;
+        }
+
+        public Expression getRightExpression() {
+            return rightExpression;
+        }
+
+        @Override
+        public void generate(LLVMGenerator generator) {
+            generator.assignVariable(leftExpression, rightExpression);
+        }
+    }
+
+    public static final class Print extends GeneratorMethod {
+        private final Expression expression;
+
+        public Print(Expression expression) {
+            super(GeneratorMethodType.PRINT);
+            this.expression = expression;
+        }
+
+        public Expression getExpression() {
+            return expression;
+        }
+
+        @Override
+        public void generate(LLVMGenerator generator) {
+            generator.print(expression);
+        }
+    }
+
+    public static final class Scan extends GeneratorMethod {
+        private final DataType dataType;
+        private final Expression expression;
+
+        public Scan(DataType dataType, Expression expression) {
+            super(GeneratorMethodType.SCAN);
+            this.dataType = dataType;
+            this.expression = expression;
+        }
+
+        public DataType getDataType() {
+            return dataType;
+        }
+
+        public Expression getExpression() {
+            return expression;
+        }
+
+        @Override
+        public void generate(LLVMGenerator generator) {
+            generator.scan(dataType, expression);
+        }
+    }
+
+    public static final class DeclareArray extends GeneratorMethod {
+        private final GlobalVarExpression array;
+        private final int length;
+        private final List<Expression> elements;
+
+        public DeclareArray(GlobalVarExpression array, int length, List<Expression> elements) {
+            super(GeneratorMethodType.DECLARE_ARRAY);
+            this.array = array;
+            this.length = length;
+            this.elements = elements;
+        }
+
+        public GlobalVarExpression getArray() {
+            return array;
+        }
+
+        public int getLength() {
+            return length;
+        }
+
+        public List<Expression> getElements() {
+            return elements;
+        }
+
+        @Override
+        public void generate(LLVMGenerator generator) {
+            generator.declareArray(array, length, elements);
+        }
+    }
+
+    public static final class DeclareInstance extends GeneratorMethod {
+        private final Instance instance;
+
+        public DeclareInstance(Instance instance) {
+            super(GeneratorMethodType.DECLARE_INSTANCE);
+            this.instance = instance;
+        }
+
+        public Instance getInstance() {
+            return instance;
+        }
+
+        @Override
+        public void generate(LLVMGenerator generator) {
+            generator.declareInstance(instance);
+        }
     }
 }
@@ -1,3 +1,3 @@
 public enum GeneratorMethodType {
-    START_INSTRUCTION, END_INSTRUCTION, CALL_FUNCTION, DECLARE_FUNCTION, END_FUNCTION_DEFINITION, DO_RETURNING, CALCULATION, DECLARE_VARIABLE, ASSIGN_VARIABLE, PRINT, SCAN, DECLARE_ARRAY,
+    START_LOOP, START_INSTRUCTION, END_INSTRUCTION, CALL_FUNCTION, DECLARE_FUNCTION, END_FUNCTION_DEFINITION, DO_RETURNING, CALCULATION, DECLARE_VARIABLE, ASSIGN_VARIABLE, PRINT, SCAN, DECLARE_ARRAY, DECLARE_INSTANCE,
 }
@@ -1,37 +1,70 @@
+import java.util.ArrayList;
+import java.util.List;
+
 public class GlobalVarExpression implements Expression {
     private DataType dataType;
     private String name;
+    private int symbol;
     private int numberOfArguments;
     private ObjectType objectType;
     private Expression length; //it is array index when (this) is array element
     private Classy classy;
+    private List<Expression> elements = new ArrayList<>(); //initial values of an array declared outside a method body
+    private Instance instance; //null for the instance the method works on, set when the body of another instance's method was inlined
 
     //for variables
-    public GlobalVarExpression(ObjectType objectType, DataType dataType, String name, Classy classy) {
+    public GlobalVarExpression(ObjectType objectType, DataType dataType, String name, int symbol, Classy classy) {
         this.dataType = dataType;
         this.name = name;
+        this.symbol = symbol;
         this.objectType = objectType;
         this.classy = classy;
     }
 
     //for functions
-    public GlobalVarExpression(ObjectType objectType, DataType dataType, String name, int index, Classy classy) {
+    public GlobalVarExpression(ObjectType objectType, DataType dataType, String name, int symbol, int index, Classy classy) {
         this.dataType = dataType;
         this.name = name;
+        this.symbol = symbol;
         this.numberOfArguments = index; //when function it is a number of arguments
         this.objectType = objectType;
         this.classy = classy;
     }
 
     //for arrays
-    public GlobalVarExpression(ObjectType objectType, DataType dataType, String name, Expression length, Classy classy) {
+    public GlobalVarExpression(ObjectType objectType, DataType dataType, String name, int symbol, Expression length, Classy classy) {
         this.dataType = dataType;
         this.name = name;
+        this.symbol = symbol;
         this.objectType = objectType;
         this.length = length;
         this.classy = classy;
     }
 
+    //for array declarations
+    public GlobalVarExpression(ObjectType objectType, DataType dataType, String name, int symbol, int length, List<Expression> elements, Classy classy) {
+        this.dataType = dataType;
+        this.name = name;
+        this.symbol = symbol;
+        this.numberOfArguments = length; //when array it is a length of the array
+        this.objectType = objectType;
+        this.elements = elements;
+        this.classy = classy;
+    }
+
+    //the same field or array element with another index, on the given instance
+    public GlobalVarExpression(GlobalVarExpression field, Expression length, Instance instance) {
+        this.dataType = field.dataType;
+        this.name = field.name;
+        this.symbol = field.symbol;
+        this.numberOfArguments = field.numberOfArguments;
+        this.objectType = field.objectType;
+        this.length = length;
+        this.elements = field.elements;
+        this.classy = field.classy;
+        this.instance = instance;
+    }
+
     public Classy getClassy() {
         return classy;
     }
@@ -44,6 +77,10 @@ public class GlobalVarExpression implements Expression {
         return name;
     }
 
+    public int getSymbol() {
+        return symbol;
+    }
+
     public int getNumberOfArguments() {
         return numberOfArguments;
     }
@@ -53,4 +90,12 @@ public class GlobalVarExpression implements Expression {
     }
 
     public Expression getLength() { return length; }
+
+    public List<Expression> getElements() {
+        return elements;
+    }
+
+    public Instance getInstance() {
+        return instance;
+    }
 }
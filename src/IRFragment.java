@@ -0,0 +1,31 @@
+import java.util.ArrayList;
+import java.util.List;
+
+//IR written for one classy: its type and functions, and the lines it added to the header
+public class IRFragment {
+    private final String body;
+    private final String header;
+    private final List<FunctionStats> functionStats; //empty unless counted while generating, see --stats
+
+    public IRFragment(String body, String header) {
+        this(body, header, new ArrayList<>());
+    }
+
+    public IRFragment(String body, String header, List<FunctionStats> functionStats) {
+        this.body = body;
+        this.header = header;
+        this.functionStats = functionStats;
+    }
+
+    public List<FunctionStats> getFunctionStats() {
+        return functionStats;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public String getHeader() {
+        return header;
+    }
+}
@@ -0,0 +1,222 @@
+import java.util.*;
+
+//replaces calls of small methods inside method bodies with their GeneratorMethods, runs before the ConstantFolder
+//a method is inlined when its body only calculates, writes fields and gives a value at its end, so getters and setters cost a field load or store
+//the fields it uses belong to the instance it was called on, its parameters become the arguments of the call
+public class Inliner {
+    public static final int DEFAULT_LIMIT = 4; //GeneratorMethods in the body of a method that is still inlined
+
+    private final int limit;
+    private final Map<Method, Body> bodies = new IdentityHashMap<>(); //null for methods that are not inlined
+
+    public Inliner(int limit) {
+        this.limit = limit;
+    }
+
+    //0 or less inlines nothing
+    public List<GeneratorMethod> inline(List<GeneratorMethod> generatorMethods) {
+        if (limit <= 0)
+            return generatorMethods;
+
+        List<GeneratorMethod> result = new ArrayList<>(generatorMethods.size());
+        boolean inFunction = false; //calls outside a method body, like initialize() of a classy level instance, stay
+        GeneratorMethod generatorMethod;
+        for (int i = 0; i < generatorMethods.size(); i++) {
+            generatorMethod = generatorMethods.get(i);
+            switch (generatorMethod.getType()) {
+                case DECLARE_FUNCTION:
+                    inFunction = true;
+                    break;
+                case END_FUNCTION_DEFINITION:
+                    inFunction = false;
+                    break;
+                case CALL_FUNCTION:
+                    if (inFunction && inline((GeneratorMethod.CallFunction) generatorMethod, result))
+                        continue;
+                    break;
+            }
+            result.add(generatorMethod);
+        }
+        return result;
+    }
+
+    //returns false when the call stays
+    private boolean inline(GeneratorMethod.CallFunction callFunction, List<GeneratorMethod> result) {
+        Body body = body(callFunction.getInstance().getClassy(), callFunction.getMethod());
+        if (body == null)
+            return false;
+        List<Expression> arguments = callFunction.getArguments();
+        if (arguments.size() != body.parameters.size())
+            return false;
+        for (int i = 0; i < arguments.size(); i++) {
+            if (arguments.get(i).getDataType() != body.parameters.get(i).getDataType())
+                return false;
+        }
+
+        Copy copy = new Copy(callFunction.getInstance());
+        Expression argument;
+        for (int i = 0; i < arguments.size(); i++) {
+            argument = arguments.get(i);
+            //a variable or field is read when the call is made, before the inlined body may write it
+            //through the callee instance, which can be the instance of the caller
+            if (argument.getClass().equals(GlobalVarExpression.class) || argument.getClass().equals(NamedVarExpression.class)) {
+                UnnamedVarExpression value = new UnnamedVarExpression(ObjectType.VARIABLE, argument.getDataType());
+                result.add(new GeneratorMethod.AssignVariable(value, argument));
+                argument = value;
+            }
+            copy.parameters.put(body.parameters.get(i).getSymbol(), argument);
+        }
+
+        GeneratorMethod generatorMethod;
+        for (int i = 0; i < body.generatorMethods.size(); i++) {
+            generatorMethod = body.generatorMethods.get(i);
+            switch (generatorMethod.getType()) {
+                case CALCULATION:
+                    GeneratorMethod.Calculation calculation = (GeneratorMethod.Calculation) generatorMethod;
+                    result.add(new GeneratorMethod.Calculation(copy.of(calculation.getLeftExpression()), calculation.getCalculationType(), copy.of(calculation.getRightExpression()),
+                            calculation.isRealCalculation(), (UnnamedVarExpression) copy.of(calculation.getResult())));
+                    break;
+                case ASSIGN_VARIABLE:
+                    GeneratorMethod.AssignVariable assignVariable = (GeneratorMethod.AssignVariable) generatorMethod;
+                    result.add(new GeneratorMethod.AssignVariable(copy.of(assignVariable.getLeftExpression()), copy.of(assignVariable.getRightExpression())));
+                    break;
+                case DO_RETURNING:
+                    //the ConstantFolder replaces the result with the given value or value of a calculation
+                    result.add(new GeneratorMethod.AssignVariable(callFunction.getResult(), copy.of(((GeneratorMethod.DoReturning) generatorMethod).getExpression())));
+                    break;
+            }
+        }
+        return true;
+    }
+
+    private Body body(Classy classy, Method method) {
+        if (bodies.containsKey(method))
+            return bodies.get(method);
+        Body body = find(classy, method);
+        bodies.put(method, body);
+        return body;
+    }
+
+    //the callee is complete, its classy was walked before any instance of it could be called
+    private Body find(Classy classy, Method method) {
+        List<GeneratorMethod> generatorMethods = classy.getGeneratorMethods();
+        for (int i = 0; i < generatorMethods.size(); i++) {
+            if (generatorMethods.get(i).getType() != GeneratorMethodType.DECLARE_FUNCTION)
+                continue;
+            GeneratorMethod.DeclareFunction declareFunction = (GeneratorMethod.DeclareFunction) generatorMethods.get(i);
+            if (declareFunction.getMethod() != method)
+                continue;
+
+            int end = i + 1;
+            while (end < generatorMethods.size() && generatorMethods.get(end).getType() != GeneratorMethodType.END_FUNCTION_DEFINITION) {
+                end++;
+            }
+            if (end == generatorMethods.size() || end - i - 1 > limit)
+                return null;
+            Body body = new Body(declareFunction.getArguments(), generatorMethods.subList(i + 1, end));
+            return isInlinable(body, method) ? body : null;
+        }
+        return null;
+    }
+
+    //no calls, so an inlined method never inlines itself, no locals, no branches, one give at the end
+    private boolean isInlinable(Body body, Method method) {
+        if (method.getDataType() == DataType.CHAR || body.generatorMethods.isEmpty())
+            return false;
+        Set<Integer> parameters = new HashSet<>();
+        for (int i = 0; i < body.parameters.size(); i++) {
+            if (body.parameters.get(i).getDataType() == DataType.CHAR)
+                return false;
+            parameters.add(body.parameters.get(i).getSymbol());
+        }
+
+        GeneratorMethod generatorMethod;
+        int last = body.generatorMethods.size() - 1;
+        for (int i = 0; i <= last; i++) {
+            generatorMethod = body.generatorMethods.get(i);
+            switch (generatorMethod.getType()) {
+                case CALCULATION:
+                    GeneratorMethod.Calculation calculation = (GeneratorMethod.Calculation) generatorMethod;
+                    if (!isInlinable(calculation.getLeftExpression(), parameters) || !isInlinable(calculation.getRightExpression(), parameters))
+                        return false;
+                    break;
+                case ASSIGN_VARIABLE:
+                    GeneratorMethod.AssignVariable assignVariable = (GeneratorMethod.AssignVariable) generatorMethod;
+                    if (!assignVariable.getLeftExpression().getClass().equals(GlobalVarExpression.class))
+                        return false;
+                    if (!isInlinable(assignVariable.getLeftExpression(), parameters) || !isInlinable(assignVariable.getRightExpression(), parameters))
+                        return false;
+                    break;
+                case DO_RETURNING:
+                    Expression returned = ((GeneratorMethod.DoReturning) generatorMethod).getExpression();
+                    if (i != last || returned.getDataType() != method.getDataType() || !isInlinable(returned, parameters))
+                        return false;
+                    break;
+                default:
+                    return false;
+            }
+        }
+        return body.generatorMethods.get(last).getType() == GeneratorMethodType.DO_RETURNING;
+    }
+
+    private boolean isInlinable(Expression expression, Set<Integer> parameters) {
+        if (expression.getDataType() == DataType.CHAR)
+            return false;
+        Class<?> expressionClass = expression.getClass();
+        if (expressionClass.equals(ValueExpression.class) || expressionClass.equals(UnnamedVarExpression.class))
+            return true;
+        if (expressionClass.equals(NamedVarExpression.class))
+            return parameters.contains(((NamedVarExpression) expression).getSymbol());
+        if (expressionClass.equals(GlobalVarExpression.class)) {
+            GlobalVarExpression field = (GlobalVarExpression) expression;
+            if (field.getInstance() != null)
+                return false;
+            if (field.getObjectType() == ObjectType.VARIABLE)
+                return true;
+            if (field.getObjectType() == ObjectType.ARRAY_ELEMENT)
+                return field.getLength() == null || isInlinable(field.getLength(), parameters);
+        }
+        return false;
+    }
+
+    private static final class Body {
+        private final List<NamedVarExpression> parameters;
+        private final List<GeneratorMethod> generatorMethods; //between the declaration and the end of the method
+
+        private Body(List<NamedVarExpression> parameters, List<GeneratorMethod> generatorMethods) {
+            this.parameters = parameters;
+            this.generatorMethods = generatorMethods;
+        }
+    }
+
+    //the expressions of one inlined copy of a body
+    private static final class Copy {
+        private final Instance instance;
+        private final Map<Integer, Expression> parameters = new HashMap<>(); //arguments by symbol
+        private final Map<Expression, UnnamedVarExpression> values = new IdentityHashMap<>();
+
+        private Copy(Instance instance) {
+            this.instance = instance;
+        }
+
+        //every copy gets values of its own, the generator of the callee sets the indexes of the original ones
+        private Expression of(Expression expression) {
+            Class<?> expressionClass = expression.getClass();
+            if (expressionClass.equals(UnnamedVarExpression.class)) {
+                UnnamedVarExpression value = values.get(expression);
+                if (value == null) {
+                    value = new UnnamedVarExpression(expression.getObjectType(), expression.getDataType());
+                    values.put(expression, value);
+                }
+                return value;
+            }
+            if (expressionClass.equals(NamedVarExpression.class))
+                return parameters.get(((NamedVarExpression) expression).getSymbol());
+            if (expressionClass.equals(GlobalVarExpression.class)) {
+                GlobalVarExpression field = (GlobalVarExpression) expression;
+                return new GlobalVarExpression(field, field.getLength() == null ? null : of(field.getLength()), instance);
+            }
+            return expression;
+        }
+    }
+}
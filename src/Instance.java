@@ -1,16 +1,22 @@
 public class Instance {
     private String name;
     private Classy classy;
+    private final String llvmName;
 
     public Instance(String name, Classy classy) {
         this.name = name;
         this.classy = classy;
+        this.llvmName = "@inst_" + name;
     }
 
     public String getName() {
         return name;
     }
 
+    public String getLLVMName() {
+        return llvmName;
+    }
+
     public Classy getClassy() {
         return classy;
     }
@@ -0,0 +1,818 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.*;
+import java.util.function.UnaryOperator;
+
+//runs a checked program straight from the GeneratorMethods of its classies, without LLVM, see --run
+//every method is prepared once: its locals and values get slots in an int and a double frame, fields get indexes into the storage of their instance
+public class Interpreter {
+    private final Map<Method, Function> functions = new IdentityHashMap<>();
+    private final Map<Instance, InstanceState> instances = new IdentityHashMap<>();
+    private final Map<Classy, Layout> layouts = new IdentityHashMap<>();
+    private Function main = null;
+    private Classy mainClassy = null;
+    private ProgramIO io;
+
+    //the same folded GeneratorMethods the generator gets, so a run behaves like the compiled program
+    public Interpreter(List<Classy> classies) {
+        this(classies, Inliner.DEFAULT_LIMIT);
+    }
+
+    public Interpreter(List<Classy> classies, int inlineLimit) {
+        this(classies, generatorMethods -> new LoopInvariantMotion().hoist(new ConstantFolder().fold(new Inliner(inlineLimit).inline(generatorMethods))));
+    }
+
+    //passes are what runs on the GeneratorMethods of every classy before they are prepared, tests run programs with and without each of them
+    public Interpreter(List<Classy> classies, UnaryOperator<List<GeneratorMethod>> passes) {
+        Iterator<Classy> iterator = classies.iterator();
+        while (iterator.hasNext()) {
+            prepare(iterator.next(), passes);
+        }
+    }
+
+    //returns what main() gave, like the exit status of the compiled program
+    public int run(InputStream in, OutputStream out) throws IOException {
+        if (main == null)
+            throw new IllegalStateException("classy Main with a main() method is required to run a program");
+        io = new ProgramIO(in, out);
+        Frame frame = new Frame(main, new InstanceState(layout(mainClassy)));
+        try {
+            execute(main, frame);
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IllegalStateException("array index out of bounds: " + e.getMessage());
+        } catch (StackOverflowError e) {
+            throw new IllegalStateException("methods called too deep");
+        } finally {
+            io.flush();
+        }
+        return frame.intResult;
+    }
+
+    private static void execute(Function function, Frame frame) {
+        Step[] steps = function.steps;
+        int next = 0;
+        while (next >= 0 && next < steps.length) {
+            next = steps[next].execute(frame, next + 1);
+        }
+    }
+
+    //preparing
+
+    private void prepare(Classy classy, UnaryOperator<List<GeneratorMethod>> passes) {
+        List<GeneratorMethod> generatorMethods = passes.apply(classy.getGeneratorMethods());
+        //only methods run, the classy level GeneratorMethods declare fields and instances
+        for (int i = 0; i < generatorMethods.size(); i++) {
+            if (generatorMethods.get(i).getType() != GeneratorMethodType.DECLARE_FUNCTION)
+                continue;
+            int end = i;
+            while (end < generatorMethods.size() - 1 && generatorMethods.get(end).getType() != GeneratorMethodType.END_FUNCTION_DEFINITION) {
+                end++;
+            }
+            Function function = prepare(classy, generatorMethods.subList(i, end + 1));
+            if ("Main".equals(classy.getName()) && "main".equals(function.method.getName())) {
+                main = function;
+                mainClassy = classy;
+            }
+            i = end;
+        }
+    }
+
+    private Function prepare(Classy classy, List<GeneratorMethod> generatorMethods) {
+        GeneratorMethod.DeclareFunction declareFunction = (GeneratorMethod.DeclareFunction) generatorMethods.get(0);
+        Function function = function(declareFunction.getMethod());
+        Scope scope = new Scope(layout(classy));
+        List<Step> steps = new ArrayList<>();
+        Stack<Branch> branches = new Stack<>();
+        Stack<Integer> loops = new Stack<>(); //the first step of every open while
+
+        List<NamedVarExpression> arguments = declareFunction.getArguments();
+        function.parameterSlots = new int[arguments.size()];
+        for (int i = 0; i < arguments.size(); i++) {
+            function.parameterSlots[i] = scope.local(arguments.get(i)).slot;
+        }
+
+        GeneratorMethod generatorMethod;
+        for (int i = 1; i < generatorMethods.size(); i++) {
+            generatorMethod = generatorMethods.get(i);
+            switch (generatorMethod.getType()) {
+                case START_LOOP:
+                    loops.push(steps.size());
+                    break;
+                case START_INSTRUCTION:
+                    GeneratorMethod.StartInstruction startInstruction = (GeneratorMethod.StartInstruction) generatorMethod;
+                    Branch branch = new Branch(value(startInstruction.getLeftExpression(), scope), startInstruction.getCompareType(), value(startInstruction.getRightExpression(), scope),
+                            startInstruction.getLeftExpression().getDataType() == DataType.REAL || startInstruction.getRightExpression().getDataType() == DataType.REAL);
+                    branches.push(branch);
+                    steps.add(branch);
+                    break;
+                case END_INSTRUCTION:
+                    Branch started = branches.pop();
+                    //a loop goes back to its head and computes its condition again
+                    boolean loop = ((GeneratorMethod.EndInstruction) generatorMethod).getInstructionType() == InstructionType.WHILE;
+                    steps.add(new Jump(loop ? loops.pop() : steps.size() + 1));
+                    started.end = steps.size();
+                    break;
+                case CALL_FUNCTION:
+                    GeneratorMethod.CallFunction callFunction = (GeneratorMethod.CallFunction) generatorMethod;
+                    List<Expression> callArguments = callFunction.getArguments();
+                    Value[] values = new Value[callArguments.size()];
+                    for (int j = 0; j < values.length; j++) {
+                        values[j] = value(callArguments.get(j), scope);
+                    }
+                    steps.add(new Call(function(callFunction.getMethod()), instance(callFunction.getInstance()), values, scope.temporary(callFunction.getResult())));
+                    break;
+                case DO_RETURNING:
+                    steps.add(new Return(value(((GeneratorMethod.DoReturning) generatorMethod).getExpression(), scope), function.method.getDataType() == DataType.REAL));
+                    break;
+                case CALCULATION:
+                    GeneratorMethod.Calculation calculation = (GeneratorMethod.Calculation) generatorMethod;
+                    steps.add(new Calculate(value(calculation.getLeftExpression(), scope), calculation.getCalculationType(), value(calculation.getRightExpression(), scope),
+                            calculation.isRealCalculation(), scope.temporary(calculation.getResult())));
+                    break;
+                case DECLARE_VARIABLE:
+                    //a local gets its slot here, the assignment of 0 follows
+                    Expression variable = ((GeneratorMethod.DeclareVariable) generatorMethod).getExpression();
+                    if (variable.getClass().equals(NamedVarExpression.class))
+                        scope.local((NamedVarExpression) variable);
+                    break;
+                case ASSIGN_VARIABLE:
+                    GeneratorMethod.AssignVariable assignVariable = (GeneratorMethod.AssignVariable) generatorMethod;
+                    steps.add(new Assign((Place) value(assignVariable.getLeftExpression(), scope), value(assignVariable.getRightExpression(), scope), assignVariable.getRightExpression().getDataType() == DataType.REAL));
+                    break;
+                case PRINT:
+                    Expression printed = ((GeneratorMethod.Print) generatorMethod).getExpression();
+                    if (printed.getDataType() != DataType.CHAR)
+                        steps.add(new Print(value(printed, scope), printed.getDataType() == DataType.REAL));
+                    break;
+                case SCAN:
+                    GeneratorMethod.Scan scan = (GeneratorMethod.Scan) generatorMethod;
+                    if (scan.getDataType() != DataType.CHAR)
+                        steps.add(new Scan((Place) value(scan.getExpression(), scope), scan.getDataType() == DataType.REAL));
+                    break;
+                case DECLARE_ARRAY:
+                    GeneratorMethod.DeclareArray declareArray = (GeneratorMethod.DeclareArray) generatorMethod;
+                    GlobalVarExpression array = declareArray.getArray();
+                    List<Expression> elements = declareArray.getElements();
+                    for (int j = 0; j < elements.size(); j++) {
+                        Place element = scope.element(array, new IntConstant(j));
+                        steps.add(new Assign(element, value(elements.get(j), scope), elements.get(j).getDataType() == DataType.REAL));
+                    }
+                    break;
+                case DECLARE_INSTANCE:
+                    instance(((GeneratorMethod.DeclareInstance) generatorMethod).getInstance());
+                    break;
+            }
+        }
+
+        function.steps = steps.toArray(new Step[0]);
+        function.ints = scope.ints;
+        function.reals = scope.reals;
+        return function;
+    }
+
+    private Value value(Expression expression, Scope scope) {
+        Class<?> expressionClass = expression.getClass();
+        if (expressionClass.equals(ValueExpression.class)) {
+            Object value = ((ValueExpression) expression).getValue();
+            if (value instanceof Double)
+                return new RealConstant((Double) value);
+            return new IntConstant(((Number) value).intValue());
+        }
+        if (expressionClass.equals(UnnamedVarExpression.class))
+            return scope.temporary((UnnamedVarExpression) expression);
+        if (expressionClass.equals(NamedVarExpression.class))
+            return scope.local((NamedVarExpression) expression);
+        if (expressionClass.equals(GlobalVarExpression.class)) {
+            GlobalVarExpression field = (GlobalVarExpression) expression;
+            //a field of an inlined method belongs to the instance it was called on
+            InstanceState instance = field.getInstance() == null ? null : instance(field.getInstance());
+            Layout layout = field.getInstance() == null ? scope.layout : layout(field.getClassy());
+            if (field.getObjectType() == ObjectType.ARRAY_ELEMENT) {
+                Expression index = field.getLength();
+                return Scope.element(layout, field, index == null ? new IntConstant(field.getNumberOfArguments()) : value(index, scope), instance);
+            }
+            return Scope.field(layout, field, instance);
+        }
+        throw new IllegalStateException("can not run " + expressionClass.getName());
+    }
+
+    //a method may be called before it is prepared, the call keeps the function it gets here
+    private Function function(Method method) {
+        Function function = functions.get(method);
+        if (function == null) {
+            function = new Function(method);
+            functions.put(method, function);
+        }
+        return function;
+    }
+
+    private InstanceState instance(Instance instance) {
+        InstanceState state = instances.get(instance);
+        if (state == null) {
+            state = new InstanceState(layout(instance.getClassy()));
+            instances.put(instance, state);
+        }
+        return state;
+    }
+
+    //every field gets an index into the storage of its kind: ints, doubles, int arrays or double arrays
+    private Layout layout(Classy classy) {
+        Layout layout = layouts.get(classy);
+        if (layout != null)
+            return layout;
+
+        List<GlobalVarExpression> fields = classy.getFields();
+        layout = new Layout(fields);
+        GlobalVarExpression field;
+        for (int i = 0; i < fields.size(); i++) {
+            field = fields.get(i);
+            if (field.getObjectType() == ObjectType.ARRAY)
+                layout.indexes[i] = field.getDataType() == DataType.REAL ? layout.realArrays++ : layout.intArrays++;
+            else
+                layout.indexes[i] = field.getDataType() == DataType.REAL ? layout.reals++ : layout.ints++;
+        }
+        layouts.put(classy, layout);
+        return layout;
+    }
+
+    private static final class Layout {
+        private final List<GlobalVarExpression> fields;
+        private final int[] indexes;
+        private int ints = 0;
+        private int reals = 0;
+        private int intArrays = 0;
+        private int realArrays = 0;
+
+        private Layout(List<GlobalVarExpression> fields) {
+            this.fields = fields;
+            this.indexes = new int[fields.size()];
+        }
+    }
+
+    //slots of the locals and values of one method while it is prepared
+    private static final class Scope {
+        private final Layout layout;
+        private final Map<Integer, Slot> locals = new HashMap<>(); //by symbol
+        private final Map<Expression, Slot> temporaries = new IdentityHashMap<>();
+        private int ints = 0;
+        private int reals = 0;
+
+        private Scope(Layout layout) {
+            this.layout = layout;
+        }
+
+        private Slot local(NamedVarExpression variable) {
+            Slot slot = locals.get(variable.getSymbol());
+            if (slot == null) {
+                slot = newSlot(variable.getDataType());
+                locals.put(variable.getSymbol(), slot);
+            }
+            return slot;
+        }
+
+        private Slot temporary(UnnamedVarExpression value) {
+            Slot slot = temporaries.get(value);
+            if (slot == null) {
+                slot = newSlot(value.getDataType());
+                temporaries.put(value, slot);
+            }
+            return slot;
+        }
+
+        private Slot newSlot(DataType dataType) {
+            return dataType == DataType.REAL ? new RealSlot(reals++) : new IntSlot(ints++);
+        }
+
+        private Place element(GlobalVarExpression element, Value index) {
+            return element(layout, element, index, null);
+        }
+
+        private static Place field(Layout layout, GlobalVarExpression field, InstanceState instance) {
+            int index = layout.indexes[field.getClassy().getFieldIndex(field.getSymbol())];
+            return field.getDataType() == DataType.REAL ? new RealField(index, instance) : new IntField(index, instance);
+        }
+
+        private static Place element(Layout layout, GlobalVarExpression element, Value index, InstanceState instance) {
+            int array = layout.indexes[element.getClassy().getFieldIndex(element.getSymbol())];
+            return element.getDataType() == DataType.REAL ? new RealElement(array, index, instance) : new IntElement(array, index, instance);
+        }
+    }
+
+    //running
+
+    private static final class Function {
+        private final Method method;
+        private Step[] steps = new Step[0];
+        private int ints = 0; //frame sizes
+        private int reals = 0;
+        private int[] parameterSlots = new int[0];
+
+        private Function(Method method) {
+            this.method = method;
+        }
+    }
+
+    private static final class InstanceState {
+        private final int[] ints;
+        private final double[] reals;
+        private final int[][] intArrays;
+        private final double[][] realArrays;
+
+        //fields start at 0, arrays declared outside a method body with their initial elements
+        private InstanceState(Layout layout) {
+            ints = new int[layout.ints];
+            reals = new double[layout.reals];
+            intArrays = new int[layout.intArrays][];
+            realArrays = new double[layout.realArrays][];
+
+            GlobalVarExpression field;
+            for (int i = 0; i < layout.fields.size(); i++) {
+                field = layout.fields.get(i);
+                if (field.getObjectType() != ObjectType.ARRAY)
+                    continue;
+                List<Expression> elements = field.getElements();
+                if (field.getDataType() == DataType.REAL) {
+                    double[] array = new double[field.getNumberOfArguments()];
+                    for (int j = 0; j < elements.size() && j < array.length; j++) {
+                        array[j] = ((Number) ((ValueExpression) elements.get(j)).getValue()).doubleValue();
+                    }
+                    realArrays[layout.indexes[i]] = array;
+                } else {
+                    int[] array = new int[field.getNumberOfArguments()];
+                    for (int j = 0; j < elements.size() && j < array.length; j++) {
+                        array[j] = ((Number) ((ValueExpression) elements.get(j)).getValue()).intValue();
+                    }
+                    intArrays[layout.indexes[i]] = array;
+                }
+            }
+        }
+    }
+
+    private static final class Frame {
+        private final int[] ints;
+        private final double[] reals;
+        private final InstanceState self;
+        private int intResult = 0;
+        private double realResult = 0;
+
+        private Frame(Function function, InstanceState self) {
+            this.ints = new int[function.ints];
+            this.reals = new double[function.reals];
+            this.self = self;
+        }
+    }
+
+    //every value can be read as either type, reading converts like sitofp and fptosi
+    private abstract static class Value {
+        abstract int intValue(Frame frame);
+
+        abstract double realValue(Frame frame);
+    }
+
+    private abstract static class Place extends Value {
+        abstract void setInt(Frame frame, int value);
+
+        abstract void setReal(Frame frame, double value);
+    }
+
+    private abstract static class Slot extends Place {
+        final int slot;
+
+        Slot(int slot) {
+            this.slot = slot;
+        }
+    }
+
+    private static final class IntConstant extends Value {
+        private final int value;
+
+        private IntConstant(int value) {
+            this.value = value;
+        }
+
+        int intValue(Frame frame) {
+            return value;
+        }
+
+        double realValue(Frame frame) {
+            return value;
+        }
+    }
+
+    private static final class RealConstant extends Value {
+        private final double value;
+
+        private RealConstant(double value) {
+            this.value = value;
+        }
+
+        int intValue(Frame frame) {
+            return (int) value;
+        }
+
+        double realValue(Frame frame) {
+            return value;
+        }
+    }
+
+    private static final class IntSlot extends Slot {
+        private IntSlot(int slot) {
+            super(slot);
+        }
+
+        int intValue(Frame frame) {
+            return frame.ints[slot];
+        }
+
+        double realValue(Frame frame) {
+            return frame.ints[slot];
+        }
+
+        void setInt(Frame frame, int value) {
+            frame.ints[slot] = value;
+        }
+
+        void setReal(Frame frame, double value) {
+            frame.ints[slot] = (int) value;
+        }
+    }
+
+    private static final class RealSlot extends Slot {
+        private RealSlot(int slot) {
+            super(slot);
+        }
+
+        int intValue(Frame frame) {
+            return (int) frame.reals[slot];
+        }
+
+        double realValue(Frame frame) {
+            return frame.reals[slot];
+        }
+
+        void setInt(Frame frame, int value) {
+            frame.reals[slot] = value;
+        }
+
+        void setReal(Frame frame, double value) {
+            frame.reals[slot] = value;
+        }
+    }
+
+    //a field or array element of the instance the frame works on, or of a fixed one when an inlined method reads it
+    private abstract static class Field extends Place {
+        private final InstanceState instance;
+
+        Field(InstanceState instance) {
+            this.instance = instance;
+        }
+
+        InstanceState self(Frame frame) {
+            return instance == null ? frame.self : instance;
+        }
+    }
+
+    private static final class IntField extends Field {
+        private final int index;
+
+        private IntField(int index, InstanceState instance) {
+            super(instance);
+            this.index = index;
+        }
+
+        int intValue(Frame frame) {
+            return self(frame).ints[index];
+        }
+
+        double realValue(Frame frame) {
+            return self(frame).ints[index];
+        }
+
+        void setInt(Frame frame, int value) {
+            self(frame).ints[index] = value;
+        }
+
+        void setReal(Frame frame, double value) {
+            self(frame).ints[index] = (int) value;
+        }
+    }
+
+    private static final class RealField extends Field {
+        private final int index;
+
+        private RealField(int index, InstanceState instance) {
+            super(instance);
+            this.index = index;
+        }
+
+        int intValue(Frame frame) {
+            return (int) self(frame).reals[index];
+        }
+
+        double realValue(Frame frame) {
+            return self(frame).reals[index];
+        }
+
+        void setInt(Frame frame, int value) {
+            self(frame).reals[index] = value;
+        }
+
+        void setReal(Frame frame, double value) {
+            self(frame).reals[index] = value;
+        }
+    }
+
+    private static final class IntElement extends Field {
+        private final int array;
+        private final Value index;
+
+        private IntElement(int array, Value index, InstanceState instance) {
+            super(instance);
+            this.array = array;
+            this.index = index;
+        }
+
+        int intValue(Frame frame) {
+            return self(frame).intArrays[array][index.intValue(frame)];
+        }
+
+        double realValue(Frame frame) {
+            return intValue(frame);
+        }
+
+        void setInt(Frame frame, int value) {
+            self(frame).intArrays[array][index.intValue(frame)] = value;
+        }
+
+        void setReal(Frame frame, double value) {
+            setInt(frame, (int) value);
+        }
+    }
+
+    private static final class RealElement extends Field {
+        private final int array;
+        private final Value index;
+
+        private RealElement(int array, Value index, InstanceState instance) {
+            super(instance);
+            this.array = array;
+            this.index = index;
+        }
+
+        int intValue(Frame frame) {
+            return (int) realValue(frame);
+        }
+
+        double realValue(Frame frame) {
+            return self(frame).realArrays[array][index.intValue(frame)];
+        }
+
+        void setInt(Frame frame, int value) {
+            setReal(frame, value);
+        }
+
+        void setReal(Frame frame, double value) {
+            self(frame).realArrays[array][index.intValue(frame)] = value;
+        }
+    }
+
+    //one prepared GeneratorMethod, returns the index of the step to run next or -1 to return
+    private abstract static class Step {
+        abstract int execute(Frame frame, int next);
+    }
+
+    private static final class Assign extends Step {
+        private final Place target;
+        private final Value value;
+        private final boolean real;
+
+        private Assign(Place target, Value value, boolean real) {
+            this.target = target;
+            this.value = value;
+            this.real = real;
+        }
+
+        int execute(Frame frame, int next) {
+            if (real)
+                target.setReal(frame, value.realValue(frame));
+            else
+                target.setInt(frame, value.intValue(frame));
+            return next;
+        }
+    }
+
+    private static final class Calculate extends Step {
+        private final Value left;
+        private final CalculationType calculationType;
+        private final Value right;
+        private final boolean real;
+        private final Place result;
+
+        private Calculate(Value left, CalculationType calculationType, Value right, boolean real, Place result) {
+            this.left = left;
+            this.calculationType = calculationType;
+            this.right = right;
+            this.real = real;
+            this.result = result;
+        }
+
+        int execute(Frame frame, int next) {
+            if (real) {
+                double leftValue = left.realValue(frame);
+                double rightValue = right.realValue(frame);
+                switch (calculationType) {
+                    case ADD:
+                        result.setReal(frame, leftValue + rightValue);
+                        break;
+                    case SUB:
+                        result.setReal(frame, leftValue - rightValue);
+                        break;
+                    case MUL:
+                        result.setReal(frame, leftValue * rightValue);
+                        break;
+                    case DIV:
+                        result.setReal(frame, leftValue / rightValue);
+                        break;
+                }
+            } else {
+                int leftValue = left.intValue(frame);
+                int rightValue = right.intValue(frame);
+                switch (calculationType) {
+                    case ADD:
+                        result.setInt(frame, leftValue + rightValue);
+                        break;
+                    case SUB:
+                        result.setInt(frame, leftValue - rightValue);
+                        break;
+                    case MUL:
+                        result.setInt(frame, leftValue * rightValue);
+                        break;
+                }
+            }
+            return next;
+        }
+    }
+
+    //the start of an if or while, goes past the end of its block when the comparison fails
+    private static final class Branch extends Step {
+        private final Value left;
+        private final CompareType compareType;
+        private final Value right;
+        private final boolean real;
+        private int end;
+
+        private Branch(Value left, CompareType compareType, Value right, boolean real) {
+            this.left = left;
+            this.compareType = compareType;
+            this.right = right;
+            this.real = real;
+        }
+
+        int execute(Frame frame, int next) {
+            return holds(frame) ? next : end;
+        }
+
+        //like fcmp with ordered conditions and une, every comparison but != fails for NaN
+        private boolean holds(Frame frame) {
+            if (real) {
+                double leftValue = left.realValue(frame);
+                double rightValue = right.realValue(frame);
+                switch (compareType) {
+                    case EQ:
+                        return leftValue == rightValue;
+                    case SLT:
+                        return leftValue < rightValue;
+                    case SLE:
+                        return leftValue <= rightValue;
+                    case SGE:
+                        return leftValue >= rightValue;
+                    case SGT:
+                        return leftValue > rightValue;
+                    default:
+                        return leftValue != rightValue;
+                }
+            }
+            int leftValue = left.intValue(frame);
+            int rightValue = right.intValue(frame);
+            switch (compareType) {
+                case EQ:
+                    return leftValue == rightValue;
+                case SLT:
+                    return leftValue < rightValue;
+                case SLE:
+                    return leftValue <= rightValue;
+                case SGE:
+                    return leftValue >= rightValue;
+                case SGT:
+                    return leftValue > rightValue;
+                default:
+                    return leftValue != rightValue;
+            }
+        }
+    }
+
+    private static final class Jump extends Step {
+        private final int target;
+
+        private Jump(int target) {
+            this.target = target;
+        }
+
+        int execute(Frame frame, int next) {
+            return target;
+        }
+    }
+
+    private static final class Call extends Step {
+        private final Function function;
+        private final InstanceState instance;
+        private final Value[] arguments;
+        private final boolean[] realArguments;
+        private final Place result;
+
+        private Call(Function function, InstanceState instance, Value[] arguments, Place result) {
+            this.function = function;
+            this.instance = instance;
+            this.arguments = arguments;
+            this.result = result;
+            List<DataType> types = function.method.getArguments();
+            this.realArguments = new boolean[types.size()];
+            for (int i = 0; i < realArguments.length; i++) {
+                realArguments[i] = types.get(i) == DataType.REAL;
+            }
+        }
+
+        int execute(Frame frame, int next) {
+            Frame callee = new Frame(function, instance);
+            int[] parameterSlots = function.parameterSlots;
+            for (int i = 0; i < arguments.length; i++) {
+                if (realArguments[i])
+                    callee.reals[parameterSlots[i]] = arguments[i].realValue(frame);
+                else
+                    callee.ints[parameterSlots[i]] = arguments[i].intValue(frame);
+            }
+            Interpreter.execute(function, callee);
+            if (function.method.getDataType() == DataType.REAL)
+                result.setReal(frame, callee.realResult);
+            else
+                result.setInt(frame, callee.intResult);
+            return next;
+        }
+    }
+
+    private static final class Return extends Step {
+        private final Value value;
+        private final boolean real;
+
+        private Return(Value value, boolean real) {
+            this.value = value;
+            this.real = real;
+        }
+
+        int execute(Frame frame, int next) {
+            if (real)
+                frame.realResult = value.realValue(frame);
+            else
+                frame.intResult = value.intValue(frame);
+            return -1;
+        }
+    }
+
+    private final class Print extends Step {
+        private final Value value;
+        private final boolean real;
+
+        private Print(Value value, boolean real) {
+            this.value = value;
+            this.real = real;
+        }
+
+        int execute(Frame frame, int next) {
+            if (real)
+                io.printReal(value.realValue(frame));
+            else
+                io.printInt(value.intValue(frame));
+            return next;
+        }
+    }
+
+    //like scanf, the variable keeps its value when the input holds no number
+    private final class Scan extends Step {
+        private final Place target;
+        private final boolean real;
+
+        private Scan(Place target, boolean real) {
+            this.target = target;
+            this.real = real;
+        }
+
+        int execute(Frame frame, int next) {
+            if (real)
+                target.setReal(frame, io.scanReal(target.realValue(frame)));
+            else
+                target.setInt(frame, io.scanInt(target.intValue(frame)));
+            return next;
+        }
+    }
+}
@@ -0,0 +1,541 @@
+import java.util.*;
+
+//generates JVM classes from the folded GeneratorMethods of a classy, the bytecode counterpart of LLVMGenerator, see JvmProgram
+//a classy becomes a class with a primitive field per classy field and an instance method per method, every instance is a static field of the program class
+public class JvmGenerator {
+    public static final String PROGRAM = "mk/Program";
+    private static final String IO = "ProgramIO";
+    private static final String IO_DESCRIPTOR = "LProgramIO;";
+
+    private final Classy classy;
+    private final String className;
+    private final int inlineLimit;
+    private final ClassFileWriter writer;
+    private boolean main = false;
+
+    //state of the method being generated
+    private ClassFileWriter.Code code;
+    private Method method;
+    private final Map<Integer, Integer> locals = new HashMap<>(); //slots by symbol
+    private final Map<Expression, Integer> temporaries = new IdentityHashMap<>();
+    private final Stack<ClassFileWriter.Label> branches = new Stack<>(); //end of every open if or while
+    private final Stack<ClassFileWriter.Label> loops = new Stack<>(); //head of every open while
+
+    public JvmGenerator(Classy classy) {
+        this(classy, Inliner.DEFAULT_LIMIT);
+    }
+
+    public JvmGenerator(Classy classy, int inlineLimit) {
+        this.classy = classy;
+        this.inlineLimit = inlineLimit;
+        this.className = className(classy);
+        this.writer = new ClassFileWriter(className);
+    }
+
+    public static String className(Classy classy) {
+        return "mk/classy/" + classy.getName();
+    }
+
+    //returns the class file, the instances the classy declares are added to instances
+    public byte[] generate(List<Instance> instances) {
+        List<GlobalVarExpression> fields = classy.getFields();
+        for (int i = 0; i < fields.size(); i++) {
+            writer.field(ClassFileWriter.ACC_PUBLIC, fields.get(i).getName(), fieldDescriptor(fields.get(i)));
+        }
+        generateConstructor(fields);
+
+        List<GeneratorMethod> generatorMethods = new LoopInvariantMotion().hoist(new ConstantFolder().fold(new Inliner(inlineLimit).inline(classy.getGeneratorMethods())));
+        boolean inFunction = false;
+        GeneratorMethod generatorMethod;
+        for (int i = 0; i < generatorMethods.size(); i++) {
+            generatorMethod = generatorMethods.get(i);
+            switch (generatorMethod.getType()) {
+                case DECLARE_FUNCTION:
+                    GeneratorMethod.DeclareFunction declareFunction = (GeneratorMethod.DeclareFunction) generatorMethod;
+                    declareFunction(declareFunction.getMethod(), declareFunction.getArguments());
+                    initializeLocals(generatorMethods, i + 1);
+                    inFunction = true;
+                    break;
+                case END_FUNCTION_DEFINITION:
+                    endFunctionDefinition();
+                    inFunction = false;
+                    break;
+                case DECLARE_INSTANCE:
+                    instances.add(((GeneratorMethod.DeclareInstance) generatorMethod).getInstance());
+                    break;
+                default:
+                    //fields are declared above, everything else only happens in a method
+                    if (inFunction)
+                        generate(generatorMethod);
+                    break;
+            }
+        }
+        return writer.toByteArray();
+    }
+
+    //true when this is classy Main and it has a main() method
+    public boolean hasMain() {
+        return main;
+    }
+
+    //the class holding the instances, run(ProgramIO) creates them and calls main() on the main instance
+    public static byte[] generateProgram(List<Instance> instances) {
+        ClassFileWriter writer = new ClassFileWriter(PROGRAM);
+        writer.field(ClassFileWriter.ACC_PUBLIC | ClassFileWriter.ACC_STATIC, "io", IO_DESCRIPTOR);
+        Instance main = null;
+        Instance instance;
+        for (int i = 0; i < instances.size(); i++) {
+            instance = instances.get(i);
+            writer.field(ClassFileWriter.ACC_PUBLIC | ClassFileWriter.ACC_STATIC, instanceField(instance), "L" + className(instance.getClassy()) + ";");
+            if ("main".equals(instance.getName()))
+                main = instance;
+        }
+        if (main == null)
+            throw new IllegalStateException("classy Main with a main() method is required to run a program");
+
+        ClassFileWriter.Code code = writer.method(ClassFileWriter.ACC_PUBLIC | ClassFileWriter.ACC_STATIC, "run", "(" + IO_DESCRIPTOR + ")I");
+        code.local(ClassFileWriter.ALOAD, 0);
+        code.field(ClassFileWriter.PUTSTATIC, PROGRAM, "io", IO_DESCRIPTOR);
+        for (int i = 0; i < instances.size(); i++) {
+            instance = instances.get(i);
+            String type = className(instance.getClassy());
+            code.newObject(type);
+            code.op(ClassFileWriter.DUP, 1);
+            code.invoke(ClassFileWriter.INVOKESPECIAL, type, "<init>", "()V");
+            code.field(ClassFileWriter.PUTSTATIC, PROGRAM, instanceField(instance), "L" + type + ";");
+        }
+        code.field(ClassFileWriter.GETSTATIC, PROGRAM, instanceField(main), "L" + className(main.getClassy()) + ";");
+        code.invoke(ClassFileWriter.INVOKEVIRTUAL, className(main.getClassy()), "main", "()I");
+        code.op(ClassFileWriter.IRETURN, -1);
+        return writer.toByteArray();
+    }
+
+    private static String instanceField(Instance instance) {
+        return "inst_" + instance.getName();
+    }
+
+    //fields start at 0, arrays declared outside a method body get their initial elements
+    private void generateConstructor(List<GlobalVarExpression> fields) {
+        code = writer.method(ClassFileWriter.ACC_PUBLIC, "<init>", "()V");
+        code.local(ClassFileWriter.ALOAD, 0);
+        code.invoke(ClassFileWriter.INVOKESPECIAL, "java/lang/Object", "<init>", "()V");
+        GlobalVarExpression field;
+        for (int i = 0; i < fields.size(); i++) {
+            field = fields.get(i);
+            if (field.getObjectType() != ObjectType.ARRAY)
+                continue;
+            boolean real = field.getDataType() == DataType.REAL;
+            code.local(ClassFileWriter.ALOAD, 0);
+            code.intConstant(field.getNumberOfArguments());
+            code.newArray(real ? ClassFileWriter.T_DOUBLE : ClassFileWriter.T_INT);
+            List<Expression> elements = field.getElements();
+            for (int j = 0; j < elements.size() && j < field.getNumberOfArguments(); j++) {
+                code.op(ClassFileWriter.DUP, 1);
+                code.intConstant(j);
+                Number value = (Number) ((ValueExpression) elements.get(j)).getValue();
+                if (real) {
+                    code.doubleConstant(value.doubleValue());
+                    code.op(ClassFileWriter.DASTORE, -4);
+                } else {
+                    code.intConstant(value.intValue());
+                    code.op(ClassFileWriter.IASTORE, -3);
+                }
+            }
+            code.field(ClassFileWriter.PUTFIELD, className, field.getName(), fieldDescriptor(field));
+        }
+        code.op(ClassFileWriter.RETURN, 0);
+    }
+
+    private void declareFunction(Method method, List<NamedVarExpression> arguments) {
+        this.method = method;
+        if ("Main".equals(classy.getName()) && "main".equals(method.getName()))
+            main = true;
+        locals.clear();
+        temporaries.clear();
+        branches.clear();
+        loops.clear();
+
+        StringBuilder descriptor = new StringBuilder("(");
+        for (int i = 0; i < arguments.size(); i++) {
+            descriptor.append(descriptor(arguments.get(i).getDataType()));
+        }
+        descriptor.append(')').append(descriptor(method.getDataType()));
+        code = writer.method(ClassFileWriter.ACC_PUBLIC, method.getName(), descriptor.toString());
+
+        //the parameters follow this in the first slots
+        int slot = 1;
+        for (int i = 0; i < arguments.size(); i++) {
+            locals.put(arguments.get(i).getSymbol(), slot);
+            slot += arguments.get(i).getDataType() == DataType.REAL ? 2 : 1;
+        }
+    }
+
+    //every local of the method is 0 from its start, so one declared in a block can be read after it
+    //even when the block, or the assignment of 0 that follows the declaration, did not run
+    private void initializeLocals(List<GeneratorMethod> generatorMethods, int start) {
+        GeneratorMethod generatorMethod;
+        for (int i = start; i < generatorMethods.size(); i++) {
+            generatorMethod = generatorMethods.get(i);
+            if (generatorMethod.getType() == GeneratorMethodType.END_FUNCTION_DEFINITION)
+                return;
+            if (generatorMethod.getType() != GeneratorMethodType.DECLARE_VARIABLE)
+                continue;
+            Expression variable = ((GeneratorMethod.DeclareVariable) generatorMethod).getExpression();
+            if (!variable.getClass().equals(NamedVarExpression.class) || locals.containsKey(((NamedVarExpression) variable).getSymbol()))
+                continue;
+            int slot = local((NamedVarExpression) variable);
+            if (variable.getDataType() == DataType.REAL) {
+                code.doubleConstant(0);
+                code.local(ClassFileWriter.DSTORE, slot);
+            } else {
+                code.intConstant(0);
+                code.local(ClassFileWriter.ISTORE, slot);
+            }
+        }
+    }
+
+    //a method may end without give, like a function falling off its end it gives 0
+    private void endFunctionDefinition() {
+        if (method.getDataType() == DataType.REAL) {
+            code.doubleConstant(0);
+            code.op(ClassFileWriter.DRETURN, -2);
+        } else {
+            code.intConstant(0);
+            code.op(ClassFileWriter.IRETURN, -1);
+        }
+    }
+
+    private void generate(GeneratorMethod generatorMethod) {
+        switch (generatorMethod.getType()) {
+            case START_LOOP:
+                ClassFileWriter.Label head = code.newLabel();
+                code.bind(head);
+                loops.push(head);
+                break;
+            case START_INSTRUCTION:
+                startInstruction((GeneratorMethod.StartInstruction) generatorMethod);
+                break;
+            case END_INSTRUCTION:
+                //a loop goes back to its head and computes its condition again
+                if (((GeneratorMethod.EndInstruction) generatorMethod).getInstructionType() == InstructionType.WHILE)
+                    code.jump(ClassFileWriter.GOTO, loops.pop());
+                code.bind(branches.pop());
+                break;
+            case CALL_FUNCTION:
+                callFunction((GeneratorMethod.CallFunction) generatorMethod);
+                break;
+            case DO_RETURNING:
+                push(((GeneratorMethod.DoReturning) generatorMethod).getExpression(), method.getDataType());
+                if (method.getDataType() == DataType.REAL)
+                    code.op(ClassFileWriter.DRETURN, -2);
+                else
+                    code.op(ClassFileWriter.IRETURN, -1);
+                break;
+            case CALCULATION:
+                calculation((GeneratorMethod.Calculation) generatorMethod);
+                break;
+            case DECLARE_VARIABLE:
+                //the slot was given and set to 0 at the start of the method
+                Expression variable = ((GeneratorMethod.DeclareVariable) generatorMethod).getExpression();
+                if (variable.getClass().equals(NamedVarExpression.class))
+                    local((NamedVarExpression) variable);
+                break;
+            case ASSIGN_VARIABLE:
+                GeneratorMethod.AssignVariable assignVariable = (GeneratorMethod.AssignVariable) generatorMethod;
+                Expression target = assignVariable.getLeftExpression();
+                DataType type = startStore(target);
+                push(assignVariable.getRightExpression(), type);
+                endStore(target, type);
+                break;
+            case PRINT:
+                Expression printed = ((GeneratorMethod.Print) generatorMethod).getExpression();
+                if (printed.getDataType() == DataType.CHAR)
+                    break;
+                code.field(ClassFileWriter.GETSTATIC, PROGRAM, "io", IO_DESCRIPTOR);
+                if (printed.getDataType() == DataType.REAL) {
+                    push(printed, DataType.REAL);
+                    code.invoke(ClassFileWriter.INVOKEVIRTUAL, IO, "printReal", "(D)V");
+                } else {
+                    push(printed, DataType.INT);
+                    code.invoke(ClassFileWriter.INVOKEVIRTUAL, IO, "printInt", "(I)V");
+                }
+                break;
+            case SCAN:
+                scan((GeneratorMethod.Scan) generatorMethod);
+                break;
+            case DECLARE_ARRAY:
+                GeneratorMethod.DeclareArray declareArray = (GeneratorMethod.DeclareArray) generatorMethod;
+                GlobalVarExpression array = declareArray.getArray();
+                List<Expression> elements = declareArray.getElements();
+                for (int j = 0; j < elements.size(); j++) {
+                    code.local(ClassFileWriter.ALOAD, 0);
+                    code.field(ClassFileWriter.GETFIELD, className, array.getName(), fieldDescriptor(array));
+                    code.intConstant(j);
+                    push(elements.get(j), elementType(array));
+                    arrayStore(elementType(array));
+                }
+                break;
+        }
+    }
+
+    //jumps past the end of the block when the comparison fails, like fcmp with ordered conditions and une only != holds for NaN
+    private void startInstruction(GeneratorMethod.StartInstruction startInstruction) {
+        ClassFileWriter.Label end = code.newLabel();
+        branches.push(end);
+
+        Expression left = startInstruction.getLeftExpression();
+        Expression right = startInstruction.getRightExpression();
+        CompareType compareType = startInstruction.getCompareType();
+        if (left.getDataType() == DataType.REAL || right.getDataType() == DataType.REAL) {
+            push(left, DataType.REAL);
+            push(right, DataType.REAL);
+            //dcmpg gives 1 and dcmpl -1 for NaN, picked so that NaN takes the jump
+            switch (compareType) {
+                case EQ:
+                    code.op(ClassFileWriter.DCMPL, -3);
+                    code.jump(ClassFileWriter.IFNE, end);
+                    break;
+                case SLT:
+                    code.op(ClassFileWriter.DCMPG, -3);
+                    code.jump(ClassFileWriter.IFGE, end);
+                    break;
+                case SLE:
+                    code.op(ClassFileWriter.DCMPG, -3);
+                    code.jump(ClassFileWriter.IFGT, end);
+                    break;
+                case SGE:
+                    code.op(ClassFileWriter.DCMPL, -3);
+                    code.jump(ClassFileWriter.IFLT, end);
+                    break;
+                case SGT:
+                    code.op(ClassFileWriter.DCMPL, -3);
+                    code.jump(ClassFileWriter.IFLE, end);
+                    break;
+                default:
+                    code.op(ClassFileWriter.DCMPL, -3);
+                    code.jump(ClassFileWriter.IFEQ, end);
+                    break;
+            }
+            return;
+        }
+        push(left, DataType.INT);
+        push(right, DataType.INT);
+        switch (compareType) {
+            case EQ:
+                code.jump(ClassFileWriter.IF_ICMPNE, end);
+                break;
+            case SLT:
+                code.jump(ClassFileWriter.IF_ICMPGE, end);
+                break;
+            case SLE:
+                code.jump(ClassFileWriter.IF_ICMPGT, end);
+                break;
+            case SGE:
+                code.jump(ClassFileWriter.IF_ICMPLT, end);
+                break;
+            case SGT:
+                code.jump(ClassFileWriter.IF_ICMPLE, end);
+                break;
+            default:
+                code.jump(ClassFileWriter.IF_ICMPEQ, end);
+                break;
+        }
+    }
+
+    private void callFunction(GeneratorMethod.CallFunction callFunction) {
+        Instance instance = callFunction.getInstance();
+        Method called = callFunction.getMethod();
+        String type = className(instance.getClassy());
+        code.field(ClassFileWriter.GETSTATIC, PROGRAM, instanceField(instance), "L" + type + ";");
+
+        List<Expression> arguments = callFunction.getArguments();
+        List<DataType> types = called.getArguments();
+        StringBuilder descriptor = new StringBuilder("(");
+        for (int i = 0; i < arguments.size(); i++) {
+            push(arguments.get(i), types.get(i));
+            descriptor.append(descriptor(types.get(i)));
+        }
+        descriptor.append(')').append(descriptor(called.getDataType()));
+        code.invoke(ClassFileWriter.INVOKEVIRTUAL, type, called.getName(), descriptor.toString());
+        convert(called.getDataType(), callFunction.getResult().getDataType());
+        storeTemporary(callFunction.getResult());
+    }
+
+    private void calculation(GeneratorMethod.Calculation calculation) {
+        DataType type = calculation.isRealCalculation() ? DataType.REAL : DataType.INT;
+        push(calculation.getLeftExpression(), type);
+        push(calculation.getRightExpression(), type);
+        boolean real = type == DataType.REAL;
+        int change = real ? -2 : -1;
+        switch (calculation.getCalculationType()) {
+            case ADD:
+                code.op(real ? ClassFileWriter.DADD : ClassFileWriter.IADD, change);
+                break;
+            case SUB:
+                code.op(real ? ClassFileWriter.DSUB : ClassFileWriter.ISUB, change);
+                break;
+            case MUL:
+                code.op(real ? ClassFileWriter.DMUL : ClassFileWriter.IMUL, change);
+                break;
+            case DIV:
+                code.op(ClassFileWriter.DDIV, change);
+                break;
+        }
+        convert(type, calculation.getResult().getDataType());
+        storeTemporary(calculation.getResult());
+    }
+
+    //like scanf, the variable keeps its value when the input holds no number
+    private void scan(GeneratorMethod.Scan scan) {
+        if (scan.getDataType() == DataType.CHAR)
+            return;
+        Expression target = scan.getExpression();
+        DataType type = startStore(target);
+        code.field(ClassFileWriter.GETSTATIC, PROGRAM, "io", IO_DESCRIPTOR);
+        push(target, type);
+        if (type == DataType.REAL)
+            code.invoke(ClassFileWriter.INVOKEVIRTUAL, IO, "scanReal", "(D)D");
+        else
+            code.invoke(ClassFileWriter.INVOKEVIRTUAL, IO, "scanInt", "(I)I");
+        endStore(target, type);
+    }
+
+    //pushes the value of an expression converted to type, like sitofp and fptosi
+    private void push(Expression expression, DataType type) {
+        Class<?> expressionClass = expression.getClass();
+        if (expressionClass.equals(ValueExpression.class)) {
+            Number value = (Number) ((ValueExpression) expression).getValue();
+            if (type == DataType.REAL)
+                code.doubleConstant(value instanceof Double ? value.doubleValue() : value.intValue());
+            else
+                code.intConstant(value.intValue());
+            return;
+        }
+        DataType from = stackType(expression.getDataType());
+        if (expressionClass.equals(UnnamedVarExpression.class)) {
+            code.local(from == DataType.REAL ? ClassFileWriter.DLOAD : ClassFileWriter.ILOAD, temporary((UnnamedVarExpression) expression));
+        } else if (expressionClass.equals(NamedVarExpression.class)) {
+            code.local(from == DataType.REAL ? ClassFileWriter.DLOAD : ClassFileWriter.ILOAD, local((NamedVarExpression) expression));
+        } else if (expressionClass.equals(GlobalVarExpression.class)) {
+            GlobalVarExpression field = (GlobalVarExpression) expression;
+            pushInstance(field);
+            if (field.getObjectType() == ObjectType.ARRAY_ELEMENT) {
+                code.field(ClassFileWriter.GETFIELD, owner(field), field.getName(), fieldDescriptor(field));
+                pushIndex(field);
+                code.op(from == DataType.REAL ? ClassFileWriter.DALOAD : ClassFileWriter.IALOAD, from == DataType.REAL ? 0 : -1);
+            } else
+                code.field(ClassFileWriter.GETFIELD, owner(field), field.getName(), fieldDescriptor(field));
+        } else
+            throw new IllegalStateException("can not generate bytecode for " + expressionClass.getName());
+        convert(from, stackType(type));
+    }
+
+    //pushes what a store into target needs below the value: this for a field, the array and index for an element
+    private DataType startStore(Expression target) {
+        DataType type = stackType(target.getDataType());
+        if (target.getClass().equals(GlobalVarExpression.class)) {
+            GlobalVarExpression field = (GlobalVarExpression) target;
+            pushInstance(field);
+            if (field.getObjectType() == ObjectType.ARRAY_ELEMENT) {
+                code.field(ClassFileWriter.GETFIELD, owner(field), field.getName(), fieldDescriptor(field));
+                pushIndex(field);
+            }
+        }
+        return type;
+    }
+
+    private void endStore(Expression target, DataType type) {
+        Class<?> targetClass = target.getClass();
+        if (targetClass.equals(NamedVarExpression.class)) {
+            code.local(type == DataType.REAL ? ClassFileWriter.DSTORE : ClassFileWriter.ISTORE, local((NamedVarExpression) target));
+        } else if (targetClass.equals(UnnamedVarExpression.class)) {
+            storeTemporary((UnnamedVarExpression) target);
+        } else if (targetClass.equals(GlobalVarExpression.class)) {
+            GlobalVarExpression field = (GlobalVarExpression) target;
+            if (field.getObjectType() == ObjectType.ARRAY_ELEMENT)
+                arrayStore(type);
+            else
+                code.field(ClassFileWriter.PUTFIELD, owner(field), field.getName(), fieldDescriptor(field));
+        } else
+            throw new IllegalStateException("can not generate bytecode for " + targetClass.getName());
+    }
+
+    //this, or the instance an inlined method was called on
+    private void pushInstance(GlobalVarExpression field) {
+        Instance instance = field.getInstance();
+        if (instance == null)
+            code.local(ClassFileWriter.ALOAD, 0);
+        else
+            code.field(ClassFileWriter.GETSTATIC, PROGRAM, instanceField(instance), "L" + className(instance.getClassy()) + ";");
+    }
+
+    private String owner(GlobalVarExpression field) {
+        return field.getInstance() == null ? className : className(field.getInstance().getClassy());
+    }
+
+    private void pushIndex(GlobalVarExpression element) {
+        Expression index = element.getLength();
+        if (index == null)
+            code.intConstant(element.getNumberOfArguments());
+        else
+            push(index, DataType.INT);
+    }
+
+    private void arrayStore(DataType type) {
+        if (type == DataType.REAL)
+            code.op(ClassFileWriter.DASTORE, -4);
+        else
+            code.op(ClassFileWriter.IASTORE, -3);
+    }
+
+    private void convert(DataType from, DataType to) {
+        from = stackType(from);
+        to = stackType(to);
+        if (from == to)
+            return;
+        if (to == DataType.REAL)
+            code.op(ClassFileWriter.I2D, 1);
+        else
+            code.op(ClassFileWriter.D2I, -1);
+    }
+
+    private int local(NamedVarExpression variable) {
+        Integer slot = locals.get(variable.getSymbol());
+        if (slot == null) {
+            slot = code.newLocal(variable.getDataType() == DataType.REAL);
+            locals.put(variable.getSymbol(), slot);
+        }
+        return slot;
+    }
+
+    private int temporary(UnnamedVarExpression value) {
+        Integer slot = temporaries.get(value);
+        if (slot == null) {
+            slot = code.newLocal(value.getDataType() == DataType.REAL);
+            temporaries.put(value, slot);
+        }
+        return slot;
+    }
+
+    private void storeTemporary(UnnamedVarExpression value) {
+        code.local(stackType(value.getDataType()) == DataType.REAL ? ClassFileWriter.DSTORE : ClassFileWriter.ISTORE, temporary(value));
+    }
+
+    //chars are kept as ints, like the interpreter does
+    private static DataType stackType(DataType dataType) {
+        return dataType == DataType.REAL ? DataType.REAL : DataType.INT;
+    }
+
+    private static DataType elementType(GlobalVarExpression array) {
+        return stackType(array.getDataType());
+    }
+
+    private static String descriptor(DataType dataType) {
+        return dataType == DataType.REAL ? "D" : "I";
+    }
+
+    private static String fieldDescriptor(GlobalVarExpression field) {
+        boolean array = field.getObjectType() == ObjectType.ARRAY || field.getObjectType() == ObjectType.ARRAY_ELEMENT;
+        return (array ? "[" : "") + descriptor(field.getDataType());
+    }
+}
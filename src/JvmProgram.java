@@ -0,0 +1,90 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.util.*;
+
+//a checked program compiled to JVM classes by JvmGenerator and loaded into its own class loader, runs in process under the JIT, see --run=jvm
+public class JvmProgram {
+    private final Map<String, byte[]> classes = new LinkedHashMap<>(); //by binary name
+    private final java.lang.reflect.Method run;
+
+    public JvmProgram(List<Classy> classies) {
+        this(classies, Inliner.DEFAULT_LIMIT);
+    }
+
+    public JvmProgram(List<Classy> classies, int inlineLimit) {
+        List<Instance> instances = new ArrayList<>();
+        boolean main = false;
+        Iterator<Classy> iterator = classies.iterator();
+        Classy classy;
+        while (iterator.hasNext()) {
+            classy = iterator.next();
+            JvmGenerator generator = new JvmGenerator(classy, inlineLimit);
+            classes.put(binaryName(JvmGenerator.className(classy)), generator.generate(instances));
+            main |= generator.hasMain();
+        }
+        if (!main)
+            throw new IllegalStateException("classy Main with a main() method is required to run a program");
+        classes.put(binaryName(JvmGenerator.PROGRAM), JvmGenerator.generateProgram(instances));
+
+        try {
+            Class<?> program = new ProgramClassLoader(classes).loadClass(binaryName(JvmGenerator.PROGRAM));
+            run = program.getMethod("run", ProgramIO.class);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("generated classes could not be loaded", e);
+        }
+    }
+
+    //returns what main() gave, like the exit status of the compiled program, every run starts with new instances
+    public int run(InputStream in, OutputStream out) throws IOException {
+        ProgramIO io = new ProgramIO(in, out);
+        try {
+            return (Integer) run.invoke(null, io);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof ArrayIndexOutOfBoundsException)
+                throw new IllegalStateException("array index out of bounds: " + cause.getMessage());
+            if (cause instanceof StackOverflowError)
+                throw new IllegalStateException("methods called too deep");
+            if (cause instanceof VerifyError)
+                throw new IllegalStateException("generated bytecode was rejected by the verifier: " + cause.getMessage());
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new IllegalStateException(cause);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            io.flush();
+        }
+    }
+
+    //the class files by binary name, e.g. mk.classy.Main
+    public Map<String, byte[]> getClasses() {
+        return classes;
+    }
+
+    private static String binaryName(String name) {
+        return name.replace('/', '.');
+    }
+
+    //defines the generated classes, everything else (ProgramIO, java.lang) comes from the compiler's own loader
+    private static final class ProgramClassLoader extends ClassLoader {
+        private final Map<String, byte[]> classes;
+
+        private ProgramClassLoader(Map<String, byte[]> classes) {
+            super(JvmProgram.class.getClassLoader());
+            this.classes = classes;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            byte[] bytes = classes.get(name);
+            if (bytes == null)
+                throw new ClassNotFoundException(name);
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
@@ -1,19 +1,81 @@
+import org.antlr.v4.runtime.misc.Interval;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import java.io.Writer;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 public class LLVMActions extends MKBaseListener {
-    private final LLVMGenerator generator = new LLVMGenerator(this);
+    //classies generated or waiting to be written at a time, a finished classy behind a slow one keeps its whole IR in memory
+    private static final int MAX_GENERATING = 2 * ForkJoinPool.getCommonPoolParallelism();
+
+    private final LLVMBuilder llvm; //module the generated classies are joined into
+    private final Queue<ClassyGenerator> generating = new ArrayDeque<>(); //classies being generated, in declaration order
+    private final ClassyCache cache; //null when every classy is generated
     private final Stack<Expression> expressionStack = new Stack<>();
     private int line = 0;
     private final String fileName;
     private boolean inFunction = false; //flag for checking if currently in function body
     private boolean returning = false;  //flag for checking if a return statement occurred in a function
-    private final Map<String, Classy> classies = new HashMap<>();
+    private final Symbols symbols = new Symbols(); //every name is looked up by its symbol, see symbol()
+    private final int initializeSymbol = symbols.intern("initialize");
+    private final SymbolTable<Classy> classies = new SymbolTable<>();
+    private final List<Classy> declaredClassies = new ArrayList<>(); //in declaration order, see getClassies()
     private Classy currentClassy;
-    private final Map<String, Instance> instances = new HashMap<>();
-    private Map<String, NamedVarExpression> localVariables;
+    private final SymbolTable<Instance> instances = new SymbolTable<>();
+    private final SymbolTable<NamedVarExpression> localVariables = new SymbolTable<>(); //cleared when a method ends
+    private Method currentMethod;
+    private final Set<String> poisonedInstances = new HashSet<>(); //instances whose declaration failed, using them reports nothing more
+    private final List<Diagnostic> errors = new ArrayList<>();
+    private final int errorLimit; //the walk stops when this many errors were found
+    private int inlineLimit = Inliner.DEFAULT_LIMIT;
+    private boolean generate = true;
+    private CompilationStats stats = null; //null unless --stats
+    private final CompilerEvents.Walk walkEvent = new CompilerEvents.Walk();
+
+    public static final int DEFAULT_ERROR_LIMIT = 100;
+
+    public LLVMActions(String fileName, Writer writer) {
+        this(fileName, writer, null);
+    }
+
+    public LLVMActions(String fileName, Writer writer, ClassyCache cache) {
+        this(fileName, writer, cache, DEFAULT_ERROR_LIMIT);
+    }
 
-    public LLVMActions(String fileName) {
+    public LLVMActions(String fileName, Writer writer, ClassyCache cache, int errorLimit) {
         this.fileName = fileName;
+        this.llvm = new LLVMBuilder(writer);
+        this.cache = cache;
+        this.errorLimit = errorLimit;
+    }
+
+    //false only checks the file and records its classies, nothing is written
+    public void setGenerate(boolean generate) {
+        this.generate = generate;
+    }
+
+    //methods with at most this many GeneratorMethods are inlined where they are called, 0 inlines nothing
+    public void setInlineLimit(int inlineLimit) {
+        this.inlineLimit = inlineLimit;
+    }
+
+    public int getInlineLimit() {
+        return inlineLimit;
+    }
+
+    //the walk also counts the time it waits for and writes the generated classies
+    public void setStats(CompilationStats stats) {
+        this.stats = stats;
+    }
+
+    public List<Classy> getClassies() {
+        return new ArrayList<>(declaredClassies);
+    }
+
+    //names are interned once where the walk first sees them, lookups after that only index arrays
+    private int symbol(TerminalNode name) {
+        return symbols.intern(name.getText());
     }
 
     @Override
@@ -21,80 +83,75 @@ public class LLVMActions extends MKBaseListener {
         line = context.getStart().getLine();
         String instanceName = context.NAME(0).getText();
         String classyName = context.NAME(1).getText();
+        int instanceSymbol = symbol(context.NAME(0));
+        int classySymbol = symbol(context.NAME(1));
 
-        if (instances.containsKey(instanceName))
+        if (instances.contains(instanceSymbol))
             printError("instance with name " + instanceName + " already exists");
-        if (!classies.containsKey(classyName))
-            printError("trying to create an instance of non-existing classy " + classyName);
-        if (classies.containsKey(instanceName))
+        if (classies.contains(instanceSymbol))
             printError("trying to hide classy " + instanceName);
         if ("Main".equals(instanceName) || "main".equals(instanceName))
             printError("invalid instance name: " + instanceName);
+        if (!classies.contains(classySymbol)) {
+            printError("trying to create an instance of non-existing classy " + classyName);
+            poisonedInstances.add(instanceName);
+            return;
+        }
 
-        declareInstance(instanceName, classyName);
-    }
+        Instance instance = declareInstance(instanceName, instanceSymbol, classySymbol);
 
-    private void declareInstance(String instanceName, String classyName) {
-        Classy classy = classies.get(classyName);
-        Instance instance = new Instance(instanceName, classy);
-        instances.put(instanceName, instance);
-
-        generator.getBuilder().setInInstanceDeclaration(true);
-        generator.setCurrentInstance(instance);
-
-        Iterator<GeneratorMethod> iterator = classy.getGeneratorMethods().iterator();
-        GeneratorMethod generatorMethod;
-        GeneratorMethodType type;
-        List<Object> arguments;
-        while (iterator.hasNext()) {
-            generatorMethod = iterator.next();
-            type = generatorMethod.getType();
-            arguments = generatorMethod.getArguments();
-            switch (type) {
-                case START_INSTRUCTION:
-                    generator.startInstruction((Expression) arguments.get(0), (CompareType) arguments.get(1), (Expression) arguments.get(2));
-                    break;
-                case END_INSTRUCTION:
-                    generator.endInstruction((InstructionType) arguments.get(0));
-                    break;
-                case CALL_FUNCTION:
-                    generator.callFunction((Instance) arguments.get(0), (Method) arguments.get(1), (List<Expression>) arguments.get(2));
-                    break;
-                case DECLARE_FUNCTION:
-                    generator.declareFunction((Method) arguments.get(0), (List<Expression>) arguments.get(1));
-                    break;
-                case END_FUNCTION_DEFINITION:
-                    generator.endFunctionDefinition();
-                    break;
-                case DO_RETURNING:
-                    generator.doReturning((Expression) arguments.get(0));
-                    break;
-                case CALCULATION:
-                    generator.calculate((Expression) arguments.get(0), (CalculationType) arguments.get(1), (Expression) arguments.get(2), (boolean) arguments.get(3));
-                    break;
-                case DECLARE_VARIABLE:
-                    generator.declareVariable((Expression) arguments.get(0));
-                    break;
-                case ASSIGN_VARIABLE:
-                    generator.assignVariable((Expression) arguments.get(0), (Expression) arguments.get(1));
-                    break;
-                case PRINT:
-                    generator.print((Expression) arguments.get(0));
-                    break;
-                case SCAN:
-                    generator.scan((DataType) arguments.get(0), (Expression) arguments.get(1));
-                    break;
-                case DECLARE_ARRAY:
-                    generator.declareArray((Expression) arguments.get(0), (int) arguments.get(1), (List<Expression>) arguments.get(2));
-                    break;
-            }
+        Classy classy = instance.getClassy();
+        if (classy.hasMethod(initializeSymbol)) {
+            Method method = classy.getMethod(initializeSymbol);
+            GeneratorMethod gm = new GeneratorMethod.CallFunction(instance, method, new ArrayList<>(), new UnnamedVarExpression(ObjectType.VARIABLE, method.getDataType()));
+            currentClassy.addGeneratorMethod(gm);
         }
+    }
 
-        generator.getBuilder().setInInstanceDeclaration(false);
+    private Instance declareInstance(String instanceName, int instanceSymbol, int classySymbol) {
+        Classy classy = classies.get(classySymbol);
+        Instance instance = new Instance(instanceName, classy);
+        instances.put(instanceSymbol, instance);
 
-        if (classy.hasMethod("initialize")) {
-            GeneratorMethod gm = new GeneratorMethod(GeneratorMethodType.CALL_FUNCTION, instance, classy.getMethod("initialize"), new ArrayList<>());
-            currentClassy.addGeneratorMethod(gm);
+        GeneratorMethod gm = new GeneratorMethod.DeclareInstance(instance);
+        currentClassy.addGeneratorMethod(gm);
+        return instance;
+    }
+
+    //methods of a classy are generated once and shared by all of its instances
+    //the walk goes on while the classy is generated, its fields and methods are complete and no longer change
+    private void generateClassy(Classy classy) {
+        //there will be no output, the GeneratorMethods may hold poisoned expressions
+        if (!errors.isEmpty() || !generate)
+            return;
+
+        String key = cache == null ? null : cache.key(classy, inlineLimit);
+        ClassyGenerator classyGenerator = new ClassyGenerator(this, classy, line, cache, key, stats);
+        ForkJoinPool.commonPool().execute(classyGenerator);
+        generating.add(classyGenerator);
+        writeGenerated(false);
+    }
+
+    //classies are written in declaration order, no matter which one finished first
+    //the walk waits for the oldest classy when too many are generating, so at most MAX_GENERATING classies are held
+    private void writeGenerated(boolean wait) {
+        IRFragment fragment;
+        long start;
+        long allocated;
+        while (!generating.isEmpty() && (wait || generating.peek().isDone() || generating.size() > MAX_GENERATING)) {
+            if (stats == null) {
+                llvm.appendFragment(generating.poll().join());
+                continue;
+            }
+            start = System.nanoTime();
+            fragment = generating.poll().join();
+            stats.addPhase("wait", System.nanoTime() - start, 0);
+
+            start = System.nanoTime();
+            allocated = CompilationStats.allocatedBytes();
+            llvm.appendFragment(fragment);
+            stats.addPhase("write", System.nanoTime() - start, CompilationStats.allocatedSince(allocated));
+            stats.addFunctions(fragment.getFunctionStats());
         }
     }
 
@@ -103,8 +160,11 @@ public class LLVMActions extends MKBaseListener {
         //line = context.getStop().getLine();
 
         if ("Main".equals(currentClassy.getName())) {
-            declareInstance("main", "Main");
+            declareInstance("main", symbols.intern("main"), currentClassy.getSymbol());
         }
+        if (cache != null)
+            cache.addSource(currentClassy.getName(), context.getStart().getInputStream().getText(Interval.of(context.getStart().getStartIndex(), context.getStop().getStopIndex())));
+        generateClassy(currentClassy);
 
         currentClassy = null;
     }
@@ -113,11 +173,15 @@ public class LLVMActions extends MKBaseListener {
     public void exitClass_declaration1(MKParser.Class_declaration1Context context) {
         line = context.getStart().getLine();
         String name = context.NAME().getText();
+        int symbol = symbol(context.NAME());
 
-        if (classies.containsKey(name))
+        Classy classy = new Classy(name, symbol);
+        if (classies.contains(symbol)) {
             printError("declaring already existing classy " + name);
-        Classy classy = new Classy(name);
-        classies.put(name, classy);
+            declaredClassies.set(declaredClassies.indexOf(classies.get(symbol)), classy);
+        } else
+            declaredClassies.add(classy);
+        classies.put(symbol, classy);
         currentClassy = classy;
     }
 
@@ -155,7 +219,7 @@ public class LLVMActions extends MKBaseListener {
                 compareType = null;
         }
 
-        GeneratorMethod gm = new GeneratorMethod(GeneratorMethodType.START_INSTRUCTION, leftExpression, compareType, rightExpression);
+        GeneratorMethod gm = new GeneratorMethod.StartInstruction(leftExpression, compareType, rightExpression);
         currentClassy.addGeneratorMethod(gm);
     }
 
@@ -164,7 +228,14 @@ public class LLVMActions extends MKBaseListener {
         line = context.getStart().getLine();
         InstructionType instructionType = InstructionType.IF;
 
-        GeneratorMethod gm = new GeneratorMethod(GeneratorMethodType.END_INSTRUCTION, instructionType);
+        GeneratorMethod gm = new GeneratorMethod.EndInstruction(instructionType);
+        currentClassy.addGeneratorMethod(gm);
+    }
+
+    @Override
+    public void enterWhile_instruction(MKParser.While_instructionContext context) {
+        //the condition is recorded after this, so every iteration computes it again
+        GeneratorMethod gm = new GeneratorMethod.StartLoop();
         currentClassy.addGeneratorMethod(gm);
     }
 
@@ -173,7 +244,7 @@ public class LLVMActions extends MKBaseListener {
         line = context.getStart().getLine();
         InstructionType instructionType = InstructionType.WHILE;
 
-        GeneratorMethod gm = new GeneratorMethod(GeneratorMethodType.END_INSTRUCTION, instructionType);
+        GeneratorMethod gm = new GeneratorMethod.EndInstruction(instructionType);
         currentClassy.addGeneratorMethod(gm);
     }
 
@@ -184,57 +255,71 @@ public class LLVMActions extends MKBaseListener {
         return argumentsCount;
     }
 
-    private NamedVarExpression callFunction(String instanceName, String methodName, MKParser.Call_argumentsContext argumentsContext) {
+    private Expression callFunction(TerminalNode instanceNode, TerminalNode methodNode, MKParser.Call_argumentsContext argumentsContext) {
+        String instanceName = instanceNode.getText();
+        String methodName = methodNode.getText();
+        int argumentsCount = countArguments(argumentsContext.getChildCount());
+        List<Expression> arguments = new ArrayList<>(argumentsCount);
+        for (int i = 0; i < argumentsCount; i++) {
+            arguments.add(expressionStack.pop());
+        }
+        Collections.reverse(arguments);
+
         if (!inFunction)
             printError("calling a method not allowed outside a method body");
         if ("main".equals(methodName))
             printError("calling main() method not allowed");
-        if (!instances.containsKey(instanceName))
-            printError("instance " + instanceName + " does not exist");
+        int instanceSymbol = symbol(instanceNode);
+        if (!instances.contains(instanceSymbol)) {
+            if (!poisonedInstances.contains(instanceName))
+                printError("instance " + instanceName + " does not exist");
+            return new PoisonExpression();
+        }
 
-        Instance instance = instances.get(instanceName);
+        Instance instance = instances.get(instanceSymbol);
         Classy classy = instance.getClassy();
-        if (!classy.hasMethod(methodName))
+        int methodSymbol = symbol(methodNode);
+        if (!classy.hasMethod(methodSymbol)) {
             printError("calling non-existing method " + instanceName + "." + methodName + "()");
+            return new PoisonExpression();
+        }
 
-        Method method = classy.getMethod(methodName);
+        Method method = classy.getMethod(methodSymbol);
         List<DataType> methodArguments = method.getArguments();
 
         int expectedArgumentsCount = methodArguments.size();
-        int argumentsCount = countArguments(argumentsContext.getChildCount());
-        if (expectedArgumentsCount != argumentsCount)
+        if (expectedArgumentsCount != argumentsCount) {
             printError("method " + instanceName + "." + methodName + "() called with " + argumentsCount + " argument(s). Expected: " + expectedArgumentsCount);
-
-        List<Expression> arguments = new ArrayList<>(argumentsCount);
-        for (int i = 0; i < argumentsCount; i++) {
-            arguments.add(expressionStack.pop());
+        } else {
+            Expression argument;
+            for (int i = 0; i < argumentsCount; i++) {
+                argument = arguments.get(i);
+                if (!isPoison(argument) && argument.getDataType() != methodArguments.get(i))
+                    printError("argument no. " + (i + 1) + " type is " + argument.getDataType() + ". Expected: " + methodArguments.get(i));
+            }
         }
-        Collections.reverse(arguments);
 
-        GeneratorMethod gm = new GeneratorMethod(GeneratorMethodType.CALL_FUNCTION, instance, method, arguments);
+        UnnamedVarExpression result = new UnnamedVarExpression(ObjectType.VARIABLE, method.getDataType());
+        GeneratorMethod gm = new GeneratorMethod.CallFunction(instance, method, arguments, result);
         currentClassy.addGeneratorMethod(gm);
-        return new NamedVarExpression(ObjectType.VARIABLE, method.getDataType(), "ret_" + instanceName + "_" + methodName);
+        return result;
     }
 
     @Override
     public void exitFunction(MKParser.FunctionContext context) {
         line = context.getStart().getLine();
-        String instanceName = context.NAME(0).getText();
-        String methodName = context.NAME(1).getText();
         MKParser.Call_argumentsContext argumentsContext = context.getChild(MKParser.Call_argumentsContext.class, 0);
 
-        NamedVarExpression functionValue = callFunction(instanceName, methodName, argumentsContext);
+        Expression functionValue = callFunction(context.NAME(0), context.NAME(1), argumentsContext);
         expressionStack.push(functionValue);
     }
 
     @Override
     public void exitFunction_call(MKParser.Function_callContext context) {
         line = context.getStart().getLine();
-        String instanceName = context.NAME(0).getText();
-        String methodName = context.NAME(1).getText();
         MKParser.Call_argumentsContext argumentsContext = context.getChild(MKParser.Call_argumentsContext.class, 0);
 
-        callFunction(instanceName, methodName, argumentsContext);
+        callFunction(context.NAME(0), context.NAME(1), argumentsContext);
     }
 
     @Override
@@ -242,7 +327,7 @@ public class LLVMActions extends MKBaseListener {
         line = context.getStart().getLine();
         String name = context.NAME().getText();
 
-        NamedVarExpression argument = new NamedVarExpression(ObjectType.VARIABLE, DataType.INT, name);
+        NamedVarExpression argument = new NamedVarExpression(ObjectType.VARIABLE, DataType.INT, name, symbol(context.NAME()));
         expressionStack.push(argument);
     }
 
@@ -251,7 +336,7 @@ public class LLVMActions extends MKBaseListener {
         line = context.getStart().getLine();
         String name = context.NAME().getText();
 
-        NamedVarExpression argument = new NamedVarExpression(ObjectType.VARIABLE, DataType.REAL, name);
+        NamedVarExpression argument = new NamedVarExpression(ObjectType.VARIABLE, DataType.REAL, name, symbol(context.NAME()));
         expressionStack.push(argument);
     }
 
@@ -273,15 +358,16 @@ public class LLVMActions extends MKBaseListener {
 
     private void declareFunction(DataType dataType, MKParser.Function_declaration2Context context2) {
         String name = context2.NAME().getText();
+        int symbol = symbol(context2.NAME());
         MKParser.ArgumentsContext context3 = context2.getChild(MKParser.ArgumentsContext.class, 0);
         int childCount = context3.getChildCount();
-        localVariables = new HashMap<>();
+        localVariables.clear();
 
         int argumentsCount = countArguments(childCount);
 
         if (inFunction)
             printError("defining method not allowed inside another method");
-        if (currentClassy.hasMethod(name))
+        if (currentClassy.hasMethod(symbol))
             printError("defining already existing method " + name + "()");
 
         List<NamedVarExpression> arguments = new ArrayList<>(argumentsCount);
@@ -291,17 +377,18 @@ public class LLVMActions extends MKBaseListener {
             expression = expressionStack.pop();
             arguments.add((NamedVarExpression) expression);
             argumentsTypes.add(expression.getDataType());
-            localVariables.put(((NamedVarExpression) expression).getName(), (NamedVarExpression) expression);
+            localVariables.put(((NamedVarExpression) expression).getSymbol(), (NamedVarExpression) expression);
         }
         Collections.reverse(arguments);
         Collections.reverse(argumentsTypes);
 
         inFunction = true;
         returning = false;
-        Method method = new Method(name, dataType, argumentsTypes);//GlobalVarExpression(ObjectType.FUNCTION, dataType, name, argumentsCount, currentClassy);
-        currentClassy.addMethod(name, method);
+        Method method = new Method(name, dataType, argumentsTypes, currentClassy);//GlobalVarExpression(ObjectType.FUNCTION, dataType, name, argumentsCount, currentClassy);
+        currentClassy.addMethod(symbol, method);
+        currentMethod = method;
 
-        GeneratorMethod gm = new GeneratorMethod(GeneratorMethodType.DECLARE_FUNCTION, method, arguments);
+        GeneratorMethod gm = new GeneratorMethod.DeclareFunction(method, arguments);
         currentClassy.addGeneratorMethod(gm);
     }
 
@@ -312,8 +399,9 @@ public class LLVMActions extends MKBaseListener {
             printError("missing give statement in method body");
         inFunction = false;
         returning = false;
+        localVariables.clear(); //locals of the method are not visible after it
 
-        GeneratorMethod gm = new GeneratorMethod(GeneratorMethodType.END_FUNCTION_DEFINITION, null);
+        GeneratorMethod gm = new GeneratorMethod.EndFunctionDefinition();
         currentClassy.addGeneratorMethod(gm);
     }
 
@@ -324,9 +412,11 @@ public class LLVMActions extends MKBaseListener {
 
         if (!inFunction)
             printError("give statement used while not in method body");
+        else if (!isPoison(expression) && expression.getDataType() != currentMethod.getDataType())
+            printError("types mismatch in give statement");
         returning = true;
 
-        GeneratorMethod gm = new GeneratorMethod(GeneratorMethodType.DO_RETURNING, expression);
+        GeneratorMethod gm = new GeneratorMethod.DoReturning(expression);
         currentClassy.addGeneratorMethod(gm);
     }
 
@@ -356,18 +446,22 @@ public class LLVMActions extends MKBaseListener {
         Expression leftExpression = expressionStack.pop();
         DataType leftType = leftExpression.getDataType();
 
+        if (isPoison(leftExpression) || isPoison(rightExpression)) {
+            expressionStack.push(new PoisonExpression());
+            return;
+        }
+
         boolean realCalculation = false;
-        String resultName = "res_int";
         DataType dataType = DataType.INT;
         if (leftType == DataType.REAL || rightType == DataType.REAL || calculationType == CalculationType.DIV) {
             realCalculation = true;
-            resultName = "res_real";
             dataType = DataType.REAL;
         }
 
-        expressionStack.push(new NamedVarExpression(ObjectType.VARIABLE, dataType, resultName));
+        UnnamedVarExpression result = new UnnamedVarExpression(ObjectType.VARIABLE, dataType);
+        expressionStack.push(result);
 
-        GeneratorMethod gm = new GeneratorMethod(GeneratorMethodType.CALCULATION, leftExpression, calculationType, rightExpression, realCalculation);
+        GeneratorMethod gm = new GeneratorMethod.Calculation(leftExpression, calculationType, rightExpression, realCalculation, result);
         currentClassy.addGeneratorMethod(gm);
     }
 
@@ -406,17 +500,18 @@ public class LLVMActions extends MKBaseListener {
         line = context.getStart().getLine();
 
         String name = context.NAME().getText();
+        int symbol = symbol(context.NAME());
 
-        Expression expression = null;
-        if (!localVariables.containsKey(name)) {
-            if (currentClassy.hasField(name)) {
-                expression = currentClassy.getField(name);
+        Expression expression = new PoisonExpression();
+        if (!localVariables.contains(symbol)) {
+            if (currentClassy.hasField(symbol)) {
+                expression = currentClassy.getField(symbol);
             } else {
 
                     printError("using non-existing lady " + name);
             }
         } else
-            expression = localVariables.get(name);
+            expression = localVariables.get(symbol);
 
         expressionStack.push(expression);
     }
@@ -424,11 +519,9 @@ public class LLVMActions extends MKBaseListener {
     public void exitArray_index(MKParser.Array_indexContext context) {
         line = context.getStart().getLine();
 
-        Expression index = expressionStack.pop();
-        if (index.getDataType() != DataType.INT)
+        Expression index = expressionStack.peek();
+        if (!isPoison(index) && index.getDataType() != DataType.INT)
             printError("array index or length must be an integer");
-        index = generator.allocate(index);
-        expressionStack.push(index);
     }
 
     @Override
@@ -436,13 +529,16 @@ public class LLVMActions extends MKBaseListener {
         line = context.getStart().getLine();
 
         String name = context.NAME().getText();
+        int symbol = symbol(context.NAME());
         Expression index = expressionStack.pop();
 
-        if (currentClassy.hasField(name)) {
-            GlobalVarExpression array = currentClassy.getField(name);
-            expressionStack.push(new GlobalVarExpression(ObjectType.ARRAY_ELEMENT, array.getDataType(), name, index, currentClassy));
-        } else
+        if (currentClassy.hasField(symbol)) {
+            GlobalVarExpression array = currentClassy.getField(symbol);
+            expressionStack.push(new GlobalVarExpression(ObjectType.ARRAY_ELEMENT, array.getDataType(), name, symbol, index, currentClassy));
+        } else {
             printError("using non-existing array lady " + name);
+            expressionStack.push(new PoisonExpression());
+        }
     }
 
     @Override
@@ -459,32 +555,33 @@ public class LLVMActions extends MKBaseListener {
         line = context.getStart().getLine();
 
         String name = context.NAME().getText();
+        int symbol = symbol(context.NAME());
         ObjectType objectType = ObjectType.VARIABLE;
         Expression leftExpression;
 
         if (inFunction) {
-            if (localVariables.containsKey(name))
+            if (localVariables.contains(symbol))
                 printError("declaring already existing variable " + name);
-            leftExpression = new NamedVarExpression(objectType, dataType, name);
-            localVariables.put(name, (NamedVarExpression) leftExpression);
+            leftExpression = new NamedVarExpression(objectType, dataType, name, symbol);
+            localVariables.put(symbol, (NamedVarExpression) leftExpression);
         } else {
-            if (currentClassy.hasField(name))
+            if (currentClassy.hasField(symbol))
                 printError("declaring already existing variable " + name);
-            leftExpression = new GlobalVarExpression(objectType, dataType, name, currentClassy);
+            leftExpression = new GlobalVarExpression(objectType, dataType, name, symbol, currentClassy);
             currentClassy.addField((GlobalVarExpression) leftExpression);
         }
 
-        GeneratorMethod gm = new GeneratorMethod(GeneratorMethodType.DECLARE_VARIABLE, leftExpression);
+        GeneratorMethod gm = new GeneratorMethod.DeclareVariable(leftExpression);
         currentClassy.addGeneratorMethod(gm);
 
         if (inFunction) {
             switch (dataType) {
                 case INT:
-                    gm = new GeneratorMethod(GeneratorMethodType.ASSIGN_VARIABLE, leftExpression, new ValueExpression(ObjectType.VARIABLE, dataType, 0));
+                    gm = new GeneratorMethod.AssignVariable(leftExpression, new ValueExpression(ObjectType.VARIABLE, dataType, 0));
                     currentClassy.addGeneratorMethod(gm);
                     break;
                 case REAL:
-                    gm = new GeneratorMethod(GeneratorMethodType.ASSIGN_VARIABLE, leftExpression, new ValueExpression(ObjectType.VARIABLE, dataType, 0.0));
+                    gm = new GeneratorMethod.AssignVariable(leftExpression, new ValueExpression(ObjectType.VARIABLE, dataType, 0.0));
                     currentClassy.addGeneratorMethod(gm);
                     break;
             }
@@ -499,21 +596,22 @@ public class LLVMActions extends MKBaseListener {
             printError("assigning to a variable not allowed outside a method body");
 
         String name = context.NAME().getText();
-        Expression leftExpression = null;
-        if (!localVariables.containsKey(name)) {
-            if (currentClassy.hasField(name))
-                leftExpression = currentClassy.getField(name);
+        int symbol = symbol(context.NAME());
+        Expression leftExpression = new PoisonExpression();
+        if (!localVariables.contains(symbol)) {
+            if (currentClassy.hasField(symbol))
+                leftExpression = currentClassy.getField(symbol);
             else
                 printError("trying to assign to non-existing lady " + name);
         } else
-            leftExpression = localVariables.get(name);
+            leftExpression = localVariables.get(symbol);
 
         Expression rightExpression = expressionStack.pop();
 
-        if (leftExpression.getDataType() != rightExpression.getDataType())
+        if (!isPoison(leftExpression) && !isPoison(rightExpression) && leftExpression.getDataType() != rightExpression.getDataType())
             printError("types mismatch");
 
-        GeneratorMethod gm = new GeneratorMethod(GeneratorMethodType.ASSIGN_VARIABLE, leftExpression, rightExpression);
+        GeneratorMethod gm = new GeneratorMethod.AssignVariable(leftExpression, rightExpression);
         currentClassy.addGeneratorMethod(gm);
     }
 
@@ -526,7 +624,7 @@ public class LLVMActions extends MKBaseListener {
 
         Expression expression = expressionStack.pop();
 
-        GeneratorMethod gm = new GeneratorMethod(GeneratorMethodType.PRINT, expression);
+        GeneratorMethod gm = new GeneratorMethod.Print(expression);
         currentClassy.addGeneratorMethod(gm);
     }
 
@@ -534,21 +632,22 @@ public class LLVMActions extends MKBaseListener {
     public void exitScan(MKParser.ScanContext context) {
         line = context.getStart().getLine();
         String name = context.NAME().getText();
+        int symbol = symbol(context.NAME());
 
         if (!inFunction)
             printError("hearing not allowed outside a function body");
 
-        Expression expression = null;
-        if (!localVariables.containsKey(name)) {
-            if (currentClassy.hasField(name)) {
-                expression = currentClassy.getField(name);
+        Expression expression = new PoisonExpression();
+        if (!localVariables.contains(symbol)) {
+            if (currentClassy.hasField(symbol)) {
+                expression = currentClassy.getField(symbol);
             } else {
                 printError("using non-existing lady " + name);
             }
         } else
-            expression = localVariables.get(name);
+            expression = localVariables.get(symbol);
 
-        GeneratorMethod gm = new GeneratorMethod(GeneratorMethodType.SCAN, expression.getDataType(), expression);
+        GeneratorMethod gm = new GeneratorMethod.Scan(expression.getDataType(), expression);
         currentClassy.addGeneratorMethod(gm);
     }
 
@@ -572,6 +671,7 @@ public class LLVMActions extends MKBaseListener {
 
     private void declareArray(MKParser.Array_declaration1Context context, DataType dataType) {
         String name = context.NAME().getText();
+        int symbol = symbol(context.NAME());
         int arrayLength = 0;
 
         if (context.getChild(MKParser.Array_lengthContext.class, 0) != null)
@@ -591,8 +691,33 @@ public class LLVMActions extends MKBaseListener {
                 printError("assigning more elements to an array lady than declared");
         }
 
-        GlobalVarExpression array = new GlobalVarExpression(ObjectType.ARRAY, dataType, name, 0, currentClassy);
-        GeneratorMethod gm = new GeneratorMethod(GeneratorMethodType.DECLARE_ARRAY, array, arrayLength, elements);
+        if (currentClassy.hasField(symbol))
+            printError("declaring already existing variable " + name);
+
+        //outside a method body the elements become the initial value of the array in every instance
+        List<Expression> initialElements = new ArrayList<>();
+        if (!inFunction) {
+            Iterator<Expression> iterator = elements.iterator();
+            Expression element;
+            while (iterator.hasNext()) {
+                element = iterator.next();
+                if (!isPoison(element) && (!element.getClass().equals(ValueExpression.class) || element.getDataType() != dataType))
+                    printError("array lady " + name + " declared outside a method body can only be initialized with " + dataType + " values");
+            }
+            initialElements = elements;
+        } else {
+            Iterator<Expression> iterator = elements.iterator();
+            Expression element;
+            while (iterator.hasNext()) {
+                element = iterator.next();
+                if (!isPoison(element) && element.getDataType() != dataType)
+                    printError("array element type " + element.getDataType() + " not matching array type " + dataType);
+            }
+        }
+
+        GlobalVarExpression array = new GlobalVarExpression(ObjectType.ARRAY, dataType, name, symbol, arrayLength, initialElements, currentClassy);
+        currentClassy.addField(array);
+        GeneratorMethod gm = new GeneratorMethod.DeclareArray(array, arrayLength, elements);
         currentClassy.addGeneratorMethod(gm);
     }
 
@@ -603,21 +728,63 @@ public class LLVMActions extends MKBaseListener {
         Expression rightExpression = expressionStack.pop();
         Expression leftExpression = expressionStack.pop();
 
-        GeneratorMethod gm = new GeneratorMethod(GeneratorMethodType.ASSIGN_VARIABLE, leftExpression, rightExpression);
+        if (!isPoison(leftExpression) && !isPoison(rightExpression) && leftExpression.getDataType() != rightExpression.getDataType())
+            printError("array element type " + rightExpression.getDataType() + " not matching array type " + leftExpression.getDataType());
+
+        GeneratorMethod gm = new GeneratorMethod.AssignVariable(leftExpression, rightExpression);
         currentClassy.addGeneratorMethod(gm);
     }
 
+    @Override
+    public void enterFile(MKParser.FileContext context) {
+        walkEvent.begin();
+    }
+
     @Override
     public void exitFile(MKParser.FileContext context) {
         line = context.getStart().getLine();
 
-        generator.generateOutput();
+        if (!errors.isEmpty()) {
+            commitWalkEvent();
+            throw new CompilationException(errors, fileName);
+        }
+        if (!generate) {
+            commitWalkEvent();
+            return;
+        }
+
+        writeGenerated(true);
+        commitWalkEvent();
+        long start = System.nanoTime();
+        long allocated = stats == null ? -1 : CompilationStats.allocatedBytes();
+        LLVMGenerator.generateOutput(llvm);
+        if (stats != null)
+            stats.addPhase("write", System.nanoTime() - start, CompilationStats.allocatedSince(allocated));
     }
 
 
+    private void commitWalkEvent() {
+        if (walkEvent.shouldCommit()) {
+            walkEvent.file = fileName;
+            walkEvent.classies = classies.size();
+            walkEvent.commit();
+        }
+    }
+
+    //the error is recorded and the walk goes on, all errors are reported together at the end of the file
     public void printError(String message) {
-        System.err.println("Compilation error at line " + line + " - " + message + " in " + fileName);
-        System.exit(1);
+        errors.add(new Diagnostic(DiagnosticType.SEMANTIC, line, 0, message));
+        if (errors.size() >= errorLimit)
+            throw new CompilationException(errors, fileName);
+    }
+
+    private boolean isPoison(Expression expression) {
+        return expression.getClass().equals(PoisonExpression.class);
+    }
+
+    //errors the walk could not find, called from the generating threads, so it only reads final fields
+    public void printError(int line, String message) {
+        throw new CompilationException(line, message, fileName);
     }
 }
 
@@ -1,78 +1,233 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
 public class LLVMBuilder {
-    private StringBuilder builder = new StringBuilder();
-    private StringBuilder buffer = new StringBuilder();
-    private StringBuilder headerBuilder = new StringBuilder();
-    private StringBuilder mainBuilder = new StringBuilder();
-    private StringBuilder mainDeclarationBuilder = new StringBuilder();
-    private StringBuilder instancesBuilder = new StringBuilder();
-    private boolean bufferHeld = false;
-    private boolean inInstanceDeclaration = true;
+    private final Writer writer;
+    private final StringBuilder headerBuilder = new StringBuilder();
+    private final StringBuilder entryBuilder = new StringBuilder(); //definition line and stack slots of the function being generated
+    private final StringBuilder builder = new StringBuilder(); //type or function body being generated
+    private List<FunctionStats> functionStats = null; //only counted for --stats
+    private FunctionStats currentFunction = null;
 
-    public void setInInstanceDeclaration(boolean inInstanceDeclaration) {
-        this.inInstanceDeclaration = inInstanceDeclaration;
+    public LLVMBuilder(Writer writer) {
+        this.writer = writer;
     }
 
-    public void holdBuffer() {
-        bufferHeld = true;
+    //text that is not an instruction: types, labels, definitions and closing braces
+    public void append(Object object) {
+        builder.append(object);
     }
 
-    public String getBuffer() {
-        return buffer.toString();
+    public void appendToEntry(Object object) {
+        entryBuilder.append(object);
     }
 
-    public void releaseBuffer() {
-        buffer = new StringBuilder();
-        bufferHeld = false;
+    //the instructions below are written straight into the reused buffers, numbers and operands are never turned into Strings
+
+    //  %var_x = alloca i32, in the entry block
+    public void alloca(String name, DataType type) {
+        entryBuilder.append("  ").append(name).append(" = alloca ").append(type.toLLVM()).append('\n');
+        if (currentFunction != null) {
+            currentFunction.addInstruction();
+            currentFunction.addAlloca();
+        }
     }
 
-    public void append(Object object) {
-        if (bufferHeld) {
-            buffer.append(object);
-        } else {
-            if (inInstanceDeclaration)
-                instancesBuilder.append(object);
-            else
-                builder.append(object);
+    //  store i32 0, i32* %var_x, in the entry block
+    public void zeroInEntry(String name, DataType type) {
+        String llvmType = type.toLLVM();
+        entryBuilder.append("  store ").append(llvmType).append(type == DataType.REAL ? " 0.0, " : " 0, ").append(llvmType).append("* ").append(name).append('\n');
+        if (currentFunction != null) {
+            currentFunction.addInstruction();
+            currentFunction.addStore();
         }
     }
 
-    public void append(Object object, Method currentFunction) {
-        String currentFunctionName;
+    //  %1 = load i32, i32* %var_x
+    public void load(DataType type, int destination, Operand pointer) {
+        String llvmType = type.toLLVM();
+        destination(destination).append("load ").append(llvmType).append(", ").append(llvmType).append("* ");
+        pointer.appendTo(builder);
+        builder.append('\n');
+        if (currentFunction != null) {
+            currentFunction.addInstruction();
+            currentFunction.addLoad();
+        }
+    }
+
+    //  store i32 %1, i32* %var_x
+    public void store(DataType type, Operand value, Operand pointer) {
+        String llvmType = type.toLLVM();
+        builder.append("  store ").append(llvmType).append(' ');
+        value.appendTo(builder);
+        builder.append(", ").append(llvmType).append("* ");
+        pointer.appendTo(builder);
+        builder.append("\n\n");
+        if (currentFunction != null) {
+            currentFunction.addInstruction();
+            currentFunction.addStore();
+        }
+    }
+
+    //  %3 = add nsw i32 %1, %2
+    public void binop(String operation, DataType type, int destination, Operand left, Operand right) {
+        destination(destination).append(operation).append(' ').append(type.toLLVM()).append(' ');
+        operands(left, right);
+        builder.append('\n');
+        instruction();
+    }
+
+    //  %3 = icmp slt i32 %1, %2
+    public void compare(String compare, String condition, DataType type, int destination, Operand left, Operand right) {
+        destination(destination).append(compare).append(' ').append(condition).append(' ').append(type.toLLVM()).append(' ');
+        operands(left, right);
+        builder.append('\n');
+        instruction();
+    }
+
+    //  %2 = sext i32 %1 to i64
+    public void convert(String operation, String fromType, Operand value, String toType, int destination) {
+        destination(destination).append(operation).append(' ').append(fromType).append(' ');
+        value.appendTo(builder);
+        builder.append(" to ").append(toType).append(" \n");
+        instruction();
+    }
 
-        if (currentFunction == null)
-            currentFunctionName = "main";
-        else
-            currentFunctionName = currentFunction.getName();
+    //  %2 = getelementptr inbounds %classy.C, %classy.C* %this, i32 0, i32 1
+    public void fieldPointer(int destination, String classyType, String receiver, int field) {
+        destination(destination).append("getelementptr inbounds ").append(classyType).append(", ").append(classyType).append("* ").append(receiver)
+                .append(", i32 0, i32 ").append(field).append('\n');
+        instruction();
+    }
 
-        if ("main".equals(currentFunctionName))
-            appendToMain(object);
-        else
-            append(object);
+    //  %3 = getelementptr inbounds %classy.C, %classy.C* %this, i32 0, i32 1, i64 %2
+    public void elementPointer(int destination, String classyType, String receiver, int field, Operand index) {
+        destination(destination).append("getelementptr inbounds ").append(classyType).append(", ").append(classyType).append("* ").append(receiver)
+                .append(", i32 0, i32 ").append(field).append(", i64 ");
+        index.appendTo(builder);
+        builder.append('\n');
+        instruction();
+    }
+
+    //  br label %compare1
+    public void br(String label, int index) {
+        builder.append("  br label %").append(label).append(index).append("\n\n");
+        instruction();
+    }
+
+    //  br i1 %3, label %then1, label %end1
+    public void br(int condition, String thenLabel, String elseLabel, int index) {
+        builder.append("  br i1 %").append(condition).append(", label %").append(thenLabel).append(index).append(", label %").append(elseLabel).append(index).append("\n\n");
+        instruction();
+    }
+
+    // compare1:
+    public void label(String label, int index) {
+        builder.append(' ').append(label).append(index).append(":\n");
+    }
+
+    //  ret i32 %1
+    public void ret(DataType type, Operand value) {
+        builder.append("  ret ").append(type.toLLVM()).append(' ');
+        value.appendTo(builder);
+        builder.append('\n');
+        instruction();
+    }
+
+    //  %4 = call i32 @func_C_m(%classy.C* @inst_c, i32 %1), callArgument() and endCall() write the rest
+    public void startCall(DataType type, int destination, String function, String receiverType, String receiver) {
+        destination(destination).append("call ").append(type.toLLVM()).append(' ').append(function).append('(').append(receiverType).append("* ").append(receiver);
+    }
+
+    public void callArgument(DataType type, Operand value) {
+        builder.append(", ").append(type.toLLVM()).append(' ');
+        value.appendTo(builder);
+    }
+
+    public void endCall() {
+        builder.append(")\n\n");
+        instruction();
+    }
+
+    //  %5 = call i32 (i8* , ...) @printf(...), the template holds everything between the destination and the last operand
+    public void call(int destination, String template, Operand value) {
+        builder.append("  %").append(destination).append(template);
+        value.appendTo(builder);
+        builder.append(")\n\n");
+        instruction();
+    }
+
+    private StringBuilder destination(int destination) {
+        return builder.append("  %").append(destination).append(" = ");
+    }
+
+    private void operands(Operand left, Operand right) {
+        left.appendTo(builder);
+        builder.append(", ");
+        right.appendTo(builder);
+    }
+
+    private void instruction() {
+        if (currentFunction != null)
+            currentFunction.addInstruction();
+    }
+
+    public void collectStats() {
+        functionStats = new ArrayList<>();
+    }
+
+    public void startFunction(String name) {
+        if (functionStats == null)
+            return;
+        currentFunction = new FunctionStats(name);
+        functionStats.add(currentFunction);
+    }
+
+    //empty when stats are not collected
+    public List<FunctionStats> getFunctionStats() {
+        return functionStats == null ? new ArrayList<>() : functionStats;
     }
 
     public void appendToHeader(Object object) {
-        if (bufferHeld)
-            buffer.append(object);
-        else
-            headerBuilder.append(object);
+        headerBuilder.append(object);
     }
 
-    public void appendToMain(Object object) {
-        if (bufferHeld)
-            buffer.append(object);
-        else
-            mainBuilder.append(object);
+    //writes out a finished type or function, only the header stays in memory until the end
+    public void flush() {
+        write(entryBuilder);
+        write(builder);
+        entryBuilder.setLength(0);
+        builder.setLength(0);
     }
 
-    public void appendToMainDeclaration(Object object) {
-        if (bufferHeld)
-            buffer.append(object);
-        else
-            mainDeclarationBuilder.append(object);
+    public String getHeader() {
+        return headerBuilder.toString();
     }
 
-    @Override
-    public String toString() {
-        return headerBuilder.toString() + mainDeclarationBuilder.toString() + mainBuilder.toString() + builder.toString() + instancesBuilder.toString();
+    //writes IR generated elsewhere, by another task or an earlier run, as if it was generated now
+    public void appendFragment(IRFragment fragment) {
+        write(fragment.getBody());
+        headerBuilder.append(fragment.getHeader());
+    }
+
+    public void close() {
+        write(headerBuilder);
+        headerBuilder.setLength(0);
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void write(CharSequence text) {
+        try {
+            writer.append(text);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
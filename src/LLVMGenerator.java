@@ -1,100 +1,173 @@
-
-
 import java.util.*;
 
+//generates one function or the classy level part of one classy, so all of its state is local to that part
 public class LLVMGenerator {
-    private final HashMap<String, HashMap<String, NamedVarExpression>> localVariables = new HashMap<>();
-    private final LLVMBuilder llvm = new LLVMBuilder();
+    private final SymbolTable<NamedVarExpression> localVariables = new SymbolTable<>();
+    private final LLVMBuilder llvm;
     private int varIndex = 1;
     private final LLVMActions actions;
+    private final int line; //line reported for errors found during generation
     private Method currentFunction = null;
     private int instructionIndex = 1;
     private final Stack<Integer> instructionStack = new Stack<>();
-    private Instance currentInstance;
-    private Set<String> thisVariablesSet = null;
+    private boolean loopStarted = false; //the compare label of the next instruction was written by startLoop()
+    private final Classy currentClassy;
+    private String receiver; //pointer to the instance the current method works on
+    private CompilerEvents.Function functionEvent = null;
+    private final Operand left = new Operand(); //operands of the instruction being generated, reused by every instruction
+    private final Operand right = new Operand();
+    private final List<Operand> argumentOperands = new ArrayList<>();
+
+    private static final Map<String, String> systemVariables = Collections.unmodifiableMap(new Configuration().getSystemVariables()); //read only, shared by all compilations
+
+    //everything between the destination and the operand of the printf and scanf calls
+    private static final String PRINT_INT = " = call i32 (i8* , ...) @printf(i8* getelementptr inbounds ([4 x i8], [4 x i8]*" + systemVariables.get("printInt") + ", i32 0, i32 0), i32 ";
+    private static final String PRINT_REAL = " = call i32 (i8* , ...) @printf(i8* getelementptr inbounds ([4 x i8], [4 x i8]*" + systemVariables.get("printReal") + ", i32 0, i32 0), double ";
+    private static final String SCAN_INT = " = call i32 (i8*, ...) @scanf(i8* getelementptr inbounds ([3 x i8], [3 x i8]* " + systemVariables.get("scanInt") + ", i32 0, i32 0), i32* ";
+    private static final String SCAN_REAL = " = call i32 (i8*, ...) @scanf(i8* getelementptr inbounds ([4 x i8], [4 x i8]* " + systemVariables.get("scanReal") + ", i32 0, i32 0), double* ";
+
+    public LLVMGenerator (LLVMActions actions, Classy classy, int line, LLVMBuilder llvm) {
+        this.actions = actions;
+        this.currentClassy = classy;
+        this.line = line;
+        this.llvm = llvm;
+    }
 
-    private final Configuration configuration = new Configuration();
-    private final HashMap<String, String>  systemVariables = configuration.getSystemVariables();
+    //functions are already written out, only the header is left
+    public static void generateOutput(LLVMBuilder llvm) {
+        CompilerEvents.GenerateOutput event = new CompilerEvents.GenerateOutput();
+        event.begin();
+        llvm.appendToHeader("\n");
+        llvm.appendToHeader("declare i32 @printf(i8*, ...)\n");
+        llvm.appendToHeader("declare i32 @scanf(i8*, ...)\n");
+        llvm.appendToHeader(systemVariables.get("printInt") + " = constant [4 x i8] c\"%d\\0A\\00\"\n");
+        llvm.appendToHeader(systemVariables.get("printReal") + " = constant [4 x i8] c\"%f\\0A\\00\"\n");
+        llvm.appendToHeader(systemVariables.get("scanInt") + " = constant [3 x i8] c\"%d\\00\"\n");
+        llvm.appendToHeader(systemVariables.get("scanReal") + " = constant [4 x i8] c\"%lf\\00\"\n");
+        llvm.close();
+        event.commit();
+    }
+
+    public void declareClassy() {
+        Classy classy = currentClassy;
 
-    public void setCurrentInstance(Instance currentInstance) {
-        this.currentInstance = currentInstance;
+        StringBuilder types = new StringBuilder();
+        Iterator<GlobalVarExpression> iterator = classy.getFields().iterator();
+        while (iterator.hasNext()) {
+            types.append(fieldType(iterator.next()));
+            if (iterator.hasNext())
+                types.append(", ");
+        }
+        llvm.append(classy.getLLVMType() + " = type { " + types + " }\n");
+        llvm.flush();
     }
 
-    public LLVMBuilder getBuilder() {return llvm;}
+    public void declareInstance(Instance instance) {
+        Classy classy = instance.getClassy();
+        CompilerEvents.DeclareInstance event = new CompilerEvents.DeclareInstance();
+        event.begin();
 
-    public LLVMGenerator (LLVMActions actions) {
-        this.actions = actions;
+        boolean initialized = false;
+        StringBuilder values = new StringBuilder();
+        Iterator<GlobalVarExpression> iterator = classy.getFields().iterator();
+        GlobalVarExpression field;
+        while (iterator.hasNext()) {
+            field = iterator.next();
+            values.append(fieldType(field));
+            if (field.getObjectType() == ObjectType.ARRAY) {
+                List<Expression> elements = field.getElements();
+                if (elements.isEmpty()) {
+                    values.append(" zeroinitializer");
+                } else {
+                    initialized = true;
+                    values.append(" [");
+                    for (int i = 0; i < field.getNumberOfArguments(); i++) {
+                        values.append(field.getDataType().toLLVM() + " ");
+                        if (i < elements.size())
+                            values.append(((ValueExpression) elements.get(i)).getValue());
+                        else if (field.getDataType() == DataType.REAL)
+                            values.append("0.0");
+                        else
+                            values.append("0");
+                        if (i < field.getNumberOfArguments() - 1)
+                            values.append(", ");
+                    }
+                    values.append("]");
+                }
+            } else if (field.getDataType() == DataType.REAL) {
+                values.append(" 0.0");
+            } else {
+                values.append(" 0");
+            }
+            if (iterator.hasNext())
+                values.append(", ");
+        }
+
+        String value = "zeroinitializer";
+        if (initialized)
+            value = "{ " + values + " }";
+        llvm.appendToHeader(instance.getLLVMName() + " = global " + classy.getLLVMType() + " " + value + "\n");
+
+        if (event.shouldCommit()) {
+            event.classy = classy.getName();
+            event.instance = instance.getName();
+            event.generatorMethods = classy.getGeneratorMethods().size();
+            event.commit();
+        }
     }
 
-    public void generateOutput() {
-        StringBuilder text = new StringBuilder();
-        text.append("declare i32 @printf(i8*, ...)\n");
-        text.append("declare i32 @scanf(i8*, ...)\n");
-        text.append(systemVariables.get("printInt") + " = constant [4 x i8] c\"%d\\0A\\00\"\n");
-        text.append(systemVariables.get("printReal") + " = constant [4 x i8] c\"%f\\0A\\00\"\n");
-        text.append(systemVariables.get("scanInt") + " = constant [3 x i8] c\"%d\\00\"\n");
-        text.append(systemVariables.get("scanReal") + " = constant [4 x i8] c\"%lf\\00\"\n");
-        text.append("\n");
-        text.append(llvm);
-        System.out.println(text.toString());
+    private String fieldType(GlobalVarExpression field) {
+        if (field.getObjectType() == ObjectType.ARRAY)
+            return "[" + field.getNumberOfArguments() + " x " + field.getDataType().toLLVM() + "]";
+        return field.getDataType().toLLVM();
     }
 
-    public void startInstruction(Expression leftExpression, CompareType compareType, Expression rightExpression) {
-        llvm.append("  br label %compare" + instructionIndex + "\n\n", currentFunction);
-        llvm.append(" compare" + instructionIndex + ":\n", currentFunction);
+    private Operand fieldPointer(GlobalVarExpression field, Operand pointer) {
+        Classy classy = field.getClassy();
+        llvm.fieldPointer(varIndex, classy.getLLVMType(), owner(field), classy.getFieldIndex(field.getSymbol()));
+        return pointer.register(varIndex++);
+    }
 
-        leftExpression = allocate(leftExpression);
-        rightExpression = allocate(rightExpression);
+    //the index operand is overwritten with the pointer
+    private Operand elementPointer(GlobalVarExpression element, Operand index) {
+        Classy classy = element.getClassy();
+        llvm.elementPointer(varIndex, classy.getLLVMType(), owner(element), classy.getFieldIndex(element.getSymbol()), index);
+        return index.register(varIndex++);
+    }
+
+    //the receiver, or the instance an inlined method was called on
+    private String owner(GlobalVarExpression field) {
+        return field.getInstance() == null ? receiver : field.getInstance().getLLVMName();
+    }
+
+    //a while jumps back here, in front of the computations of its condition, which come before its startInstruction()
+    public void startLoop() {
+        llvm.br("compare", instructionIndex);
+        llvm.label("compare", instructionIndex);
+        loopStarted = true;
+    }
+
+    public void startInstruction(Expression leftExpression, CompareType compareType, Expression rightExpression) {
+        if (!loopStarted) {
+            llvm.br("compare", instructionIndex);
+            llvm.label("compare", instructionIndex);
+        }
+        loopStarted = false;
 
         DataType leftType = leftExpression.getDataType();
         DataType rightType = rightExpression.getDataType();
 
         boolean realComparison = false;
-        if (leftType == DataType.REAL || rightType == DataType.REAL) {
+        if (leftType == DataType.REAL || rightType == DataType.REAL)
             realComparison = true;
-            if (leftType != DataType.REAL) leftExpression = cast((UnnamedVarExpression) leftExpression, DataType.REAL);
-            if (rightType != DataType.REAL) rightExpression = cast((UnnamedVarExpression) rightExpression, DataType.REAL);
-        }
+        DataType comparisonType = realComparison ? DataType.REAL : DataType.INT;
 
-        int leftIndex = ((UnnamedVarExpression) leftExpression).getIndex();
-        int rightIndex = ((UnnamedVarExpression) rightExpression).getIndex();
-
-        String llvmType;
-        String llvmCompare;
-        String compareTypeString = compareType.toString();
-        if (realComparison) {
-            llvmType = "double";
-            llvmCompare = "fcmp";
-            switch (compareTypeString) {
-                case "eq":
-                    compareTypeString = "oeq";
-                    break;
-                case "slt":
-                    compareTypeString = "olt";
-                    break;
-                case "sle":
-                    compareTypeString = "ole";
-                    break;
-                case "sge":
-                    compareTypeString = "oge";
-                    break;
-                case "sgt":
-                    compareTypeString = "ogt";
-                    break;
-                case "ne":
-                    compareTypeString = "une";
-                    break;
-            }
-        } else {
-            llvmType = "i32";
-            llvmCompare = "icmp";
-        }
+        value(leftExpression, comparisonType, left);
+        value(rightExpression, comparisonType, right);
 
-        llvm.append("  %" + varIndex++ + " = load " + llvmType + ", " + llvmType + "* %" + leftIndex + "\n", currentFunction);
-        llvm.append("  %" + varIndex++ + " = load " + llvmType + ", " + llvmType + "* %" + rightIndex + "\n", currentFunction);
-        llvm.append("  %" + varIndex + " = " + llvmCompare + " " + compareTypeString + " " + llvmType + " %" + (varIndex - 2) + ", %" + (varIndex - 1) + "\n", currentFunction);
-        llvm.append("  br i1 %" + varIndex++ + ", label %then" + instructionIndex + ", label %end" + instructionIndex + "\n\n", currentFunction);
-        llvm.append(" then" + instructionIndex + ":\n", currentFunction);
+        llvm.compare(realComparison ? "fcmp" : "icmp", compareType.toLLVM(realComparison), comparisonType, varIndex, left, right);
+        llvm.br(varIndex++, "then", "end", instructionIndex);
+        llvm.label("then", instructionIndex);
 
         instructionStack.push(instructionIndex++);
     }
@@ -104,147 +177,97 @@ public class LLVMGenerator {
         String direction = "compare";
         if (instructionType.equals(InstructionType.IF))
             direction = "end";
-        llvm.append("  br label %" + direction + instructionToEnd + "\n\n", currentFunction);
-        llvm.append(" end" + instructionToEnd + ":\n", currentFunction);
+        llvm.br(direction, instructionToEnd);
+        llvm.label("end", instructionToEnd);
     }
 
-    public void callFunction(Instance instance, Method method, List<Expression> arguments) {
+    public void callFunction(Instance instance, Method method, List<Expression> arguments, UnnamedVarExpression result) {
         DataType dataType = method.getDataType();
-        String name = method.getName();
-        List<DataType> thisArguments = method.getArguments();
-
-        Iterator<Expression> argumentsIterator = arguments.iterator();
-        Expression argument;
-        DataType argumentType;
-        DataType expectedType;
-        StringBuilder buffer = new StringBuilder();
-        int i = 0;
-        while (argumentsIterator.hasNext()) {
-            argument = argumentsIterator.next();
-            argumentType = argument.getDataType();
-
-            expectedType = thisArguments.get(i);
-            if (!expectedType.equals(argumentType))
-                actions.printError("argument no. " + (i + 1) + " type is " + argumentType + ". Expected: " + expectedType);
-
-            allocate(argument);
-            llvm.append("  %" + varIndex + " = load " + argumentType.toLLVM() + ", " + argumentType.toLLVM() + "* %" + (varIndex - 2) + "\n\n", currentFunction);
-            buffer.append(argumentType.toLLVM() + " %" + varIndex);
-            if (argumentsIterator.hasNext())
-                buffer.append(", ");
-            varIndex++;
+
+        //argument types were checked by the listener, every argument is loaded before the call is written
+        while (argumentOperands.size() < arguments.size()) {
+            argumentOperands.add(new Operand());
+        }
+        for (int i = 0; i < arguments.size(); i++) {
+            value(arguments.get(i), argumentOperands.get(i));
         }
 
-        String fullName = "ret_" + instance.getName() + "_" + name;
-        if (!thisVariablesSet.contains(fullName)) {
-            llvm.append("  %var_" + fullName + " = alloca " + dataType.toLLVM() + "\n", currentFunction);
-            thisVariablesSet.add(fullName);
+        result.setIndex(varIndex);
+        llvm.startCall(dataType, varIndex++, method.getLLVMName(), instance.getClassy().getLLVMType(), instance.getLLVMName());
+        for (int i = 0; i < arguments.size(); i++) {
+            llvm.callArgument(arguments.get(i).getDataType(), argumentOperands.get(i));
         }
-        llvm.append("  %" + fullName + varIndex + " = call " + dataType.toLLVM() + " @func_" + instance.getName() + "_" + name + "(" + buffer + ")\n", currentFunction);
-        llvm.append("  store " + dataType.toLLVM() + " %" + fullName + varIndex + ", " + dataType.toLLVM() + "* %var_" + fullName + "\n\n", currentFunction);
+        llvm.endCall();
     }
 
-    public void declareFunction(Method method, List<Expression> arguments) {
+    public void declareFunction(Method method, List<NamedVarExpression> arguments) {
         DataType dataType = method.getDataType();
         String name = method.getName();
-        Instance instance = currentInstance;
 
         currentFunction = method;
-        thisVariablesSet = new HashSet<>();
         varIndex = 0;
+        functionEvent = new CompilerEvents.Function();
+        functionEvent.begin();
 
-        StringBuilder definition = new StringBuilder();
-        definition.append("\ndefine ");
-        switch (dataType) {
-            case INT:
-                definition.append("i32 ");
-                break;
-            case REAL:
-                definition.append("double ");
-                break;
+        localVariables.clear();
+
+        //main works on the main instance, other methods get their instance as the first argument
+        StringBuilder types = new StringBuilder();
+        if ("main".equals(name)) {
+            receiver = "@inst_main";
+        } else {
+            receiver = "%this";
+            types.append(currentClassy.getLLVMType() + "* " + receiver);
+            if (!arguments.isEmpty())
+                types.append(", ");
+        }
+        Iterator<NamedVarExpression> iterator = arguments.iterator();
+        while (iterator.hasNext()) {
+            types.append(iterator.next().getDataType().toLLVM());
+            if (iterator.hasNext())
+                types.append(", ");
         }
-        if ("main".equals(name))
-            llvm.appendToMainDeclaration(definition);
-        else
-            llvm.append(definition);
-        llvm.holdBuffer();
 
-        localVariables.put(name, new HashMap<>());
+        llvm.startFunction(currentClassy.getName() + "." + name);
+        llvm.appendToEntry("\ndefine " + dataType.toLLVM() + " " + method.getLLVMName() + "(" + types + ") nounwind { \n");
 
-        StringBuilder types = new StringBuilder();
-        Iterator<Expression> iterator = arguments.iterator();
-        Expression argument;
-        DataType argumentType;
+        iterator = arguments.iterator();
+        NamedVarExpression argument;
         while (iterator.hasNext()) {
             argument = iterator.next();
-            argumentType = argument.getDataType();
 
-            declareVariable(argument);
-            assignVariable(argument, new UnnamedVarExpression(ObjectType.VARIABLE, argumentType, varIndex));
+            declareVariable(argument, false);
+            assignVariable(argument, new UnnamedVarExpression(ObjectType.VARIABLE, argument.getDataType(), varIndex));
             varIndex++;
-            switch (argumentType) {
-                case INT:
-                    types.append("i32");
-                    break;
-                case REAL:
-                    types.append("double");
-                    break;
-            }
-            if (iterator.hasNext())
-                types.append(", ");
         }
         varIndex++;
-        String buffer = llvm.getBuffer();
-        llvm.releaseBuffer();
-        if (name.equals("main"))
-            llvm.appendToMainDeclaration("@main(" + types.toString() + ") nounwind { \n" + buffer);
-        else
-            llvm.append("@func_" + instance.getName() + "_" + name + "(" + types.toString() + ") nounwind { \n" + buffer);
-
     }
 
     public void doReturning(Expression expression) {
         DataType dataType = currentFunction.getDataType();
 
-        if (dataType != expression.getDataType())
-            actions.printError("types mismatch in give statement");
-
-        int memoryIndex = varIndex;
-        UnnamedVarExpression leftExpression = new UnnamedVarExpression(ObjectType.VARIABLE, expression.getDataType(), memoryIndex);
-        varIndex++;
-        assignVariable(leftExpression, expression);
-
-        UnnamedVarExpression resultExpression;
-        if (dataType != expression.getDataType())
-            resultExpression = cast(leftExpression, dataType);
-        else
-            resultExpression = leftExpression;
-
-        llvm.append("  %" + varIndex + " = load ", currentFunction);
-        switch (dataType) {
-            case INT:
-                llvm.append("i32, i32* ", currentFunction);
-                llvm.holdBuffer();
-                llvm.append("  ret i32 ", currentFunction);
-                break;
-            case REAL:
-                llvm.append("double, double* ", currentFunction);
-                llvm.holdBuffer();
-                llvm.append("  ret double ", currentFunction);
-                break;
-        }
-        llvm.append("%" + varIndex + "\n", currentFunction);
-        String buffer = llvm.getBuffer();
-        llvm.releaseBuffer();
-        llvm.append("%" + resultExpression.getIndex() + "\n" + buffer, currentFunction);
+        llvm.ret(dataType, value(expression, left));
+        varIndex++; //code after ret starts a new unnamed block
     }
 
     public void endFunctionDefinition() {
-        llvm.append("} \n", currentFunction);
+        llvm.append("} \n");
+        llvm.flush();
+        if (functionEvent.shouldCommit()) {
+            functionEvent.classy = currentClassy.getName();
+            functionEvent.function = currentFunction.getName();
+            functionEvent.commit();
+        }
+        currentFunction = null;
     }
 
     public void declareVariable(Expression expression) {
-        Class expressionClass = expression.getClass();
+        declareVariable(expression, true);
+    }
+
+    //zeroed locals are set to 0 in the entry block, parameters get their argument instead
+    private void declareVariable(Expression expression, boolean zeroed) {
+        Class<?> expressionClass = expression.getClass();
         ObjectType objectType = expression.getObjectType();
         DataType dataType = expression.getDataType();
         String name;
@@ -252,44 +275,23 @@ public class LLVMGenerator {
         switch (objectType) {
             case VARIABLE:
                 if (expressionClass.equals(GlobalVarExpression.class)) {
-                    name = ((GlobalVarExpression) expression).getName();
-                    Instance instance = currentInstance;
-
-                    switch (dataType) {
-                        case INT:
-                            llvm.appendToHeader("@var_" + instance.getName() + name + " = global i32 0\n");
-                            break;
-                        case REAL:
-                            llvm.appendToHeader("@var_" + instance.getName() + name + " = global double 0.0\n");
-                            break;
-                        case CHAR:
-                            break;
-                    }
-
+                    //fields are members of the classy struct, see declareClassy()
                 } else if (expressionClass.equals(NamedVarExpression.class)) {
-                    name = ((NamedVarExpression) expression).getName();
+                    NamedVarExpression variable = (NamedVarExpression) expression;
+                    name = variable.getName();
 
                     if (currentFunction == null)
-                        actions.printError("declaring local variable " + name + " outside a function body");
-
-                    String functionName = currentFunction.getName();
-                    Map<String, NamedVarExpression> thisVariables = localVariables.get(functionName);
-
-                    if (thisVariables.containsKey(name))
-                        actions.printError("declaring already existing lady " + name + " in function " + functionName + "()");
-                    thisVariables.put(name, (NamedVarExpression) expression);
-
-                    llvm.append("  %var_" + name + " = alloca ", currentFunction);
-                    switch (dataType) {
-                        case INT:
-                            llvm.append("i32", currentFunction);
-                            break;
-                        case REAL:
-                            llvm.append("double", currentFunction);
-                            break;
-                    }
-                    llvm.append("\n", currentFunction);
+                        actions.printError(line, "declaring local variable " + name + " outside a function body");
+
+                    if (localVariables.contains(variable.getSymbol()))
+                        actions.printError(line, "declaring already existing lady " + name + " in function " + currentFunction.getName() + "()");
+                    localVariables.put(variable.getSymbol(), variable);
 
+                    //all stack slots go to the entry block, so they are allocated once per call even when declared in a loop
+                    llvm.alloca(variable.getLLVMName(), dataType);
+                    //a local declared in a block that did not run is read as 0, as with --run and --run=jvm
+                    if (zeroed)
+                        llvm.zeroInEntry(variable.getLLVMName(), dataType);
                 }
                 break;
             case CONSTANT:
@@ -298,484 +300,192 @@ public class LLVMGenerator {
     }
 
     public void assignVariable(Expression leftExpression, Expression rightExpression) {
-        Class leftExpressionClass = leftExpression.getClass();
-        ObjectType leftObjectType = leftExpression.getObjectType();
-        DataType leftDataType = leftExpression.getDataType();
-        String leftName;
-        int leftIndex;
-        String leftFullName = null;
-        Instance leftInstance;
-
-        Class rightExpressionClass = rightExpression.getClass();
-        ObjectType rightObjectType = rightExpression.getObjectType();
-        DataType rightDataType = rightExpression.getDataType();
-        String rightName;
-        int rightIndex;
-        String rightFullName;
-        String textValue;
-        Instance rightInstance;
-
-        switch (leftObjectType) {
-            case VARIABLE:
-                if (leftExpressionClass.equals(GlobalVarExpression.class)) {
-                    leftName = ((GlobalVarExpression) leftExpression).getName();
-                    leftInstance = currentInstance;
-                    leftFullName = "@var_" + leftInstance.getName() + leftName;
-                } else if (leftExpressionClass.equals(UnnamedVarExpression.class)) {
-                    leftIndex = ((UnnamedVarExpression) leftExpression).getIndex();
-                    leftFullName = "%" + leftIndex;
-                    switch (rightDataType) {
-                        case INT:
-                            llvm.append("  %" + leftIndex + " = alloca i32 \n", currentFunction);
-                            break;
-                        case REAL:
-                            llvm.append("  %" + leftIndex + " = alloca double \n", currentFunction);
-                            break;
-                        case CHAR:
-                            break;
-                    }
-                } else if (leftExpressionClass.equals(NamedVarExpression.class)) {
-                    leftName = ((NamedVarExpression) leftExpression).getName();
-                    Map<String, NamedVarExpression> thisVariables = localVariables.get(currentFunction.getName());
-
-                    if (thisVariables.containsKey(leftName)) {
-                        leftFullName = "%var_" + leftName;
-                    } else
-                        actions.printError("assigning to non-existing lady " + leftName);
-
-                }
-                break;
-            case CONSTANT:
-                break;
-            case ARRAY_ELEMENT:
-                if (leftExpressionClass.equals(GlobalVarExpression.class)) {
-                    leftName = ((GlobalVarExpression) leftExpression).getName();
-                    UnnamedVarExpression indexExpression = ((UnnamedVarExpression) ((GlobalVarExpression) leftExpression).getLength());
-                    String leftIndexStr;
-                    leftInstance = currentInstance;
-
-                    GlobalVarExpression array = (GlobalVarExpression) leftExpression;
-                    String arrayName = "@var_" + leftInstance.getName() + array.getName();
-                    int arrayLength = array.getNumberOfArguments(); //using GlobalVarExpression.index to store array length
-
-                    if (array.getDataType() != rightDataType)
-                        actions.printError("array element type " + rightDataType + " not matching array type " + array.getDataType());
-
-                    if (indexExpression == null) {
-                        leftIndex = ((GlobalVarExpression) leftExpression).getNumberOfArguments();
-                        leftIndexStr = "" + leftIndex;
-                        switch (leftDataType) {
-                            case INT:
-                                leftFullName = "getelementptr inbounds ([" + arrayLength + " x i32], [" + arrayLength + " x i32]* " + arrayName + ", i64 0, i64 " + leftIndexStr + ")";
-                                break;
-                            case REAL:
-                                leftFullName = "getelementptr inbounds ([" + arrayLength + " x double], [" + arrayLength + " x double]* " + arrayName + ", i64 0, i64 " + leftIndexStr + ")";
-                                break;
-                            case CHAR:
-                                break;
-                        }
-                    } else {
-                        leftIndex = indexExpression.getIndex();
-                        llvm.append("  %" + varIndex++ + " = load i32, i32* %" + leftIndex + "\n", currentFunction);
-                        llvm.append("  %" + varIndex++ + " = sext i32 %" + (varIndex - 2) + " to i64 \n", currentFunction);
-                        leftIndexStr = "%" + (varIndex - 1);
-                        switch (leftDataType) {
-                            case INT:
-                                llvm.append("  %" + varIndex + " = getelementptr inbounds [" + arrayLength + " x i32], [" + arrayLength + " x i32]* " + arrayName + ", i64 0, i64 " + leftIndexStr + " \n", currentFunction);
-                                break;
-                            case REAL:
-                                llvm.append("  %" + varIndex + " = getelementptr inbounds [" + arrayLength + " x double], [" + arrayLength + " x double]* " + arrayName + ", i64 0, i64 " + leftIndexStr + " \n", currentFunction);
-                                break;
-                            case CHAR:
-                                break;
-                        }
-                        leftFullName = "%" + varIndex++;
-                    }
-
-
-                }
-                break;
-        }
-
-        switch (rightObjectType) {
-            case VARIABLE:
-                if (rightExpressionClass.equals(GlobalVarExpression.class)) {
-                    rightName = ((GlobalVarExpression) rightExpression).getName();
-                    rightInstance = currentInstance;
-
-                    switch (rightDataType) {
-                        case INT:
-                            llvm.append("  %" + varIndex + " = load i32, i32* @var_" + rightInstance.getName() + rightName + "\n", currentFunction);
-                            llvm.append("  store i32 %" + varIndex + ", i32* " + leftFullName + "\n\n", currentFunction);
-                            break;
-                        case REAL:
-                            llvm.append("  %" + varIndex + " = load double, double* @var_" + rightInstance.getName() + rightName + "\n", currentFunction);
-                            llvm.append("  store double %" + varIndex + ", double* " + leftFullName + "\n\n", currentFunction);
-                            break;
-                        case CHAR:
-                            break;
-                    }
-                    varIndex++;
-
-                } else if (rightExpressionClass.equals(NamedVarExpression.class)) {
-                  rightName = ((NamedVarExpression) rightExpression).getName();
-                  Map<String, NamedVarExpression> thisVariables = localVariables.get(currentFunction.getName());
-
-                    switch (rightDataType) {
-                        case INT:
-                            llvm.append("  %" + varIndex + " = load i32, i32* %var_" + rightName + "\n", currentFunction);
-                            llvm.append("  store i32 %" + varIndex + ", i32* " + leftFullName + "\n\n", currentFunction);
-                            break;
-                        case REAL:
-                            llvm.append("  %" + varIndex + " = load double, double* %var_" + rightName + "\n", currentFunction);
-                            llvm.append("  store double %" + varIndex + ", double* " + leftFullName + "\n\n", currentFunction);
-                            break;
-                        case CHAR:
-                            break;
-                    }
-                    varIndex++;
-
-                } else if (rightExpressionClass.equals(ValueExpression.class)) {
-                        textValue = ((ValueExpression) rightExpression).getValue().toString();
-                        switch (rightDataType) {
-                            case INT:
-                                llvm.append("  store i32 " + textValue + ", i32* " + leftFullName + "\n\n", currentFunction);
-                                break;
-                            case REAL:
-                                llvm.append("  store double " + textValue + ", double* " + leftFullName + "\n\n", currentFunction);
-                                break;
-                            case CHAR:
-                                break;
-                        }
-                } else if (rightExpressionClass.equals(UnnamedVarExpression.class)) {
-                            rightIndex = ((UnnamedVarExpression) rightExpression).getIndex();
-                            switch (rightDataType) {
-                                case INT:
-                                    llvm.append("  store i32 %" + rightIndex + ", i32* " + leftFullName + "\n\n", currentFunction);
-                                    break;
-                                case REAL:
-                                    llvm.append("  store double %" + rightIndex + ", double* " + leftFullName + "\n\n", currentFunction);
-                                    break;
-                                case CHAR:
-                                    break;
-                            }
-                }
-                break;
-            case ARRAY_ELEMENT:
-                Expression arrayIndex;
-                GlobalVarExpression array;
-                int arrayLength;
-                if (rightExpressionClass.equals(GlobalVarExpression.class)) {
-                    rightName = ((GlobalVarExpression) rightExpression).getName();
-                    rightInstance = currentInstance;
-
-                    array = (GlobalVarExpression) rightExpression;
-                    arrayLength = array.getNumberOfArguments();
-
-                    arrayIndex = ((GlobalVarExpression) rightExpression).getLength();
-                    llvm.append("  %" + varIndex++ + " = load i32, i32* %" + ((UnnamedVarExpression) arrayIndex).getIndex() + " \n", currentFunction);
-                    llvm.append("  %" + varIndex++ + " = sext i32 %" + (varIndex - 2) + " to i64 \n", currentFunction);
-
-                    switch (rightDataType) {
-                        case INT:
-                            rightFullName = "getelementptr inbounds [" + arrayLength + " x i32], [" + arrayLength + " x i32]* @var_" + rightInstance.getName() + rightName + ", i64 0, i64 %" + (varIndex - 1) + "";
-                            llvm.append("  %" + varIndex++ + " = " + rightFullName + "\n", currentFunction);
-                            llvm.append("  %" + varIndex + " = load i32, i32* %" + (varIndex - 1) + "\n", currentFunction);
-                            llvm.append("  store i32 %" + varIndex + ", i32* " + leftFullName + "\n\n", currentFunction);
-                            break;
-                        case REAL:
-                            rightFullName = "getelementptr inbounds [" + arrayLength + " x double], [" + arrayLength + " x double]* @var_" + rightInstance.getName() + rightName + ", i64 0, i64 %" + (varIndex - 1) + "";
-                            llvm.append("  %" + varIndex++ + " = " + rightFullName + "\n", currentFunction);
-                            llvm.append("  %" + varIndex + " = load double, double* %" + (varIndex - 1) + "\n", currentFunction);
-                            llvm.append("  store double %" + varIndex + ", double* " + leftFullName + "\n\n", currentFunction);
-                            break;
-                        case CHAR:
-                            break;
-                    }
-                    varIndex++;
-                }
-                break;
+        //a variable loaded once in front of a loop, see LoopInvariantMotion, the value is the register of the load
+        if (leftExpression.getClass().equals(UnnamedVarExpression.class)) {
+            ((UnnamedVarExpression) leftExpression).setIndex(register(value(rightExpression, right), rightExpression.getDataType()));
+            return;
         }
+        value(rightExpression, right);
+        pointer(leftExpression, left);
+        llvm.store(rightExpression.getDataType(), right, left);
     }
 
-    public void declareArray(Expression array, int length, List<Expression> elements) {
-        Class expressionClass = array.getClass();
-        DataType dataType = array.getDataType();
-        String name = null;
-        Instance instance;
-
-        if (expressionClass.equals(GlobalVarExpression.class)) {
-            name = ((GlobalVarExpression) array).getName();
-            instance = currentInstance;
-
-            switch (dataType) {
-                case INT:
-                    llvm.appendToHeader("@var_" + instance.getName() + name + " = global [" + length + " x i32] zeroinitializer \n");
-                    break;
-                case REAL:
-                    llvm.appendToHeader("@var_" + instance.getName() + name + " = global [" + length + " x double] zeroinitializer \n");
-                    break;
-                case CHAR:
-                    break;
-            }
-
-            Expression leftExpression = null;
-            Expression rightExpression;
-            Iterator<Expression> expressionIterator = elements.iterator();
-            int index = 0;
-            while (expressionIterator.hasNext()) {
-                rightExpression = expressionIterator.next();
-                if (expressionClass.equals(GlobalVarExpression.class))
-                    leftExpression = new GlobalVarExpression(ObjectType.ARRAY_ELEMENT, dataType, name, index, currentInstance.getClassy());//new UnnamedVarExpression(ObjectType.VARIABLE, DataType.INT, index));
-                assignVariable(leftExpression, rightExpression);
-                index++;
-            }
+    public void declareArray(GlobalVarExpression array, int length, List<Expression> elements) {
+        //arrays are members of the classy struct, outside a method body their elements are the initial value of each instance
+        if (currentFunction == null)
+            return;
+
+        Expression rightExpression;
+        Iterator<Expression> expressionIterator = elements.iterator();
+        int index = 0;
+        while (expressionIterator.hasNext()) {
+            rightExpression = expressionIterator.next();
+            value(rightExpression, right);
+            elementPointer(array, left.constant(index));
+            llvm.store(rightExpression.getDataType(), right, left);
+            index++;
         }
     }
 
-    public void calculate(Expression leftExpression, CalculationType calculationType, Expression rightExpression, boolean realCalculation) {
-        leftExpression = allocate(leftExpression);
-        rightExpression = allocate(rightExpression);
-
-        DataType leftType = leftExpression.getDataType();
-        DataType rightType = rightExpression.getDataType();
-
-        if (realCalculation) {
-            if (leftType != DataType.REAL) leftExpression = cast((UnnamedVarExpression) leftExpression, DataType.REAL);
-            if (rightType != DataType.REAL) rightExpression = cast((UnnamedVarExpression) rightExpression, DataType.REAL);
-        }
-
-        int leftIndex = ((UnnamedVarExpression) leftExpression).getIndex();
-        int rightIndex = ((UnnamedVarExpression) rightExpression).getIndex();
-
-        UnnamedVarExpression result;
-        String resultName;
-
-        if (realCalculation) {
-            resultName = "res_real";
-            if (!thisVariablesSet.contains(resultName)) {
-                llvm.append("  %var_" + resultName + " = alloca double \n", currentFunction);
-                thisVariablesSet.add(resultName);
-            }
-
-            llvm.append("  %" + varIndex++ + " = load double, double* %" + leftIndex + "\n", currentFunction);
-            llvm.append("  %" + varIndex++ + " = load double, double* %" + rightIndex + "\n", currentFunction);
-
-        } else {
-            resultName = "res_int";
-            if (!thisVariablesSet.contains(resultName)) {
-                llvm.append("  %var_" + resultName + " = alloca i32 \n", currentFunction);
-                thisVariablesSet.add(resultName);
-            }
-
-            llvm.append("  %" + varIndex++ + " = load i32, i32* %" + leftIndex + "\n", currentFunction);
-            llvm.append("  %" + varIndex++ + " = load i32, i32* %" + rightIndex + "\n", currentFunction);
-        }
-        varIndex--;
+    public void calculate(Expression leftExpression, CalculationType calculationType, Expression rightExpression, boolean realCalculation, UnnamedVarExpression result) {
+        String operation = null;
+        DataType dataType;
 
         if (realCalculation) {
+            dataType = DataType.REAL;
             switch (calculationType) {
                 case ADD:
-                    llvm.append("  %" + (varIndex++ + 1) + " = fadd double %" + (varIndex - 2) + ", %" + (varIndex - 1) + "\n\n", currentFunction);
+                    operation = "fadd";
                     break;
                 case SUB:
-                    llvm.append("  %" + (varIndex++ + 1) + " = fsub double %" + (varIndex - 2) + ", %" + (varIndex - 1) + "\n\n", currentFunction);
+                    operation = "fsub";
                     break;
                 case MUL:
-                    llvm.append("  %" + (varIndex++ + 1) + " = fmul double %" + (varIndex - 2) + ", %" + (varIndex - 1) + "\n\n", currentFunction);
+                    operation = "fmul";
                     break;
                 case DIV:
-                    llvm.append("  %" + (varIndex++ + 1) + " = fdiv double %" + (varIndex - 2) + ", %" + (varIndex - 1) + "\n\n", currentFunction);
+                    operation = "fdiv";
                     break;
             }
-            llvm.append("  store double %" + varIndex + ", double* %var_" + resultName + "\n", currentFunction);
         } else {
+            dataType = DataType.INT;
             switch (calculationType) {
                 case ADD:
-                    llvm.append("  %" + (varIndex++ + 1) + " = add nsw i32 %" + (varIndex - 2) + ", %" + (varIndex - 1) + "\n", currentFunction);
+                    operation = "add nsw";
                     break;
                 case SUB:
-                    llvm.append("  %" + (varIndex++ + 1) + " = sub nsw i32 %" + (varIndex - 2) + ", %" + (varIndex - 1) + "\n", currentFunction);
+                    operation = "sub nsw";
                     break;
                 case MUL:
-                    llvm.append("  %" + (varIndex++ + 1) + " = mul nsw i32 %" + (varIndex - 2) + ", %" + (varIndex - 1) + "\n", currentFunction);
+                    operation = "mul nsw";
                     break;
             }
-            llvm.append("  store i32 %" + varIndex + ", i32* %var_" + resultName + "\n", currentFunction);
         }
-        varIndex++;
+        value(leftExpression, dataType, left);
+        value(rightExpression, dataType, right);
+
+        result.setIndex(varIndex);
+        llvm.binop(operation, dataType, varIndex++, left, right);
     }
 
-    public UnnamedVarExpression allocate(Expression expression) {
+    //sets the operand to the value of an expression, loading it only when it lives in memory
+    private Operand value(Expression expression, Operand operand) {
         ObjectType objectType = expression.getObjectType();
         Object expressionClass = expression.getClass();
         DataType dataType = expression.getDataType();
-        String arrayName;
-        int index;
-        String fullName;
-        String textValue = null;
 
-        int resultIndex = varIndex;
-        varIndex++;
+        if (expressionClass.equals(ValueExpression.class))
+            return constant(((ValueExpression) expression).getValue(), operand);
+        if (expressionClass.equals(UnnamedVarExpression.class))
+            return operand.register(((UnnamedVarExpression) expression).getIndex());
 
-        switch (dataType) {
-            case INT:
-                llvm.append("  %" + resultIndex + " = alloca i32 \n", currentFunction);
-                break;
-            case REAL:
-                llvm.append("  %" + resultIndex + " = alloca double \n", currentFunction);
-                break;
-            case CHAR:
-                break;
+        switch (objectType) {
+            case VARIABLE:
+            case ARRAY_ELEMENT:
+                pointer(expression, operand);
+                llvm.load(dataType, varIndex, operand);
+                return operand.register(varIndex++);
+            default:
+                return null;
+        }
+    }
+
+    private Operand value(Expression expression, DataType dataType, Operand operand) {
+        if (expression.getDataType() == dataType)
+            return value(expression, operand);
+
+        if (expression.getClass().equals(ValueExpression.class)) {
+            Number number = (Number) ((ValueExpression) expression).getValue();
+            if (dataType == DataType.REAL)
+                return operand.constant(number.doubleValue());
+            return operand.constant(number.intValue());
         }
+        return cast(value(expression, operand), expression.getDataType(), dataType);
+    }
+
+    //the register holding the value of an operand, a constant is given one by adding it to zero
+    private int register(Operand operand, DataType dataType) {
+        if (operand.isRegister())
+            return operand.getRegister();
+        if (dataType == DataType.REAL)
+            llvm.binop("fadd", dataType, varIndex, left.constant(-0.0), operand);
+        else
+            llvm.binop("add", dataType, varIndex, left.constant(0), operand);
+        return varIndex++;
+    }
+
+    private Operand constant(Object value, Operand operand) {
+        if (value instanceof Double)
+            return operand.constant(((Double) value).doubleValue());
+        return operand.constant(((Number) value).intValue());
+    }
+
+    //sets the operand to the pointer to the memory of a variable, field or array element
+    private Operand pointer(Expression expression, Operand operand) {
+        Class<?> expressionClass = expression.getClass();
+        ObjectType objectType = expression.getObjectType();
 
         switch (objectType) {
             case VARIABLE:
                 if (expressionClass.equals(GlobalVarExpression.class)) {
-                    arrayName = ((GlobalVarExpression) expression).getName();
-                    Instance instance = currentInstance;
-                    fullName = "@var_" + instance.getName() + arrayName;
-                    textValue = "%" + varIndex;
-
-                    switch (dataType) {
-                        case INT:
-                            llvm.append("  %" + varIndex + " = load i32, i32* " + fullName + "\n", currentFunction);
-                            break;
-                        case REAL:
-                            llvm.append("  %" + varIndex + " = load double, double* " + fullName + "\n", currentFunction);
-                            break;
-                        case CHAR:
-                            break;
-                    }
-                    varIndex++;
+                    return fieldPointer((GlobalVarExpression) expression, operand);
                 } else if (expressionClass.equals(NamedVarExpression.class)) {
-                    arrayName = ((NamedVarExpression) expression).getName();
-                    fullName = "%var_" + arrayName;
-                    textValue = "%" + varIndex;
-                    Map<String, NamedVarExpression> thisVariables = localVariables.get(currentFunction.getName());
-                    switch (dataType) {
-                        case INT:
-                            llvm.append("  %" + varIndex + " = load i32, i32* " + fullName + "\n", currentFunction);
-                            break;
-                        case REAL:
-                            llvm.append("  %" + varIndex + " = load double, double* " + fullName + "\n", currentFunction);
-                            break;
-                        case CHAR:
-                            break;
-                    }
-                    varIndex++;
-                } else if (expressionClass.equals(ValueExpression.class)) {
-                    llvm.append("  %" + varIndex++ + " = alloca i32 \n", currentFunction);
-                    textValue = ((ValueExpression) expression).getValue().toString();
-                } else if (expressionClass.equals(UnnamedVarExpression.class)) {
-                    llvm.append("  %" + varIndex++ + " = alloca i32 \n", currentFunction);
-                    index = ((UnnamedVarExpression) expression).getIndex();
-                    textValue = "%" + index;
+                    NamedVarExpression variable = (NamedVarExpression) expression;
+                    if (!localVariables.contains(variable.getSymbol()))
+                        actions.printError(line, "assigning to non-existing lady " + variable.getName());
+                    return operand.name(variable.getLLVMName());
                 }
                 break;
-            case CONSTANT:
-                break;
-            case ARRAY:
-                break;
             case ARRAY_ELEMENT:
-                GlobalVarExpression array;
-                int arrayLength;
                 if (expressionClass.equals(GlobalVarExpression.class)) {
-                    arrayName = ((GlobalVarExpression) expression).getName();
-                    Instance instance = currentInstance;
-
-                    array = (GlobalVarExpression) expression;
-                    arrayLength = array.getNumberOfArguments();
-
-                    index = ((UnnamedVarExpression) ((GlobalVarExpression) expression).getLength()).getIndex();
-                    llvm.append("  %" + varIndex++ + " = load i32, i32* %" + index + "\n", currentFunction);
-                    llvm.append("  %" + varIndex++ + " = sext i32 %" + (varIndex - 2) + " to i64 \n", currentFunction);
-                    textValue = "%" + (varIndex + 1);
-
-                    switch (dataType) {
-                        case INT:
-                            fullName = "getelementptr inbounds [" + arrayLength + " x i32], [" + arrayLength + " x i32]* @var_" + instance.getName() + arrayName + ", i64 0, i64 %" + (varIndex - 1) + "";
-                            llvm.append("  %" + varIndex++ + " = " + fullName + "\n", currentFunction);
-                            llvm.append("  %" + varIndex + " = load i32, i32* %" + (varIndex - 1) + "\n", currentFunction);
-                            break;
-                        case REAL:
-                            fullName = "getelementptr inbounds [" + arrayLength + " x double], [" + arrayLength + " x double]* @var_" + instance.getName() + arrayName + ", i64 0, i64 %" + (varIndex - 1) + "";
-                            llvm.append("  %" + varIndex++ + " = " + fullName + "\n", currentFunction);
-                            llvm.append("  %" + varIndex + " = load double, double* %" + (varIndex - 1) + "\n", currentFunction);
-                            break;
-                        case CHAR:
-                            break;
+                    GlobalVarExpression element = (GlobalVarExpression) expression;
+                    Expression indexExpression = element.getLength();
+
+                    if (indexExpression == null) {
+                        operand.constant(element.getNumberOfArguments()); //constant index of an array initializer
+                    } else {
+                        value(indexExpression, operand);
+                        llvm.convert("sext", "i32", operand, "i64", varIndex);
+                        operand.register(varIndex++);
                     }
-                    varIndex++;
+                    return elementPointer(element, operand);
                 }
                 break;
         }
-
-        switch (dataType) {
-            case INT:
-                llvm.append("  store i32 " + textValue + ", i32* %" + resultIndex + "\n\n", currentFunction);
-                break;
-            case REAL:
-                llvm.append("  store double " + textValue + ", double* %" + resultIndex + "\n\n", currentFunction);
-                break;
-            case CHAR:
-                break;
-        }
-
-
-        return new UnnamedVarExpression(ObjectType.VARIABLE, dataType, resultIndex);
+        return null;
     }
 
-    private UnnamedVarExpression cast(UnnamedVarExpression expression, DataType newType) {
-        DataType previousType = expression.getDataType();
-        int index = expression.getIndex();
-
-        int resultIndex = varIndex++;
-
+    private Operand cast(Operand value, DataType previousType, DataType newType) {
         switch (newType) {
             case INT:
-                llvm.append("  %" + resultIndex + " = alloca i32 \n", currentFunction);
                 switch (previousType) {
                     case REAL:
-                        llvm.append("  %" + (varIndex++) + " = load double, double* %" + index + "\n", currentFunction);
-                        llvm.append("  %" + (varIndex++) + " = fptosi double %" + (varIndex - 2) + " to i32 \n", currentFunction);
-                        llvm.append("  store i32 %" + (varIndex - 1) + ", i32* %" + resultIndex + "\n\n", currentFunction);
+                        llvm.convert("fptosi", "double", value, "i32", varIndex);
                         break;
                 }
                 break;
             case REAL:
-                llvm.append("  %" + resultIndex + " = alloca double \n", currentFunction);
                 switch (previousType) {
                     case INT:
-                        llvm.append("  %" + (varIndex++) + " = load i32, i32* %" + index + "\n", currentFunction);
-                        llvm.append("  %" + (varIndex++) + " = sitofp i32 %" + (varIndex - 2) + " to double \n", currentFunction);
-                        llvm.append("  store double %" + (varIndex - 1) + ", double* %" + resultIndex + "\n\n", currentFunction);
+                        llvm.convert("sitofp", "i32", value, "double", varIndex);
                         break;
                 }
                 break;
         }
 
-        return new UnnamedVarExpression(ObjectType.VARIABLE, newType, resultIndex);
+        return value.register(varIndex++);
     }
 
     public void print(Expression expression) {
         DataType dataType = expression.getDataType();
-
-        int memoryIndex = varIndex;
-        UnnamedVarExpression leftExpression = new UnnamedVarExpression(ObjectType.VARIABLE, dataType, memoryIndex);
-        varIndex++;
-        assignVariable(leftExpression, expression);
+        value(expression, left);
 
         switch (dataType) {
             case INT:
-                llvm.append("  %" + varIndex + " = load i32, i32* %" + memoryIndex + "\n", currentFunction);
-                varIndex++;
-                llvm.append("  %" + varIndex + " = call i32 (i8* , ...) @printf(i8* getelementptr inbounds ([4 x i8], [4 x i8]*" + systemVariables.get("printInt") + ", i32 0, i32 0), i32 %" + (varIndex - 1) + ")\n\n", currentFunction);
+                llvm.call(varIndex, PRINT_INT, left);
                 break;
             case REAL:
-                llvm.append("  %" + varIndex + " = load double, double* %" + memoryIndex + "\n", currentFunction);
-                varIndex++;
-                llvm.append("  %" + varIndex + " = call i32 (i8* , ...) @printf(i8* getelementptr inbounds ([4 x i8], [4 x i8]*" + systemVariables.get("printReal") + ", i32 0, i32 0), double %" + (varIndex - 1) + ")\n\n", currentFunction);
+                llvm.call(varIndex, PRINT_REAL, left);
                 break;
             case CHAR:
                 break;
@@ -793,26 +503,14 @@ public class LLVMGenerator {
     */
 
     public void scan(DataType dataType, Expression expression) {
-        Object expressionClass = expression.getClass();
-        String name;
-        String fullName = null;
-
-        if (expressionClass.equals(GlobalVarExpression.class)) {
-            name = ((GlobalVarExpression) expression).getName();
-            Instance instance = currentInstance;
-            fullName = "@var_" + instance.getName() + name;
-
-        } else if (expressionClass.equals(NamedVarExpression.class)) {
-            name = ((NamedVarExpression) expression).getName();
-            fullName = "%var_" + name;
-        }
+        pointer(expression, left);
 
         switch (dataType) {
             case INT:
-                llvm.append("  %" + varIndex + " = call i32 (i8*, ...) @scanf(i8* getelementptr inbounds ([3 x i8], [3 x i8]* " + systemVariables.get("scanInt") + ", i32 0, i32 0), i32* " + fullName + ")\n\n", currentFunction);
+                llvm.call(varIndex, SCAN_INT, left);
                 break;
             case REAL:
-                llvm.append("  %" + varIndex + " = call i32 (i8*, ...) @scanf(i8* getelementptr inbounds ([4 x i8], [4 x i8]* " + systemVariables.get("scanReal") + ", i32 0, i32 0), double* " + fullName + ")\n\n", currentFunction);
+                llvm.call(varIndex, SCAN_REAL, left);
                 break;
             case CHAR:
                 break;
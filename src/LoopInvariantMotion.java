@@ -0,0 +1,264 @@
+import java.util.*;
+
+//moves what gives the same value on every iteration of a while loop in front of the loop, runs on the GeneratorMethods the ConstantFolder gives
+//calculations of invariant operands move as they are, locals and fields the loop never writes are loaded once into a value that replaces them in the loop
+public class LoopInvariantMotion {
+    public List<GeneratorMethod> hoist(List<GeneratorMethod> generatorMethods) {
+        List<GeneratorMethod> result = new ArrayList<>(generatorMethods.size());
+        hoist(generatorMethods, 0, generatorMethods.size(), result);
+        return result;
+    }
+
+    //copies the GeneratorMethods from start to end into result, inner loops first so what they hoisted may move further out
+    private void hoist(List<GeneratorMethod> generatorMethods, int start, int end, List<GeneratorMethod> result) {
+        GeneratorMethod generatorMethod;
+        for (int i = start; i < end; i++) {
+            generatorMethod = generatorMethods.get(i);
+            int loopEnd = generatorMethod.getType() == GeneratorMethodType.START_LOOP ? findLoopEnd(generatorMethods, i, end) : -1;
+            if (loopEnd < 0) {
+                result.add(generatorMethod);
+                continue;
+            }
+            List<GeneratorMethod> body = new ArrayList<>();
+            hoist(generatorMethods, i + 1, loopEnd, body);
+            new Loop(body).hoist(result);
+            result.add(generatorMethod);
+            result.addAll(body);
+            result.add(generatorMethods.get(loopEnd));
+            i = loopEnd;
+        }
+    }
+
+    //the end of the while started at start, its condition holds no instructions so the first one after start is the while itself
+    private int findLoopEnd(List<GeneratorMethod> generatorMethods, int start, int end) {
+        int depth = 0;
+        for (int i = start + 1; i < end; i++) {
+            switch (generatorMethods.get(i).getType()) {
+                case START_INSTRUCTION:
+                    depth++;
+                    break;
+                case END_INSTRUCTION:
+                    depth--;
+                    if (depth == 0)
+                        return ((GeneratorMethod.EndInstruction) generatorMethods.get(i)).getInstructionType() == InstructionType.WHILE ? i : -1;
+                    break;
+            }
+        }
+        return -1;
+    }
+
+    //one loop body, from the head to the end of the while
+    private static final class Loop {
+        private final List<GeneratorMethod> body;
+        private final Set<Integer> writtenLocals = new HashSet<>(); //by symbol
+        private final Set<Integer> writtenFields = new HashSet<>();
+        private final Set<Expression> values = Collections.newSetFromMap(new IdentityHashMap<>()); //computed in the loop
+        private final Set<Expression> hoisted = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final Map<Integer, UnnamedVarExpression> loadedLocals = new HashMap<>();
+        private final Map<Instance, Map<Integer, UnnamedVarExpression>> loadedFields = new HashMap<>(); //fields of inlined methods belong to their instance, the key of the others is null
+        private boolean calls = false; //a called method may write any field of any instance
+
+        private Loop(List<GeneratorMethod> body) {
+            this.body = body;
+            GeneratorMethod generatorMethod;
+            for (int i = 0; i < body.size(); i++) {
+                generatorMethod = body.get(i);
+                switch (generatorMethod.getType()) {
+                    case CALL_FUNCTION:
+                        calls = true;
+                        values.add(((GeneratorMethod.CallFunction) generatorMethod).getResult());
+                        break;
+                    case CALCULATION:
+                        values.add(((GeneratorMethod.Calculation) generatorMethod).getResult());
+                        break;
+                    case DECLARE_VARIABLE:
+                        write(((GeneratorMethod.DeclareVariable) generatorMethod).getExpression());
+                        break;
+                    case ASSIGN_VARIABLE:
+                        write(((GeneratorMethod.AssignVariable) generatorMethod).getLeftExpression());
+                        break;
+                    case SCAN:
+                        write(((GeneratorMethod.Scan) generatorMethod).getExpression());
+                        break;
+                    case DECLARE_ARRAY:
+                        writtenFields.add(((GeneratorMethod.DeclareArray) generatorMethod).getArray().getSymbol());
+                        break;
+                }
+            }
+        }
+
+        private void write(Expression expression) {
+            Class<?> expressionClass = expression.getClass();
+            if (expressionClass.equals(NamedVarExpression.class))
+                writtenLocals.add(((NamedVarExpression) expression).getSymbol());
+            else if (expressionClass.equals(GlobalVarExpression.class))
+                writtenFields.add(((GlobalVarExpression) expression).getSymbol());
+            else if (expressionClass.equals(UnnamedVarExpression.class))
+                values.add(expression);
+        }
+
+        //adds the hoisted GeneratorMethods to preheader, the body keeps the rest with the loaded variables replaced
+        private void hoist(List<GeneratorMethod> preheader) {
+            List<GeneratorMethod> remaining = new ArrayList<>(body.size());
+            GeneratorMethod generatorMethod;
+            for (int i = 0; i < body.size(); i++) {
+                generatorMethod = body.get(i);
+                switch (generatorMethod.getType()) {
+                    case CALCULATION:
+                        GeneratorMethod.Calculation calculation = (GeneratorMethod.Calculation) generatorMethod;
+                        if (isInvariant(calculation.getLeftExpression()) && isInvariant(calculation.getRightExpression())) {
+                            preheader.add(replaceLoads(calculation, preheader));
+                            hoisted.add(calculation.getResult());
+                            continue;
+                        }
+                        break;
+                    case ASSIGN_VARIABLE:
+                        //a value an inner loop loaded in front of itself
+                        GeneratorMethod.AssignVariable assignVariable = (GeneratorMethod.AssignVariable) generatorMethod;
+                        if (assignVariable.getLeftExpression().getClass().equals(UnnamedVarExpression.class) && isInvariant(assignVariable.getRightExpression())) {
+                            preheader.add(assignVariable);
+                            hoisted.add(assignVariable.getLeftExpression());
+                            continue;
+                        }
+                        break;
+                }
+                remaining.add(replaceLoads(generatorMethod, preheader));
+            }
+            body.clear();
+            body.addAll(remaining);
+        }
+
+        //array elements stay, reading one in front of the loop could fail where the loop never reads it
+        private boolean isInvariant(Expression expression) {
+            Class<?> expressionClass = expression.getClass();
+            if (expressionClass.equals(ValueExpression.class))
+                return true;
+            if (expressionClass.equals(UnnamedVarExpression.class))
+                return !values.contains(expression) || hoisted.contains(expression);
+            if (expression.getDataType() == DataType.CHAR)
+                return false;
+            if (expressionClass.equals(NamedVarExpression.class))
+                return !writtenLocals.contains(((NamedVarExpression) expression).getSymbol());
+            if (expressionClass.equals(GlobalVarExpression.class) && expression.getObjectType() == ObjectType.VARIABLE)
+                return !calls && !writtenFields.contains(((GlobalVarExpression) expression).getSymbol());
+            return false;
+        }
+
+        private GeneratorMethod replaceLoads(GeneratorMethod generatorMethod, List<GeneratorMethod> preheader) {
+            switch (generatorMethod.getType()) {
+                case START_INSTRUCTION:
+                    GeneratorMethod.StartInstruction startInstruction = (GeneratorMethod.StartInstruction) generatorMethod;
+                    Expression left = load(startInstruction.getLeftExpression(), preheader);
+                    Expression right = load(startInstruction.getRightExpression(), preheader);
+                    if (left != startInstruction.getLeftExpression() || right != startInstruction.getRightExpression())
+                        return new GeneratorMethod.StartInstruction(left, startInstruction.getCompareType(), right);
+                    break;
+                case CALL_FUNCTION:
+                    GeneratorMethod.CallFunction callFunction = (GeneratorMethod.CallFunction) generatorMethod;
+                    List<Expression> arguments = load(callFunction.getArguments(), preheader);
+                    if (arguments != callFunction.getArguments())
+                        return new GeneratorMethod.CallFunction(callFunction.getInstance(), callFunction.getMethod(), arguments, callFunction.getResult());
+                    break;
+                case DO_RETURNING:
+                    GeneratorMethod.DoReturning doReturning = (GeneratorMethod.DoReturning) generatorMethod;
+                    Expression returned = load(doReturning.getExpression(), preheader);
+                    if (returned != doReturning.getExpression())
+                        return new GeneratorMethod.DoReturning(returned);
+                    break;
+                case CALCULATION:
+                    GeneratorMethod.Calculation calculation = (GeneratorMethod.Calculation) generatorMethod;
+                    left = load(calculation.getLeftExpression(), preheader);
+                    right = load(calculation.getRightExpression(), preheader);
+                    if (left != calculation.getLeftExpression() || right != calculation.getRightExpression())
+                        return new GeneratorMethod.Calculation(left, calculation.getCalculationType(), right, calculation.isRealCalculation(), calculation.getResult());
+                    break;
+                case ASSIGN_VARIABLE:
+                    GeneratorMethod.AssignVariable assignVariable = (GeneratorMethod.AssignVariable) generatorMethod;
+                    Expression target = loadIndex(assignVariable.getLeftExpression(), preheader);
+                    Expression value = load(assignVariable.getRightExpression(), preheader);
+                    if (target != assignVariable.getLeftExpression() || value != assignVariable.getRightExpression())
+                        return new GeneratorMethod.AssignVariable(target, value);
+                    break;
+                case PRINT:
+                    GeneratorMethod.Print print = (GeneratorMethod.Print) generatorMethod;
+                    Expression printed = load(print.getExpression(), preheader);
+                    if (printed != print.getExpression())
+                        return new GeneratorMethod.Print(printed);
+                    break;
+                case SCAN:
+                    GeneratorMethod.Scan scan = (GeneratorMethod.Scan) generatorMethod;
+                    Expression scanned = loadIndex(scan.getExpression(), preheader);
+                    if (scanned != scan.getExpression())
+                        return new GeneratorMethod.Scan(scan.getDataType(), scanned);
+                    break;
+                case DECLARE_ARRAY:
+                    GeneratorMethod.DeclareArray declareArray = (GeneratorMethod.DeclareArray) generatorMethod;
+                    List<Expression> elements = load(declareArray.getElements(), preheader);
+                    if (elements != declareArray.getElements())
+                        return new GeneratorMethod.DeclareArray(declareArray.getArray(), declareArray.getLength(), elements);
+                    break;
+            }
+            return generatorMethod;
+        }
+
+        //the same list when nothing was replaced
+        private List<Expression> load(List<Expression> expressions, List<GeneratorMethod> preheader) {
+            List<Expression> loaded = expressions;
+            Expression expression;
+            for (int i = 0; i < expressions.size(); i++) {
+                expression = load(expressions.get(i), preheader);
+                if (expression == expressions.get(i))
+                    continue;
+                if (loaded == expressions)
+                    loaded = new ArrayList<>(expressions);
+                loaded.set(i, expression);
+            }
+            return loaded;
+        }
+
+        //an invariant local or field becomes the value loaded once in front of the loop
+        private Expression load(Expression expression, List<GeneratorMethod> preheader) {
+            Class<?> expressionClass = expression.getClass();
+            if (expressionClass.equals(ValueExpression.class) || expressionClass.equals(UnnamedVarExpression.class))
+                return expression;
+            if (!isInvariant(expression))
+                return loadIndex(expression, preheader);
+
+            Map<Integer, UnnamedVarExpression> loaded;
+            int symbol;
+            if (expressionClass.equals(NamedVarExpression.class)) {
+                loaded = loadedLocals;
+                symbol = ((NamedVarExpression) expression).getSymbol();
+            } else {
+                GlobalVarExpression field = (GlobalVarExpression) expression;
+                loaded = loadedFields.get(field.getInstance());
+                if (loaded == null) {
+                    loaded = new HashMap<>();
+                    loadedFields.put(field.getInstance(), loaded);
+                }
+                symbol = field.getSymbol();
+            }
+            UnnamedVarExpression value = loaded.get(symbol);
+            if (value == null) {
+                value = new UnnamedVarExpression(ObjectType.VARIABLE, expression.getDataType());
+                loaded.put(symbol, value);
+                preheader.add(new GeneratorMethod.AssignVariable(value, expression));
+            }
+            return value;
+        }
+
+        //the element itself is read or written in the loop, only its index may be loaded in front of it
+        private Expression loadIndex(Expression expression, List<GeneratorMethod> preheader) {
+            if (expression.getObjectType() != ObjectType.ARRAY_ELEMENT || !expression.getClass().equals(GlobalVarExpression.class))
+                return expression;
+            GlobalVarExpression element = (GlobalVarExpression) expression;
+            Expression index = element.getLength();
+            if (index == null)
+                return expression;
+            Expression loaded = load(index, preheader);
+            if (loaded == index)
+                return expression;
+            return new GlobalVarExpression(element, loaded, element.getInstance());
+        }
+    }
+}
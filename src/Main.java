@@ -1,22 +1,119 @@
-import org.antlr.v4.runtime.ANTLRFileStream;
-import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
 
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Paths;
+import java.util.Iterator;
+
 public class Main {
+    private static final String USAGE = "usage: Main <file.mk> [--cache <directory>] [--max-errors n] [--inline-limit n] [--stats|--stats=json] [--emit=ll|--emit=bc] [--run|--run=jvm]";
+
     public static void main(String[] args) throws Exception {
+        if (args.length == 0)
+            usage();
         String fileName = args[0];
-        ANTLRFileStream input = new ANTLRFileStream(fileName);
+        ClassyCache cache = null;
+        int errorLimit = LLVMActions.DEFAULT_ERROR_LIMIT;
+        int inlineLimit = Inliner.DEFAULT_LIMIT;
+        CompilationStats stats = null;
+        boolean statsAsJson = false;
+        boolean bitcode = false;
+        boolean run = false;
+        boolean jvm = false;
+        for (int i = 1; i < args.length; i++) {
+            if ("--cache".equals(args[i]) && i + 1 < args.length)
+                cache = new ClassyCache(Paths.get(args[++i])); //IR of unchanged classies is taken from this directory
+            else if ("--max-errors".equals(args[i]) && i + 1 < args.length)
+                errorLimit = Integer.parseInt(args[++i]);
+            else if ("--inline-limit".equals(args[i]) && i + 1 < args.length)
+                inlineLimit = Integer.parseInt(args[++i]); //size of the largest method inlined at its calls, 0 inlines nothing
+            else if ("--stats".equals(args[i]) || "--stats=json".equals(args[i])) {
+                stats = new CompilationStats(); //printed to stderr, the IR stays alone on stdout
+                statsAsJson = "--stats=json".equals(args[i]);
+            } else if ("--emit=bc".equals(args[i]))
+                bitcode = true; //bitcode instead of IR text on stdout
+            else if ("--emit=ll".equals(args[i]))
+                bitcode = false;
+            else if ("--run".equals(args[i]))
+                run = true; //runs the program with the interpreter, nothing is generated
+            else if ("--run=jvm".equals(args[i])) {
+                run = true; //runs the program as JVM bytecode instead, compiled further by the JIT
+                jvm = true;
+            } else
+                usage();
+        }
+        CharStream input = CharStreams.fromPath(Paths.get(fileName));
+        SyntaxErrorListener errorListener = new SyntaxErrorListener();
 
-        MKLexer lexer = new MKLexer(input);
+        ParseTree tree = SourceParser.parse(input, errorListener, stats);
+        if (errorListener.hasErrors()) {
+            Iterator<Diagnostic> iterator = errorListener.getErrors().iterator();
+            while (iterator.hasNext()) {
+                System.err.println(iterator.next().format(fileName));
+            }
+            System.exit(1);
+        }
 
-        CommonTokenStream tokens = new CommonTokenStream(lexer);
-        MKParser parser = new MKParser(tokens);
+        ParseTreeWalker walker = new ParseTreeWalker();
+        Writer writer = bitcode ? new BitcodeWriter(System.out) : new BufferedWriter(new OutputStreamWriter(System.out));
+        LLVMActions actions = new LLVMActions(fileName, writer, cache, errorLimit);
+        actions.setStats(stats);
+        actions.setInlineLimit(inlineLimit);
+        actions.setGenerate(!run);
+        long start = System.nanoTime();
+        long allocated = stats == null ? -1 : CompilationStats.allocatedBytes();
+        if (stats != null)
+            stats.addPhase("walk", 0, 0); //keeps the phases in the order they run
+        try {
+            walker.walk(actions, tree);
+        } catch (CompilationException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
 
-        ParseTree tree = parser.file();
+        if (stats != null) {
+            //waiting for and writing the generated classies happens inside the walk, but is reported on its own
+            long walkBytes = CompilationStats.allocatedSince(allocated);
+            stats.addPhase("walk", System.nanoTime() - start - stats.getNanos("wait") - stats.getNanos("write"), walkBytes < 0 ? -1 : walkBytes - stats.getBytes("write"));
+        }
 
-        ParseTreeWalker walker = new ParseTreeWalker();
-        walker.walk(new LLVMActions(fileName), tree);
+        if (bitcode && !run) {
+            long assembleStart = System.nanoTime();
+            long assembleAllocated = stats == null ? -1 : CompilationStats.allocatedBytes();
+            writer.close();
+            if (stats != null)
+                stats.addPhase("bitcode", System.nanoTime() - assembleStart, CompilationStats.allocatedSince(assembleAllocated));
+        }
+
+        int status = 0;
+        if (run) {
+            long runStart = System.nanoTime();
+            long runAllocated = stats == null ? -1 : CompilationStats.allocatedBytes();
+            try {
+                if (jvm)
+                    status = new JvmProgram(actions.getClassies(), inlineLimit).run(System.in, System.out);
+                else
+                    status = new Interpreter(actions.getClassies(), inlineLimit).run(System.in, System.out);
+            } catch (IllegalStateException e) {
+                System.err.println("Runtime error: " + e.getMessage());
+                System.exit(1);
+            }
+            if (stats != null)
+                stats.addPhase("run", System.nanoTime() - runStart, CompilationStats.allocatedSince(runAllocated));
+        }
+
+        if (stats != null)
+            System.err.print(statsAsJson ? stats.toJson() : stats.format());
+        if (status != 0)
+            System.exit(status); //like the compiled program, main() gives the exit status
+    }
 
+    private static void usage() {
+        System.err.println(USAGE);
+        System.exit(1);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,128 @@
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+//compiles every given .mk file, or every .mk file in a given directory, to a .ll file, or with --emit=bc a .bc file, next to it
+public class MainBatch {
+    private static final String USAGE = "usage: MainBatch <file.mk | directory>... [--cache <directory>] [--max-errors n] [--inline-limit n] [--emit=bc]";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0)
+            usage();
+        List<Path> files = new ArrayList<>();
+        Path cacheDirectory = null;
+        int errorLimit = LLVMActions.DEFAULT_ERROR_LIMIT;
+        int inlineLimit = Inliner.DEFAULT_LIMIT;
+        boolean bitcode = false;
+        for (int i = 0; i < args.length; i++) {
+            if ("--cache".equals(args[i]) && i + 1 < args.length) {
+                cacheDirectory = Paths.get(args[++i]);
+            } else if ("--max-errors".equals(args[i]) && i + 1 < args.length) {
+                errorLimit = Integer.parseInt(args[++i]);
+            } else if ("--inline-limit".equals(args[i]) && i + 1 < args.length) {
+                inlineLimit = Integer.parseInt(args[++i]);
+            } else if ("--emit=bc".equals(args[i])) {
+                bitcode = true;
+            } else if (args[i].startsWith("--")) {
+                usage();
+            } else {
+                Path path = Paths.get(args[i]);
+                if (Files.isDirectory(path)) {
+                    try (Stream<Path> stream = Files.walk(path)) {
+                        files.addAll(stream.filter(file -> file.toString().endsWith(".mk")).sorted().collect(Collectors.toList()));
+                    }
+                } else
+                    files.add(path);
+            }
+        }
+
+        //every file gets its own listener, generator and builder, nothing is shared between the tasks
+        List<Callable<String>> tasks = new ArrayList<>(files.size());
+        Iterator<Path> iterator = files.iterator();
+        while (iterator.hasNext()) {
+            Path file = iterator.next();
+            Path cache = cacheDirectory;
+            int limit = errorLimit;
+            int inline = inlineLimit;
+            boolean emitBitcode = bitcode;
+            tasks.add(() -> compile(file, cache, limit, inline, emitBitcode));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool();
+        List<Future<String>> results;
+        try {
+            results = pool.invokeAll(tasks);
+        } finally {
+            pool.shutdown();
+        }
+
+        List<String> failures = new ArrayList<>();
+        for (int i = 0; i < results.size(); i++) {
+            String failure;
+            try {
+                failure = results.get(i).get();
+            } catch (ExecutionException e) {
+                failure = e.getCause() + " in " + files.get(i);
+            }
+            if (failure != null)
+                failures.add(failure);
+        }
+
+        System.err.println("Compiled " + (files.size() - failures.size()) + " of " + files.size() + " file(s)");
+        Iterator<String> failureIterator = failures.iterator();
+        while (failureIterator.hasNext()) {
+            System.err.println("  " + failureIterator.next().replace("\n", "\n  "));
+        }
+        if (!failures.isEmpty())
+            System.exit(1);
+    }
+
+    //returns null on success or the reason the file was not compiled
+    private static String compile(Path file, Path cacheDirectory, int errorLimit, int inlineLimit, boolean bitcode) throws IOException {
+        String fileName = file.toString();
+        CharStream input = CharStreams.fromPath(Paths.get(fileName));
+        SyntaxErrorListener errorListener = new SyntaxErrorListener();
+
+        ParseTree tree = SourceParser.parse(input, errorListener);
+        if (errorListener.hasErrors())
+            return errorListener.getErrors().get(0).format(fileName) + (errorListener.getErrors().size() > 1 ? " and " + (errorListener.getErrors().size() - 1) + " more" : "");
+
+        String extension = bitcode ? ".bc" : ".ll";
+        String targetName = (fileName.endsWith(".mk") ? fileName.substring(0, fileName.length() - 3) : fileName) + extension;
+        Path target = Paths.get(targetName);
+        ClassyCache cache = cacheDirectory == null ? null : new ClassyCache(cacheDirectory);
+
+        ParseTreeWalker walker = new ParseTreeWalker();
+        try (Writer writer = bitcode ? new BitcodeWriter(Files.newOutputStream(target)) : Files.newBufferedWriter(target)) {
+            LLVMActions actions = new LLVMActions(fileName, writer, cache, errorLimit);
+            actions.setInlineLimit(inlineLimit);
+            walker.walk(actions, tree);
+        } catch (CompilationException e) {
+            Files.deleteIfExists(target);
+            return e.getMessage();
+        } catch (IOException | RuntimeException | Error e) {
+            //a partial file would look up to date to a build that checks timestamps
+            Files.deleteIfExists(target);
+            throw e;
+        }
+        return null;
+    }
+
+    private static void usage() {
+        System.err.println(USAGE);
+        System.exit(1);
+    }
+}
@@ -0,0 +1,70 @@
+import java.io.*;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Iterator;
+
+//replacement for Main when compiling to IR that lets a running MainDaemon compile, and compiles in this JVM when there is none
+public class MainClient {
+    private static final String USAGE = "usage: MainClient <file.mk> [--port n] [--max-errors n] [--inline-limit n] [--emit=ll|--emit=bc]\n"
+            + "--cache, --stats and --run need Main";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0)
+            usage();
+        String fileName = args[0];
+        int port = DaemonProtocol.DEFAULT_PORT;
+        int errorLimit = LLVMActions.DEFAULT_ERROR_LIMIT;
+        int inlineLimit = Inliner.DEFAULT_LIMIT;
+        boolean bitcode = false;
+        for (int i = 1; i < args.length; i++) {
+            if ("--port".equals(args[i]) && i + 1 < args.length)
+                port = Integer.parseInt(args[++i]);
+            else if ("--max-errors".equals(args[i]) && i + 1 < args.length)
+                errorLimit = Integer.parseInt(args[++i]);
+            else if ("--inline-limit".equals(args[i]) && i + 1 < args.length)
+                inlineLimit = Integer.parseInt(args[++i]);
+            else if ("--emit=bc".equals(args[i]))
+                bitcode = true; //the daemon gives IR text, it is encoded here
+            else if ("--emit=ll".equals(args[i]))
+                bitcode = false;
+            else
+                usage();
+        }
+
+        String source = new String(Files.readAllBytes(Paths.get(fileName)), StandardCharsets.UTF_8);
+
+        CompilationResult result;
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+
+            DaemonProtocol.writeRequest(output, fileName, source, errorLimit, inlineLimit);
+            result = DaemonProtocol.readResult(input);
+        } catch (ConnectException e) {
+            result = Compiler.compile(source, fileName, errorLimit, inlineLimit);
+        }
+
+        Iterator<Diagnostic> iterator = result.getDiagnostics().iterator();
+        while (iterator.hasNext()) {
+            System.err.println(iterator.next().format(fileName));
+        }
+        if (!result.isSuccessful())
+            System.exit(1);
+
+        Writer writer = bitcode ? new BitcodeWriter(System.out) : new BufferedWriter(new OutputStreamWriter(System.out));
+        writer.write(result.getIR());
+        if (bitcode)
+            writer.close();
+        else
+            writer.flush();
+    }
+
+    private static void usage() {
+        System.err.println(USAGE);
+        System.exit(1);
+    }
+}
@@ -0,0 +1,62 @@
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+//keeps one JVM running, so JIT compiled code and the DFA cache ANTLR shares between parser instances stay warm across compilations
+public class MainDaemon {
+    public static void main(String[] args) throws Exception {
+        int port = DaemonProtocol.DEFAULT_PORT;
+        if (args.length > 1 && "--port".equals(args[0]))
+            port = Integer.parseInt(args[1]);
+
+        ExecutorService executor = newExecutor();
+        //only reachable from this machine
+        try (ServerSocket serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            System.err.println("MK compile daemon listening on " + serverSocket.getLocalSocketAddress());
+            while (true) {
+                Socket socket = serverSocket.accept();
+                executor.execute(() -> handle(socket));
+            }
+        }
+    }
+
+    private static void handle(Socket socket) {
+        try (Socket connection = socket) {
+            DataInputStream input = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+
+            String name = DaemonProtocol.readName(input);
+            String source = DaemonProtocol.readSource(input);
+            int errorLimit = DaemonProtocol.readErrorLimit(input);
+            int inlineLimit = DaemonProtocol.readInlineLimit(input);
+            DaemonProtocol.writeResult(output, compile(source, name, errorLimit, inlineLimit));
+        } catch (IOException e) {
+            //the client went away or sent an invalid request, only its connection is closed
+        }
+    }
+
+    //a failing compilation is answered with its diagnostics, the client never waits for an answer that does not come
+    private static CompilationResult compile(String source, String name, int errorLimit, int inlineLimit) {
+        try {
+            return Compiler.compile(source, name, errorLimit, inlineLimit);
+        } catch (CompilationException e) {
+            return new CompilationResult(null, e.getDiagnostics());
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            return new CompilationResult(null, Collections.singletonList(new Diagnostic(DiagnosticType.SEMANTIC, 0, 0, "internal compiler error: " + e)));
+        }
+    }
+
+    //a virtual thread per request where the JVM has them (Java 21), otherwise pooled platform threads
+    private static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+}
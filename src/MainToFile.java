@@ -1,49 +1,40 @@
-import org.antlr.v4.runtime.ANTLRFileStream;
-import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
 
 import java.io.*;
+import java.nio.file.Paths;
+import java.util.Iterator;
 
 public class MainToFile {
     public static void main(String[] args) throws Exception {
         String fileFrom = "test.mk";
         String fileTo = "test.ll";
-        System.setOut(new PrintStream(new BufferedOutputStream(new FileOutputStream(fileTo)), true));
 
-        String errFile = "err";
-        System.setErr(new PrintStream(new BufferedOutputStream(new FileOutputStream(errFile)), true));
+        CharStream input = CharStreams.fromPath(Paths.get(fileFrom));
+        SyntaxErrorListener errorListener = new SyntaxErrorListener();
 
-        ANTLRFileStream input = new ANTLRFileStream(fileFrom);
-
-        MKLexer lexer = new MKLexer(input);
-
-        CommonTokenStream tokens = new CommonTokenStream(lexer);
-        MKParser parser = new MKParser(tokens);
-
-        ParseTree tree = parser.file();
+        ParseTree tree = SourceParser.parse(input, errorListener);
         ParseTreeWalker walker = new ParseTreeWalker();
 
-        System.setErr(new PrintStream(new FileOutputStream(FileDescriptor.err)));
-        BufferedReader reader;
-        boolean syntaxError = false;
-        try {
-            reader = new BufferedReader(new FileReader(errFile));
-            String line = reader.readLine();
-            if (line != null)
-                syntaxError = true;
-            while (line != null) {
-                System.err.println("Syntax error at " + line + " in " + fileFrom);
-                line = reader.readLine();
+        if (errorListener.hasErrors()) {
+            Iterator<Diagnostic> iterator = errorListener.getErrors().iterator();
+            while (iterator.hasNext()) {
+                System.err.println(iterator.next().format(fileFrom));
             }
-            reader.close();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        if (syntaxError)
             System.exit(1);
+        }
 
-        walker.walk(new LLVMActions(fileFrom), tree);
+        Writer writer = new BufferedWriter(new FileWriter(fileTo));
+        try {
+            walker.walk(new LLVMActions(fileFrom, writer), tree);
+        } catch (CompilationException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        } finally {
+            writer.close();
+        }
 
     }
-}
\ No newline at end of file
+}
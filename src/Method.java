@@ -4,11 +4,13 @@ public class Method {
     private String name;
     private DataType dataType;
     private List<DataType> arguments;
+    private final String llvmName; //computed once, every call uses it
 
-    public Method(String name, DataType dataType, List<DataType> arguments) {
+    public Method(String name, DataType dataType, List<DataType> arguments, Classy classy) {
         this.name = name;
         this.dataType = dataType;
         this.arguments = arguments;
+        this.llvmName = "main".equals(name) ? "@main" : "@func_" + classy.getName() + "_" + name;
     }
 
     public String getName() {
@@ -19,6 +21,10 @@ public class Method {
         return dataType;
     }
 
+    public String getLLVMName() {
+        return llvmName;
+    }
+
     public List<DataType> getArguments() {
         return arguments;
     }
@@ -2,11 +2,15 @@ public class NamedVarExpression implements  Expression {
     private DataType dataType;
     private String name;
     private ObjectType objectType;
+    private final int symbol;
+    private final String llvmName; //stack slot of the variable, computed once
 
-    public NamedVarExpression(ObjectType objectType, DataType dataType, String name) {
+    public NamedVarExpression(ObjectType objectType, DataType dataType, String name, int symbol) {
         this.dataType = dataType;
         this.name = name;
         this.objectType = objectType;
+        this.symbol = symbol;
+        this.llvmName = "%var_" + name;
     }
 
     public DataType getDataType() {
@@ -17,6 +21,14 @@ public class NamedVarExpression implements  Expression {
         return name;
     }
 
+    public int getSymbol() {
+        return symbol;
+    }
+
+    public String getLLVMName() {
+        return llvmName;
+    }
+
     public ObjectType getObjectType() {
         return objectType;
     }
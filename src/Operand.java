@@ -0,0 +1,64 @@
+//one operand of an instruction: a numbered value, a named pointer or a constant
+//the generator reuses its operands, so writing an instruction allocates nothing
+public class Operand {
+    private enum Kind { REGISTER, NAME, INT, REAL }
+
+    private Kind kind = Kind.REGISTER;
+    private int register;
+    private String name;
+    private int intValue;
+    private double realValue;
+
+    public Operand register(int index) {
+        kind = Kind.REGISTER;
+        register = index;
+        return this;
+    }
+
+    public Operand name(String name) {
+        kind = Kind.NAME;
+        this.name = name;
+        return this;
+    }
+
+    public Operand constant(int value) {
+        kind = Kind.INT;
+        intValue = value;
+        return this;
+    }
+
+    public Operand constant(double value) {
+        kind = Kind.REAL;
+        realValue = value;
+        return this;
+    }
+
+    public boolean isRegister() {
+        return kind == Kind.REGISTER;
+    }
+
+    public int getRegister() {
+        return register;
+    }
+
+    public void appendTo(StringBuilder builder) {
+        switch (kind) {
+            case REGISTER:
+                builder.append('%').append(register);
+                break;
+            case NAME:
+                builder.append(name);
+                break;
+            case INT:
+                builder.append(intValue);
+                break;
+            case REAL:
+                //folded values like infinity have no decimal form in LLVM
+                if (Double.isNaN(realValue) || Double.isInfinite(realValue))
+                    builder.append("0x").append(String.format("%016X", Double.doubleToRawLongBits(realValue)));
+                else
+                    builder.append(realValue);
+                break;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+//stands in for an expression that could not be built because of an error, so the walk can go on without reporting follow-up errors
+public class PoisonExpression implements Expression {
+    @Override
+    public ObjectType getObjectType() {
+        return ObjectType.VARIABLE;
+    }
+
+    @Override
+    public DataType getDataType() {
+        return null; //unknown, type checks skip poisoned expressions
+    }
+}
@@ -0,0 +1,140 @@
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+
+//whisper and hear of a program run in process, by the Interpreter or by the classes of JvmProgram
+//public with public methods because the generated classes live in their own package and class loader
+public final class ProgramIO {
+    private final Writer writer;
+    private final InputStream in;
+    private final byte[] buffer = new byte[1 << 16];
+    private int position = 0;
+    private int limit = 0;
+    private final StringBuilder number = new StringBuilder();
+
+    public ProgramIO(InputStream in, OutputStream out) {
+        this.in = in;
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.US_ASCII), 1 << 16);
+    }
+
+    //whisper, written like printf with "%d\n" and "%f\n"
+
+    public void printInt(int value) {
+        write(Integer.toString(value));
+    }
+
+    public void printReal(double value) {
+        write(formatReal(value));
+    }
+
+    private void write(String text) {
+        try {
+            writer.write(text);
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    //six decimals rounded from the exact binary value, as C does
+    static String formatReal(double value) {
+        if (Double.isNaN(value))
+            return Double.doubleToRawLongBits(value) < 0 ? "-nan" : "nan";
+        if (Double.isInfinite(value))
+            return value > 0 ? "inf" : "-inf";
+        String text = new BigDecimal(value).setScale(6, RoundingMode.HALF_EVEN).toPlainString();
+        if ((value < 0 || (value == 0 && 1 / value < 0)) && text.charAt(0) != '-')
+            text = "-" + text;
+        return text;
+    }
+
+    //hear, reads numbers like scanf with "%d" and "%lf", the variable keeps its value when the input holds no number
+
+    public int scanInt(int current) {
+        skipWhiteSpace();
+        number.setLength(0);
+        if (peek() == '-' || peek() == '+')
+            number.append((char) read());
+        while (isDigit(peek())) {
+            number.append((char) read());
+        }
+        if (number.length() == 0 || !isDigit(number.charAt(number.length() - 1)))
+            return current;
+        return (int) parseLong(number);
+    }
+
+    public double scanReal(double current) {
+        skipWhiteSpace();
+        number.setLength(0);
+        if (peek() == '-' || peek() == '+')
+            number.append((char) read());
+        int digits = 0;
+        while (isDigit(peek()) || (peek() == '.' && number.indexOf(".") < 0)) {
+            if (isDigit(peek()))
+                digits++;
+            number.append((char) read());
+        }
+        if (digits == 0)
+            return current;
+        if (peek() == 'e' || peek() == 'E') {
+            number.append((char) read());
+            if (peek() == '-' || peek() == '+')
+                number.append((char) read());
+            while (isDigit(peek())) {
+                number.append((char) read());
+            }
+        }
+        try {
+            return Double.parseDouble(number.toString());
+        } catch (NumberFormatException e) {
+            return current;
+        }
+    }
+
+    private static long parseLong(CharSequence text) {
+        long value = 0;
+        int i = text.charAt(0) == '-' || text.charAt(0) == '+' ? 1 : 0;
+        for (; i < text.length(); i++) {
+            value = value * 10 + (text.charAt(i) - '0');
+        }
+        return text.charAt(0) == '-' ? -value : value;
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private void skipWhiteSpace() {
+        while (Character.isWhitespace(peek())) {
+            read();
+        }
+    }
+
+    private int peek() {
+        if (position == limit) {
+            try {
+                limit = in.read(buffer, 0, buffer.length);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position] & 0xFF;
+    }
+
+    private int read() {
+        int c = peek();
+        if (c >= 0)
+            position++;
+        return c;
+    }
+}
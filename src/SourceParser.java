@@ -0,0 +1,59 @@
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+//parses with the faster SLL prediction first and only falls back to full LL when SLL fails
+public class SourceParser {
+    public static ParseTree parse(CharStream input, SyntaxErrorListener errorListener) {
+        return parse(input, errorListener, null);
+    }
+
+    //with stats the whole input is lexed before parsing starts, so both are timed on their own
+    public static ParseTree parse(CharStream input, SyntaxErrorListener errorListener, CompilationStats stats) {
+        CompilerEvents.Parse event = new CompilerEvents.Parse();
+        event.begin();
+        MKLexer lexer = new MKLexer(input);
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(errorListener);
+
+        CommonTokenStream tokens = new CommonTokenStream(lexer);
+        long start = System.nanoTime();
+        long allocated = stats == null ? -1 : CompilationStats.allocatedBytes();
+        if (stats != null) {
+            tokens.fill();
+            stats.addPhase("lex", System.nanoTime() - start, CompilationStats.allocatedSince(allocated));
+            start = System.nanoTime();
+            allocated = CompilationStats.allocatedBytes();
+        }
+
+        ParseTree tree = parse(tokens, errorListener);
+        if (stats != null)
+            stats.addPhase("parse", System.nanoTime() - start, CompilationStats.allocatedSince(allocated));
+        if (event.shouldCommit()) {
+            event.source = input.getSourceName();
+            event.commit();
+        }
+        return tree;
+    }
+
+    //tokens lexed before, the benchmarks measure lexing on its own
+    public static ParseTree parse(CommonTokenStream tokens, SyntaxErrorListener errorListener) {
+        MKParser parser = new MKParser(tokens);
+        parser.removeErrorListeners();
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        parser.setErrorHandler(new BailErrorStrategy());
+
+        try {
+            return parser.file();
+        } catch (ParseCancellationException e) {
+            //either a real syntax error or input SLL can not decide, full LL tells them apart and reports the errors
+            tokens.seek(0);
+            parser.reset();
+            parser.addErrorListener(errorListener);
+            parser.setErrorHandler(new DefaultErrorStrategy());
+            parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+            return parser.file();
+        }
+    }
+}
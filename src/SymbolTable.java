@@ -0,0 +1,39 @@
+import java.util.Arrays;
+
+//values looked up by symbol in an array, clearing it only touches the symbols that were put, so leaving a scope is cheap
+public class SymbolTable<T> {
+    private Object[] values = new Object[16];
+    private int[] symbols = new int[16]; //symbols put since the last clear(), in order
+    private int size = 0;
+
+    @SuppressWarnings("unchecked")
+    public T get(int symbol) {
+        return symbol < values.length ? (T) values[symbol] : null;
+    }
+
+    public boolean contains(int symbol) {
+        return get(symbol) != null;
+    }
+
+    public void put(int symbol, T value) {
+        if (symbol >= values.length)
+            values = Arrays.copyOf(values, Math.max(symbol + 1, values.length * 2));
+        if (values[symbol] == null) {
+            if (size == symbols.length)
+                symbols = Arrays.copyOf(symbols, size * 2);
+            symbols[size++] = symbol;
+        }
+        values[symbol] = value;
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            values[symbols[i]] = null;
+        }
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,28 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//identifiers of one compilation, every distinct name is hashed once and is a small integer from then on, see SymbolTable
+public class Symbols {
+    private final Map<String, Integer> symbols = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    public int intern(String name) {
+        Integer symbol = symbols.get(name);
+        if (symbol == null) {
+            symbol = names.size();
+            symbols.put(name, symbol);
+            names.add(name);
+        }
+        return symbol;
+    }
+
+    public String getName(int symbol) {
+        return names.get(symbol);
+    }
+
+    public int size() {
+        return names.size();
+    }
+}
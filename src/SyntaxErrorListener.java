@@ -0,0 +1,24 @@
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//collects the errors of the lexer and the parser instead of printing them
+public class SyntaxErrorListener extends BaseErrorListener {
+    private final List<Diagnostic> errors = new ArrayList<>();
+
+    @Override
+    public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line, int charPositionInLine, String message, RecognitionException e) {
+        errors.add(new Diagnostic(DiagnosticType.SYNTAX, line, charPositionInLine, message));
+    }
+
+    public List<Diagnostic> getErrors() {
+        return errors;
+    }
+
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+}
@@ -9,6 +9,12 @@ public class UnnamedVarExpression implements  Expression {
         this.objectType = objectType;
     }
 
+    //for values computed during generation, the index is set when the value gets emitted
+    public UnnamedVarExpression(ObjectType objectType, DataType dataType) {
+        this.dataType = dataType;
+        this.objectType = objectType;
+    }
+
     public DataType getDataType() {
         return dataType;
     }
@@ -17,6 +23,10 @@ public class UnnamedVarExpression implements  Expression {
         return index;
     }
 
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
     public ObjectType getObjectType() {
         return objectType;
     }
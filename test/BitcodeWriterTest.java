@@ -0,0 +1,96 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+//the bitcode of a small known module, read back record by record
+public class BitcodeWriterTest {
+    //main calls a function defined after it, so its value number is only known at the end of the module
+    private static final String MODULE = "%classy.Main = type { i32 }\n"
+            + "@inst_main = global %classy.Main zeroinitializer\n"
+            + "define i32 @main() nounwind {\n"
+            + "  %1 = getelementptr inbounds %classy.Main, %classy.Main* @inst_main, i32 0, i32 0\n"
+            + "  store i32 7, i32* %1\n"
+            + "  %2 = load i32, i32* %1\n"
+            + "  %3 = call i32 @twice(i32 %2)\n"
+            + "  br label %end\n"
+            + "end:\n"
+            + "  ret i32 %3\n"
+            + "}\n"
+            + "define i32 @twice(i32 %x) nounwind {\n"
+            + "  %1 = mul i32 %x, 2\n"
+            + "  ret i32 %1\n"
+            + "}\n";
+
+    //types: 0 i32, 1 %classy.Main, 2 i32 (), 3 %classy.Main*, 4 i32*, 5 i32 (i32), 6 i32 (i32)*
+    //values: 0 @inst_main, 1 @main, 2 @twice, constants 3 zeroinitializer, 4 i32 0, 5 i32 7, 6 i32 2, 7 i32 1, the values of a function from 8
+    private static final String RECORDS = "block 13\n"
+            + "  1: 77 75\n"
+            + "  2: 0\n"
+            + "block 8\n"
+            + "  1: 2\n"
+            + "  block 10\n"
+            + "    3: 1 4294967295 0 18\n"
+            + "  block 9\n"
+            + "    2: 1\n"
+            + "  block 17\n"
+            + "    1: 7\n"
+            + "    7: 32\n"
+            + "    19: 99 108 97 115 115 121 46 77 97 105 110\n"
+            + "    20: 0 0\n"
+            + "    21: 0 0\n"
+            + "    8: 1 0\n"
+            + "    8: 0 0\n"
+            + "    21: 0 0 0\n"
+            + "    8: 5 0\n"
+            + "  7: 0 9 1 2 4 0 0 0\n"
+            + "  8: 9 4 2 0 0 0 1 0 0 0 0\n"
+            + "  8: 13 5 5 0 0 0 1 0 0 0 0\n"
+            + "  block 11\n"
+            + "    1: 1\n"
+            + "    2:\n"
+            + "    1: 0\n"
+            + "    4: 0\n"
+            + "    4: 14\n"
+            + "    4: 4\n"
+            + "    4: 2\n"
+            + "  block 12\n"
+            + "    1: 2\n"
+            + "    43: 1 1 8 4 4\n"
+            + "    44: 1 4 0 0\n"
+            + "    20: 1 0 0 0\n"
+            + "    34: 0 32768 5 8 1\n"
+            + "    11: 1\n"
+            + "    10: 1\n"
+            + "    block 14\n"
+            + "      2: 1 101 110 100\n"
+            + "  block 12\n"
+            + "    1: 1\n"
+            + "    2: 1 3 2\n"
+            + "    10: 1\n"
+            + "    block 14\n"
+            + "      1: 8 120\n"
+            + "block 23\n"
+            + "  1: blob inst_mainmaintwice\n";
+
+    @Test
+    public void knownModule() throws IOException {
+        assertEquals(RECORDS, BitstreamReader.dump(BitcodeModule.assemble(MODULE)));
+    }
+
+    @Test
+    public void linesSplitAcrossWrites() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (Writer writer = new BitcodeWriter(out)) {
+            for (int i = 0; i < MODULE.length(); i += 7) {
+                writer.write(MODULE, i, Math.min(7, MODULE.length() - i));
+            }
+        }
+        assertArrayEquals(BitcodeModule.assemble(MODULE), out.toByteArray());
+        assertEquals(RECORDS, BitstreamReader.dump(out.toByteArray()));
+    }
+}
@@ -0,0 +1,160 @@
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+//reads an LLVM bitstream back into its blocks and records, so tests can check what BitstreamWriter and BitcodeModule wrote
+public class BitstreamReader {
+    private static final int END_BLOCK = 0;
+    private static final int ENTER_SUBBLOCK = 1;
+    private static final int DEFINE_ABBREV = 2;
+    private static final int UNABBREV_RECORD = 3;
+    private static final int FIRST_ABBREV = 4;
+
+    private final byte[] bytes;
+    private long position = 0; //in bits
+    private final StringBuilder dump = new StringBuilder();
+
+    private BitstreamReader(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    //one line per block and record, the records of a block indented below it, e.g. "2: 1 3 2" or "1: blob inst_main"
+    public static String dump(byte[] bitcode) {
+        BitstreamReader reader = new BitstreamReader(bitcode);
+        if (reader.read(32) != 0xDEC04342L)
+            throw new IllegalStateException("no bitcode magic");
+        while (reader.position < bitcode.length * 8L) {
+            if (reader.read(2) != ENTER_SUBBLOCK)
+                throw new IllegalStateException("only blocks are allowed at the top level");
+            reader.block("");
+        }
+        return reader.dump.toString();
+    }
+
+    //after the ENTER_SUBBLOCK abbreviation id
+    private void block(String indent) {
+        long blockId = readVBR(8);
+        int abbrevWidth = (int) readVBR(4);
+        align32();
+        long words = read(32);
+        long start = position;
+        dump.append(indent).append("block ").append(blockId).append('\n');
+
+        List<long[]> abbreviations = new ArrayList<>(); //pairs of encoding and value, see define()
+        while (true) {
+            int id = (int) read(abbrevWidth);
+            switch (id) {
+                case END_BLOCK:
+                    align32();
+                    if (position - start != words * 32)
+                        throw new IllegalStateException("block " + blockId + " has " + (position - start) / 32 + " words, its length says " + words);
+                    return;
+                case ENTER_SUBBLOCK:
+                    block(indent + "  ");
+                    break;
+                case DEFINE_ABBREV:
+                    abbreviations.add(define());
+                    break;
+                case UNABBREV_RECORD:
+                    dump.append(indent).append("  ").append(readVBR(6)).append(':');
+                    long count = readVBR(6);
+                    for (long i = 0; i < count; i++) {
+                        dump.append(' ').append(readVBR(6));
+                    }
+                    dump.append('\n');
+                    break;
+                default:
+                    abbreviated(abbreviations.get(id - FIRST_ABBREV), indent + "  ");
+                    break;
+            }
+        }
+    }
+
+    //0 for a literal, then the encoding of every operand: 1 fixed, 2 vbr, 3 array, 4 char6, 5 blob, with its width
+    private long[] define() {
+        int count = (int) readVBR(5);
+        long[] operands = new long[count * 2];
+        for (int i = 0; i < count; i++) {
+            if (read(1) == 1) {
+                operands[i * 2 + 1] = readVBR(8);
+                continue;
+            }
+            int encoding = (int) read(3);
+            operands[i * 2] = encoding;
+            if (encoding == 1 || encoding == 2)
+                operands[i * 2 + 1] = readVBR(5);
+        }
+        return operands;
+    }
+
+    private void abbreviated(long[] abbreviation, String indent) {
+        List<String> fields = new ArrayList<>();
+        for (int i = 0; i < abbreviation.length; i += 2) {
+            int encoding = (int) abbreviation[i];
+            if (encoding == 3) {
+                //the element encoding is the operand after the array
+                long length = readVBR(6);
+                for (long j = 0; j < length; j++) {
+                    fields.add(String.valueOf(scalar((int) abbreviation[i + 2], abbreviation[i + 3])));
+                }
+                i += 2;
+            } else if (encoding == 5) {
+                int length = (int) readVBR(6);
+                align32();
+                fields.add("blob " + new String(bytes, (int) (position / 8), length, StandardCharsets.ISO_8859_1));
+                position += length * 8L;
+                align32();
+            } else
+                fields.add(String.valueOf(scalar(encoding, abbreviation[i + 1])));
+        }
+        dump.append(indent).append(fields.get(0)).append(':');
+        for (int i = 1; i < fields.size(); i++) {
+            dump.append(' ').append(fields.get(i));
+        }
+        dump.append('\n');
+    }
+
+    private long scalar(int encoding, long value) {
+        switch (encoding) {
+            case 0:
+                return value;
+            case 1:
+                return read((int) value);
+            case 2:
+                return readVBR((int) value);
+            case 4:
+                return "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789._".charAt((int) read(6));
+            default:
+                throw new IllegalStateException("unknown encoding " + encoding);
+        }
+    }
+
+    private long read(int width) {
+        long value = 0;
+        for (int i = 0; i < width; i++) {
+            if (position >= bytes.length * 8L)
+                throw new IllegalStateException("read past the end");
+            long bit = (bytes[(int) (position >>> 3)] >>> (position & 7)) & 1;
+            value |= bit << i;
+            position++;
+        }
+        return value;
+    }
+
+    private long readVBR(int width) {
+        long high = 1L << (width - 1);
+        long value = 0;
+        int shift = 0;
+        long chunk;
+        do {
+            chunk = read(width);
+            value |= (chunk & (high - 1)) << shift;
+            shift += width - 1;
+        } while ((chunk & high) != 0);
+        return value;
+    }
+
+    private void align32() {
+        position = (position + 31) / 32 * 32;
+    }
+}
@@ -0,0 +1,114 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//a folded program prints and gives what the same program gives when every calculation and condition is left to run time
+//and what it gives as JVM bytecode
+public class ConstantFolderTest {
+    private static final UnaryOperator<List<GeneratorMethod>> FOLD = generatorMethods -> new ConstantFolder().fold(generatorMethods);
+
+    private static String assertSameRun(String source, String input) {
+        String expected = Programs.run(source, input, Programs.NO_PASSES);
+        assertEquals(expected, Programs.run(source, input, FOLD));
+        assertEquals(expected, Programs.runJvm(source, input));
+        return expected;
+    }
+
+    @Test
+    public void foldedDivisionByZero() {
+        String source = "classy Main {\n"
+                + "    int lady main() {\n"
+                + "        real lady x;\n"
+                + "        whisper 1 / 0;\n"
+                + "        whisper 0.0 - 5.0 / 0.0;\n"
+                + "        whisper 0.0 / 0.0;\n"
+                + "        x = 2.0;\n"
+                + "        whisper x / (3 - 3);\n"
+                + "        give 0;\n"
+                + "    }\n"
+                + "}\n";
+        //the sign of nan is whatever the processor gives, folding has to keep it
+        String output = assertSameRun(source, "");
+        assertTrue(output.matches("inf\n-inf\n-?nan\ninf\nstatus 0"), output);
+    }
+
+    @Test
+    public void constantConditions() {
+        String source = "classy Counter {\n"
+                + "    int lady n;\n"
+                + "    int lady next() {\n"
+                + "        n = n + 1;\n"
+                + "        give n;\n"
+                + "    }\n"
+                + "}\n"
+                + "classy Main {\n"
+                + "    int lady main() {\n"
+                + "        c = classy Counter;\n"
+                + "        if (2 * 3 == 6) {\n"
+                + "            whisper 1;\n"
+                + "        }\n"
+                + "        if (1 > 2) {\n"
+                + "            whisper 2;\n"
+                + "        }\n"
+                + "        while (1 + 1 < 2) {\n"
+                + "            whisper 3;\n"
+                + "        }\n"
+                + "        while (c.next() + 0 < 3) {\n"
+                + "            whisper 4;\n"
+                + "        }\n"
+                + "        give c.next();\n"
+                + "    }\n"
+                + "}\n";
+        assertEquals("1\n4\n4\nstatus 4", assertSameRun(source, ""));
+    }
+
+    @Test
+    public void identitiesKeepFieldsAndValues() {
+        String source = "classy Main {\n"
+                + "    int lady f;\n"
+                + "    real lady r;\n"
+                + "    int lady main() {\n"
+                + "        int lady x;\n"
+                + "        hear x;\n"
+                + "        f = x * 1 + 0;\n"
+                + "        whisper 0 + f;\n"
+                + "        whisper f * 0;\n"
+                + "        r = f / 1;\n"
+                + "        whisper r / 1;\n"
+                + "        whisper r * 1.0;\n"
+                + "        give f - 0;\n"
+                + "    }\n"
+                + "}\n";
+        assertEquals("7\n0\n7.000000\n7.000000\nstatus 7", assertSameRun(source, "7"));
+    }
+
+    @Test
+    public void localDeclaredInBlock() {
+        //the blocks holding the declarations and their assignments of 0 may not run, or are folded away
+        String source = "classy Main {\n"
+                + "    int lady main() {\n"
+                + "        int lady x;\n"
+                + "        hear x;\n"
+                + "        if (x > 2) {\n"
+                + "            int lady y;\n"
+                + "            real lady r;\n"
+                + "            y = 5;\n"
+                + "            r = 1.5;\n"
+                + "        }\n"
+                + "        whisper y;\n"
+                + "        whisper r;\n"
+                + "        if (1 > 2) {\n"
+                + "            int lady z;\n"
+                + "            z = 3;\n"
+                + "        }\n"
+                + "        give y + z;\n"
+                + "    }\n"
+                + "}\n";
+        assertEquals("0\n0.000000\nstatus 0", assertSameRun(source, "1"));
+        assertEquals("5\n1.500000\nstatus 5", assertSameRun(source, "3"));
+    }
+}
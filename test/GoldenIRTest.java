@@ -0,0 +1,44 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//the IR of the programs in test/golden, compared with the checked in .ll files
+//after a change to the generated IR: java Main test/golden/x.mk > test/golden/x.ll, and review the difference
+public class GoldenIRTest {
+    private static String resource(String name) throws IOException {
+        try (InputStream input = GoldenIRTest.class.getResourceAsStream("/golden/" + name)) {
+            if (input == null)
+                throw new IllegalStateException("no golden file " + name);
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void assertSameIR(String name) throws IOException {
+        CompilationResult result = Compiler.compile(resource(name + ".mk"), name + ".mk");
+        assertTrue(result.isSuccessful());
+        assertEquals(resource(name + ".ll"), result.getIR());
+    }
+
+    @Test
+    public void cars() throws IOException {
+        //every getter and setter is inlined, main() calls no method of Car
+        assertSameIR("cars");
+    }
+
+    @Test
+    public void loops() throws IOException {
+        //the size field and the limit local loaded in front of the loop of fill(), size + 1 calculated in front of both loops of sum()
+        assertSameIR("loops");
+    }
+
+    @Test
+    public void blocks() throws IOException {
+        //locals declared in blocks are set to 0 in the entry block, before the blocks that may not run
+        assertSameIR("blocks");
+    }
+}
@@ -0,0 +1,99 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+//an inlined method prints and gives what the called method gives, alone and followed by the other passes
+public class InlinerTest {
+    private static final UnaryOperator<List<GeneratorMethod>> INLINE = generatorMethods -> new Inliner(Inliner.DEFAULT_LIMIT).inline(generatorMethods);
+    private static final UnaryOperator<List<GeneratorMethod>> ALL = generatorMethods -> new LoopInvariantMotion().hoist(new ConstantFolder().fold(INLINE.apply(generatorMethods)));
+
+    private static String assertSameRun(String source, String input) {
+        String expected = Programs.run(source, input, Programs.NO_PASSES);
+        assertEquals(expected, Programs.run(source, input, INLINE));
+        assertEquals(expected, Programs.run(source, input, ALL));
+        assertEquals(expected, Programs.runJvm(source, input));
+        return expected;
+    }
+
+    @Test
+    public void calleeAliasingCallerInstance() {
+        //outer() runs on a1 and calls a1.set(), the inlined setter writes the fields outer() passed
+        String source = "classy A {\n"
+                + "    int lady v;\n"
+                + "    int lady w;\n"
+                + "    int lady set(int x) {\n"
+                + "        v = x + 1;\n"
+                + "        w = x;\n"
+                + "        give w;\n"
+                + "    }\n"
+                + "    int lady make() {\n"
+                + "        a1 = classy A;\n"
+                + "        give 0;\n"
+                + "    }\n"
+                + "    int lady outer(int p) {\n"
+                + "        int lady k;\n"
+                + "        k = a1.set(v * 1);\n"
+                + "        whisper v;\n"
+                + "        whisper w;\n"
+                + "        k = a1.set(v);\n"
+                + "        whisper w;\n"
+                + "        k = a1.set(p);\n"
+                + "        give a1.set(w + 0);\n"
+                + "    }\n"
+                + "}\n"
+                + "classy Main {\n"
+                + "    int lady main() {\n"
+                + "        m = classy A;\n"
+                + "        int lady k;\n"
+                + "        k = m.make();\n"
+                + "        whisper a1.outer(5);\n"
+                + "        give a1.outer(0);\n"
+                + "    }\n"
+                + "}\n";
+        assertEquals("1\n0\n1\n5\n7\n6\n7\nstatus 0", assertSameRun(source, ""));
+    }
+
+    @Test
+    public void accessors() {
+        String source = "classy Box {\n"
+                + "    int lady size;\n"
+                + "    real lady weight;\n"
+                + "    int lady cells[4];\n"
+                + "    int lady getSize() {\n"
+                + "        give size;\n"
+                + "    }\n"
+                + "    int lady setSize(int s) {\n"
+                + "        size = s;\n"
+                + "        give s;\n"
+                + "    }\n"
+                + "    real lady scale(real f) {\n"
+                + "        weight = weight + f;\n"
+                + "        give weight;\n"
+                + "    }\n"
+                + "    int lady put(int i, int v) {\n"
+                + "        cells[i] = v;\n"
+                + "        give cells[i];\n"
+                + "    }\n"
+                + "}\n"
+                + "classy Main {\n"
+                + "    int lady main() {\n"
+                + "        a = classy Box;\n"
+                + "        b = classy Box;\n"
+                + "        int lady n;\n"
+                + "        int lady k;\n"
+                + "        hear n;\n"
+                + "        k = a.setSize(n);\n"
+                + "        k = b.setSize(a.getSize() + 1);\n"
+                + "        whisper a.getSize();\n"
+                + "        whisper b.getSize();\n"
+                + "        whisper a.scale(a.scale(1.5));\n"
+                + "        k = b.put(2, a.getSize());\n"
+                + "        give b.put(1, k * 2);\n"
+                + "    }\n"
+                + "}\n";
+        assertEquals("4\n5\n3.000000\nstatus 8", assertSameRun(source, "4"));
+    }
+}
@@ -0,0 +1,120 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+//a program with its loop invariants hoisted prints and gives what it gives when every value is read inside the loop
+public class LoopInvariantMotionTest {
+    private static final UnaryOperator<List<GeneratorMethod>> HOIST = generatorMethods -> new LoopInvariantMotion().hoist(generatorMethods);
+    private static final UnaryOperator<List<GeneratorMethod>> FOLD_HOIST = generatorMethods -> new LoopInvariantMotion().hoist(new ConstantFolder().fold(generatorMethods));
+    private static final UnaryOperator<List<GeneratorMethod>> ALL = generatorMethods -> FOLD_HOIST.apply(new Inliner(Inliner.DEFAULT_LIMIT).inline(generatorMethods));
+
+    private static String assertSameRun(String source, String input) {
+        String expected = Programs.run(source, input, Programs.NO_PASSES);
+        assertEquals(expected, Programs.run(source, input, HOIST));
+        assertEquals(expected, Programs.run(source, input, FOLD_HOIST));
+        assertEquals(expected, Programs.run(source, input, ALL));
+        assertEquals(expected, Programs.runJvm(source, input));
+        return expected;
+    }
+
+    @Test
+    public void fieldWrittenThroughCall() {
+        //count() runs on a1, the field it reads in its loop is written by the call to a1.bump()
+        String source = "classy A {\n"
+                + "    int lady v;\n"
+                + "    int lady bump() {\n"
+                + "        v = v + 2;\n"
+                + "        give v;\n"
+                + "    }\n"
+                + "    int lady make() {\n"
+                + "        a1 = classy A;\n"
+                + "        give 0;\n"
+                + "    }\n"
+                + "    int lady count(int n) {\n"
+                + "        int lady i;\n"
+                + "        int lady s;\n"
+                + "        int lady k;\n"
+                + "        while (i < n) {\n"
+                + "            s = s + v * 10;\n"
+                + "            k = a1.bump();\n"
+                + "            i = i + 1;\n"
+                + "        }\n"
+                + "        give s;\n"
+                + "    }\n"
+                + "}\n"
+                + "classy Main {\n"
+                + "    int lady main() {\n"
+                + "        m = classy A;\n"
+                + "        int lady k;\n"
+                + "        int lady n;\n"
+                + "        hear n;\n"
+                + "        k = m.make();\n"
+                + "        whisper a1.count(n);\n"
+                + "        give a1.bump();\n"
+                + "    }\n"
+                + "}\n";
+        assertEquals("120\nstatus 10", assertSameRun(source, "4"));
+    }
+
+    @Test
+    public void elementGuardedByLoopCondition() {
+        //the index is out of bounds, the element may only be read when the loop runs
+        String source = "classy Main {\n"
+                + "    int lady a[3];\n"
+                + "    int lady main() {\n"
+                + "        int lady i;\n"
+                + "        int lady j;\n"
+                + "        int lady n;\n"
+                + "        int lady s;\n"
+                + "        hear n;\n"
+                + "        hear j;\n"
+                + "        while (i < n) {\n"
+                + "            s = s + a[j] * 2;\n"
+                + "            i = i + 1;\n"
+                + "        }\n"
+                + "        whisper s;\n"
+                + "        give i;\n"
+                + "    }\n"
+                + "}\n";
+        assertEquals("0\nstatus 0", assertSameRun(source, "0 7"));
+        assertEquals("0\nstatus 2", assertSameRun(source, "2 1"));
+    }
+
+    @Test
+    public void invariantsOfNestedLoops() {
+        String source = "classy Main {\n"
+                + "    int lady limit;\n"
+                + "    real lady factor;\n"
+                + "    int lady a[4];\n"
+                + "    int lady main() {\n"
+                + "        int lady i;\n"
+                + "        int lady n;\n"
+                + "        real lady r;\n"
+                + "        hear n;\n"
+                + "        limit = 3;\n"
+                + "        factor = 0.5;\n"
+                + "        while (i < 4) {\n"
+                + "            int lady j;\n"
+                + "            j = 0;\n"
+                + "            a[i] = i * n;\n"
+                + "            while (j < limit + 1) {\n"
+                + "                r = r + factor * limit + a[i];\n"
+                + "                j = j + 1;\n"
+                + "            }\n"
+                + "            i = i + 1;\n"
+                + "        }\n"
+                + "        whisper r;\n"
+                + "        while (i < limit * n) {\n"
+                + "            limit = limit - 1;\n"
+                + "            i = i + 1;\n"
+                + "        }\n"
+                + "        whisper limit;\n"
+                + "        give i;\n"
+                + "    }\n"
+                + "}\n";
+        assertEquals("72.000000\n2\nstatus 5", assertSameRun(source, "2"));
+    }
+}
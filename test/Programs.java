@@ -0,0 +1,58 @@
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+//runs MK source held in memory with the Interpreter or as JVM bytecode, so tests can compare a program run with and without an optimization
+public class Programs {
+    public static final UnaryOperator<List<GeneratorMethod>> NO_PASSES = generatorMethods -> generatorMethods;
+
+    //the checked classies of the source, every run gets its own so no run sees values set by another
+    public static List<Classy> check(String source) {
+        SyntaxErrorListener errorListener = new SyntaxErrorListener();
+        ParseTree tree = SourceParser.parse(CharStreams.fromString(source, "test.mk"), errorListener);
+        if (errorListener.hasErrors())
+            throw new IllegalArgumentException(errorListener.getErrors().get(0).format("test.mk"));
+        LLVMActions actions = new LLVMActions("test.mk", new StringWriter());
+        actions.setGenerate(false);
+        new ParseTreeWalker().walk(actions, tree);
+        return actions.getClassies();
+    }
+
+    //what the program printed and gave, or the runtime error it stopped with
+    public static String run(String source, String input, UnaryOperator<List<GeneratorMethod>> passes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        String end;
+        try {
+            int status = new Interpreter(check(source), passes).run(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), out);
+            end = "status " + status;
+        } catch (IllegalStateException e) {
+            end = "error " + e.getMessage();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8) + end;
+    }
+
+    //the same for the program compiled to JVM bytecode with every pass, the bytecode verifier checks each method when it is loaded
+    public static String runJvm(String source, String input) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        String end;
+        try {
+            int status = new JvmProgram(check(source)).run(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), out);
+            end = "status " + status;
+        } catch (IllegalStateException e) {
+            end = "error " + e.getMessage();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8) + end;
+    }
+}
@@ -0,0 +1,78 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+//a while computes its condition again on every iteration, calculations and calls in the condition included
+public class WhileLoopTest {
+    private static final UnaryOperator<List<GeneratorMethod>> FOLD = generatorMethods -> new ConstantFolder().fold(generatorMethods);
+
+    private static String assertSameRun(String source, String input) {
+        String expected = Programs.run(source, input, Programs.NO_PASSES);
+        assertEquals(expected, Programs.run(source, input, FOLD));
+        assertEquals(expected, Programs.runJvm(source, input));
+        return expected;
+    }
+
+    @Test
+    public void calculatedCondition() {
+        String source = "classy Main {\n"
+                + "    int lady main() {\n"
+                + "        int lady i;\n"
+                + "        int lady n;\n"
+                + "        hear n;\n"
+                + "        while (i + 1 < n) {\n"
+                + "            i = i + 1;\n"
+                + "        }\n"
+                + "        whisper i;\n"
+                + "        give i;\n"
+                + "    }\n"
+                + "}\n";
+        assertEquals("9\nstatus 9", assertSameRun(source, "10"));
+        assertEquals("0\nstatus 0", assertSameRun(source, "0"));
+    }
+
+    @Test
+    public void calledCondition() {
+        String source = "classy Counter {\n"
+                + "    int lady n;\n"
+                + "    int lady next() {\n"
+                + "        n = n + 1;\n"
+                + "        give n;\n"
+                + "    }\n"
+                + "}\n"
+                + "classy Main {\n"
+                + "    int lady main() {\n"
+                + "        c = classy Counter;\n"
+                + "        int lady k;\n"
+                + "        while (c.next() * 2 < 9) {\n"
+                + "            k = k + 1;\n"
+                + "        }\n"
+                + "        whisper k;\n"
+                + "        give c.next();\n"
+                + "    }\n"
+                + "}\n";
+        assertEquals("4\nstatus 6", assertSameRun(source, ""));
+    }
+
+    @Test
+    public void loopThatNeverRuns() {
+        //folding drops the loop and its head, the next loop still goes back to its own head
+        String source = "classy Main {\n"
+                + "    int lady main() {\n"
+                + "        int lady i;\n"
+                + "        while (2 * 3 < 5) {\n"
+                + "            whisper 1;\n"
+                + "        }\n"
+                + "        while (i * 2 < 4) {\n"
+                + "            i = i + 1;\n"
+                + "        }\n"
+                + "        whisper i;\n"
+                + "        give 0;\n"
+                + "    }\n"
+                + "}\n";
+        assertEquals("2\nstatus 0", assertSameRun(source, ""));
+    }
+}
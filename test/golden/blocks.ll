@@ -0,0 +1,54 @@
+%classy.Main = type {  }
+
+define i32 @main() nounwind { 
+  %var_x = alloca i32
+  store i32 0, i32* %var_x
+  %var_y = alloca i32
+  store i32 0, i32* %var_y
+  %var_r = alloca double
+  store double 0.0, double* %var_r
+  %var_z = alloca i32
+  store i32 0, i32* %var_z
+  store i32 0, i32* %var_x
+
+  %1 = call i32 (i8*, ...) @scanf(i8* getelementptr inbounds ([3 x i8], [3 x i8]* @sysvar_scanint, i32 0, i32 0), i32* %var_x)
+
+  br label %compare1
+
+ compare1:
+  %2 = load i32, i32* %var_x
+  %3 = icmp sgt i32 %2, 2
+  br i1 %3, label %then1, label %end1
+
+ then1:
+  store i32 0, i32* %var_y
+
+  store double 0.0, double* %var_r
+
+  store i32 5, i32* %var_y
+
+  store double 1.5, double* %var_r
+
+  br label %end1
+
+ end1:
+  %4 = load i32, i32* %var_y
+  %5 = call i32 (i8* , ...) @printf(i8* getelementptr inbounds ([4 x i8], [4 x i8]*@sysvar_printint, i32 0, i32 0), i32 %4)
+
+  %6 = load double, double* %var_r
+  %7 = call i32 (i8* , ...) @printf(i8* getelementptr inbounds ([4 x i8], [4 x i8]*@sysvar_printreal, i32 0, i32 0), double %6)
+
+  %8 = load i32, i32* %var_z
+  %9 = call i32 (i8* , ...) @printf(i8* getelementptr inbounds ([4 x i8], [4 x i8]*@sysvar_printint, i32 0, i32 0), i32 %8)
+
+  %10 = load i32, i32* %var_y
+  ret i32 %10
+} 
+@inst_main = global %classy.Main zeroinitializer
+
+declare i32 @printf(i8*, ...)
+declare i32 @scanf(i8*, ...)
+@sysvar_printint = constant [4 x i8] c"%d\0A\00"
+@sysvar_printreal = constant [4 x i8] c"%f\0A\00"
+@sysvar_scanint = constant [3 x i8] c"%d\00"
+@sysvar_scanreal = constant [4 x i8] c"%lf\00"
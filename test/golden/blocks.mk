@@ -0,0 +1,20 @@
+classy Main {
+    int lady main() {
+        int lady x;
+        hear x;
+        if (x > 2) {
+            int lady y;
+            real lady r;
+            y = 5;
+            r = 1.5;
+        }
+        whisper y;
+        whisper r;
+        if (1 > 2) {
+            int lady z;
+            z = 3;
+        }
+        whisper z;
+        give y;
+    }
+}
@@ -0,0 +1,149 @@
+%classy.Car = type { i32 }
+
+define i32 @func_Car_initialize(%classy.Car* %this) nounwind { 
+  %1 = getelementptr inbounds %classy.Car, %classy.Car* %this, i32 0, i32 0
+  store i32 1, i32* %1
+
+  ret i32 0
+} 
+
+define i32 @func_Car_setSpeed(%classy.Car* %this, i32) nounwind { 
+  %var_newSpeed = alloca i32
+  store i32 %0, i32* %var_newSpeed
+
+  %2 = load i32, i32* %var_newSpeed
+  %3 = getelementptr inbounds %classy.Car, %classy.Car* %this, i32 0, i32 0
+  store i32 %2, i32* %3
+
+  %4 = getelementptr inbounds %classy.Car, %classy.Car* %this, i32 0, i32 0
+  %5 = load i32, i32* %4
+  ret i32 %5
+} 
+
+define i32 @func_Car_increaseSpeed(%classy.Car* %this) nounwind { 
+  %1 = getelementptr inbounds %classy.Car, %classy.Car* %this, i32 0, i32 0
+  %2 = load i32, i32* %1
+  %3 = add nsw i32 %2, 1
+  %4 = getelementptr inbounds %classy.Car, %classy.Car* %this, i32 0, i32 0
+  store i32 %3, i32* %4
+
+  %5 = getelementptr inbounds %classy.Car, %classy.Car* %this, i32 0, i32 0
+  %6 = load i32, i32* %5
+  ret i32 %6
+} 
+
+define i32 @func_Car_getSpeed(%classy.Car* %this) nounwind { 
+  %1 = getelementptr inbounds %classy.Car, %classy.Car* %this, i32 0, i32 0
+  %2 = load i32, i32* %1
+  ret i32 %2
+} 
+%classy.Main = type {  }
+
+define i32 @main() nounwind { 
+  %var_speed1 = alloca i32
+  store i32 0, i32* %var_speed1
+  %var_maxSpeed = alloca i32
+  store i32 0, i32* %var_maxSpeed
+  %var_speed2 = alloca i32
+  store i32 0, i32* %var_speed2
+  %1 = getelementptr inbounds %classy.Car, %classy.Car* @inst_car1, i32 0, i32 0
+  store i32 1, i32* %1
+
+  store i32 0, i32* %var_speed1
+
+  store i32 0, i32* %var_maxSpeed
+
+  %2 = call i32 (i8*, ...) @scanf(i8* getelementptr inbounds ([3 x i8], [3 x i8]* @sysvar_scanint, i32 0, i32 0), i32* %var_maxSpeed)
+
+  %3 = getelementptr inbounds %classy.Car, %classy.Car* @inst_car1, i32 0, i32 0
+  %4 = load i32, i32* %3
+  store i32 %4, i32* %var_speed1
+
+  %5 = load i32, i32* %var_speed1
+  %6 = call i32 (i8* , ...) @printf(i8* getelementptr inbounds ([4 x i8], [4 x i8]*@sysvar_printint, i32 0, i32 0), i32 %5)
+
+  %7 = load i32, i32* %var_maxSpeed
+  br label %compare1
+
+ compare1:
+  %8 = load i32, i32* %var_speed1
+  %9 = icmp slt i32 %8, %7
+  br i1 %9, label %then1, label %end1
+
+ then1:
+  %10 = getelementptr inbounds %classy.Car, %classy.Car* @inst_car1, i32 0, i32 0
+  %11 = load i32, i32* %10
+  %12 = add nsw i32 %11, 1
+  %13 = getelementptr inbounds %classy.Car, %classy.Car* @inst_car1, i32 0, i32 0
+  store i32 %12, i32* %13
+
+  %14 = getelementptr inbounds %classy.Car, %classy.Car* @inst_car1, i32 0, i32 0
+  %15 = load i32, i32* %14
+  store i32 %15, i32* %var_speed1
+
+  br label %compare1
+
+ end1:
+  %16 = load i32, i32* %var_speed1
+  %17 = call i32 (i8* , ...) @printf(i8* getelementptr inbounds ([4 x i8], [4 x i8]*@sysvar_printint, i32 0, i32 0), i32 %16)
+
+  %18 = getelementptr inbounds %classy.Car, %classy.Car* @inst_car2, i32 0, i32 0
+  store i32 1, i32* %18
+
+  store i32 0, i32* %var_speed2
+
+  %19 = getelementptr inbounds %classy.Car, %classy.Car* @inst_car2, i32 0, i32 0
+  %20 = load i32, i32* %19
+  store i32 %20, i32* %var_speed2
+
+  %21 = load i32, i32* %var_speed2
+  %22 = call i32 (i8* , ...) @printf(i8* getelementptr inbounds ([4 x i8], [4 x i8]*@sysvar_printint, i32 0, i32 0), i32 %21)
+
+  %23 = getelementptr inbounds %classy.Car, %classy.Car* @inst_car2, i32 0, i32 0
+  store i32 100, i32* %23
+
+  %24 = getelementptr inbounds %classy.Car, %classy.Car* @inst_car2, i32 0, i32 0
+  %25 = load i32, i32* %24
+  %26 = getelementptr inbounds %classy.Car, %classy.Car* @inst_car2, i32 0, i32 0
+  %27 = load i32, i32* %26
+  store i32 %27, i32* %var_speed2
+
+  %28 = load i32, i32* %var_speed2
+  %29 = call i32 (i8* , ...) @printf(i8* getelementptr inbounds ([4 x i8], [4 x i8]*@sysvar_printint, i32 0, i32 0), i32 %28)
+
+  %30 = getelementptr inbounds %classy.Car, %classy.Car* @inst_car2, i32 0, i32 0
+  %31 = load i32, i32* %30
+  br label %compare2
+
+ compare2:
+  %32 = load i32, i32* %var_maxSpeed
+  %33 = icmp sge i32 %31, %32
+  br i1 %33, label %then2, label %end2
+
+ then2:
+  %34 = load i32, i32* %var_maxSpeed
+  %35 = getelementptr inbounds %classy.Car, %classy.Car* @inst_car2, i32 0, i32 0
+  store i32 %34, i32* %35
+
+  %36 = getelementptr inbounds %classy.Car, %classy.Car* @inst_car2, i32 0, i32 0
+  %37 = load i32, i32* %36
+  store i32 %37, i32* %var_speed2
+
+  br label %end2
+
+ end2:
+  %38 = load i32, i32* %var_speed2
+  %39 = call i32 (i8* , ...) @printf(i8* getelementptr inbounds ([4 x i8], [4 x i8]*@sysvar_printint, i32 0, i32 0), i32 %38)
+
+  ret i32 0
+} 
+@inst_car1 = global %classy.Car zeroinitializer
+@inst_car2 = global %classy.Car zeroinitializer
+@inst_main = global %classy.Main zeroinitializer
+
+declare i32 @printf(i8*, ...)
+declare i32 @scanf(i8*, ...)
+@sysvar_printint = constant [4 x i8] c"%d\0A\00"
+@sysvar_printreal = constant [4 x i8] c"%f\0A\00"
+@sysvar_scanint = constant [3 x i8] c"%d\00"
+@sysvar_scanreal = constant [4 x i8] c"%lf\00"
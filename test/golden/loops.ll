@@ -0,0 +1,311 @@
+%classy.Box = type { i32, double, [8 x i32] }
+
+define i32 @func_Box_grow(%classy.Box* %this, i32) nounwind { 
+  %var_by = alloca i32
+  store i32 %0, i32* %var_by
+
+  %2 = getelementptr inbounds %classy.Box, %classy.Box* %this, i32 0, i32 0
+  %3 = load i32, i32* %2
+  %4 = load i32, i32* %var_by
+  %5 = add nsw i32 %3, %4
+  %6 = getelementptr inbounds %classy.Box, %classy.Box* %this, i32 0, i32 0
+  store i32 %5, i32* %6
+
+  %7 = getelementptr inbounds %classy.Box, %classy.Box* %this, i32 0, i32 0
+  %8 = load i32, i32* %7
+  ret i32 %8
+} 
+
+define i32 @func_Box_fill(%classy.Box* %this, i32) nounwind { 
+  %var_limit = alloca i32
+  %var_i = alloca i32
+  store i32 0, i32* %var_i
+  %var_k = alloca i32
+  store i32 0, i32* %var_k
+  store i32 %0, i32* %var_limit
+
+  store i32 0, i32* %var_i
+
+  store i32 0, i32* %var_k
+
+  store i32 3, i32* %var_k
+
+  %2 = load i32, i32* %var_limit
+  %3 = getelementptr inbounds %classy.Box, %classy.Box* %this, i32 0, i32 0
+  %4 = load i32, i32* %3
+  %5 = load i32, i32* %var_k
+  %6 = mul nsw i32 %4, %5
+  %7 = sitofp i32 %4 to double 
+  %8 = fdiv double %7, 2.0
+  br label %compare1
+
+ compare1:
+  %9 = load i32, i32* %var_i
+  %10 = icmp slt i32 %9, %2
+  br i1 %10, label %then1, label %end1
+
+ then1:
+  %11 = load i32, i32* %var_i
+  %12 = add nsw i32 %6, %11
+  %13 = load i32, i32* %var_i
+  %14 = sext i32 %13 to i64 
+  %15 = getelementptr inbounds %classy.Box, %classy.Box* %this, i32 0, i32 2, i64 %14
+  store i32 %12, i32* %15
+
+  %16 = getelementptr inbounds %classy.Box, %classy.Box* %this, i32 0, i32 1
+  %17 = load double, double* %16
+  %18 = fadd double %17, %8
+  %19 = getelementptr inbounds %classy.Box, %classy.Box* %this, i32 0, i32 1
+  store double %18, double* %19
+
+  %20 = load i32, i32* %var_i
+  %21 = add nsw i32 %20, 1
+  store i32 %21, i32* %var_i
+
+  br label %compare1
+
+ end1:
+  %22 = load i32, i32* %var_limit
+  %23 = sub nsw i32 %22, 1
+  %24 = sext i32 %23 to i64 
+  %25 = getelementptr inbounds %classy.Box, %classy.Box* %this, i32 0, i32 2, i64 %24
+  %26 = load i32, i32* %25
+  ret i32 %26
+} 
+
+define i32 @func_Box_sum(%classy.Box* %this) nounwind { 
+  %var_i = alloca i32
+  store i32 0, i32* %var_i
+  %var_total = alloca i32
+  store i32 0, i32* %var_total
+  %var_j = alloca i32
+  store i32 0, i32* %var_j
+  store i32 0, i32* %var_i
+
+  store i32 0, i32* %var_total
+
+  %1 = getelementptr inbounds %classy.Box, %classy.Box* %this, i32 0, i32 0
+  %2 = load i32, i32* %1
+  %3 = add nsw i32 %2, 1
+  br label %compare1
+
+ compare1:
+  %4 = load i32, i32* %var_i
+  %5 = icmp slt i32 %4, 8
+  br i1 %5, label %then1, label %end1
+
+ then1:
+  store i32 0, i32* %var_j
+
+  store i32 0, i32* %var_j
+
+  %6 = load i32, i32* %var_i
+  br label %compare2
+
+ compare2:
+  %7 = load i32, i32* %var_j
+  %8 = icmp slt i32 %7, %3
+  br i1 %8, label %then2, label %end2
+
+ then2:
+  %9 = sext i32 %6 to i64 
+  %10 = getelementptr inbounds %classy.Box, %classy.Box* %this, i32 0, i32 2, i64 %9
+  %11 = load i32, i32* %10
+  %12 = load i32, i32* %var_j
+  %13 = mul nsw i32 %11, %12
+  %14 = load i32, i32* %var_total
+  %15 = add nsw i32 %14, %13
+  %16 = add nsw i32 %15, %2
+  store i32 %16, i32* %var_total
+
+  %17 = load i32, i32* %var_j
+  %18 = add nsw i32 %17, 1
+  store i32 %18, i32* %var_j
+
+  br label %compare2
+
+ end2:
+  %19 = load i32, i32* %var_i
+  %20 = add nsw i32 %19, 1
+  store i32 %20, i32* %var_i
+
+  br label %compare1
+
+ end1:
+  %21 = load i32, i32* %var_total
+  ret i32 %21
+} 
+%classy.Main = type { i32, double }
+
+define i32 @main() nounwind { 
+  %var_n = alloca i32
+  store i32 0, i32* %var_n
+  %var_m = alloca i32
+  store i32 0, i32* %var_m
+  %var_r = alloca double
+  store double 0.0, double* %var_r
+  store i32 0, i32* %var_n
+
+  store i32 0, i32* %var_m
+
+  store double 0.0, double* %var_r
+
+  %1 = call i32 (i8*, ...) @scanf(i8* getelementptr inbounds ([3 x i8], [3 x i8]* @sysvar_scanint, i32 0, i32 0), i32* %var_n)
+
+  %2 = getelementptr inbounds %classy.Main, %classy.Main* @inst_main, i32 0, i32 0
+  store i32 5, i32* %2
+
+  %3 = getelementptr inbounds %classy.Main, %classy.Main* @inst_main, i32 0, i32 1
+  store double 1.5, double* %3
+
+  %4 = load i32, i32* %var_n
+  %5 = getelementptr inbounds %classy.Box, %classy.Box* @inst_box, i32 0, i32 0
+  %6 = load i32, i32* %5
+  %7 = add nsw i32 %6, %4
+  %8 = getelementptr inbounds %classy.Box, %classy.Box* @inst_box, i32 0, i32 0
+  store i32 %7, i32* %8
+
+  %9 = getelementptr inbounds %classy.Box, %classy.Box* @inst_box, i32 0, i32 0
+  %10 = load i32, i32* %9
+  %11 = call i32 (i8* , ...) @printf(i8* getelementptr inbounds ([4 x i8], [4 x i8]*@sysvar_printint, i32 0, i32 0), i32 %10)
+
+  %12 = getelementptr inbounds %classy.Main, %classy.Main* @inst_main, i32 0, i32 0
+  %13 = load i32, i32* %12
+  %14 = add nsw i32 %13, 2
+  %15 = call i32 @func_Box_fill(%classy.Box* @inst_box, i32 %14)
+
+  %16 = call i32 (i8* , ...) @printf(i8* getelementptr inbounds ([4 x i8], [4 x i8]*@sysvar_printint, i32 0, i32 0), i32 %15)
+
+  %17 = call i32 @func_Box_sum(%classy.Box* @inst_box)
+
+  %18 = call i32 (i8* , ...) @printf(i8* getelementptr inbounds ([4 x i8], [4 x i8]*@sysvar_printint, i32 0, i32 0), i32 %17)
+
+  %19 = getelementptr inbounds %classy.Main, %classy.Main* @inst_main, i32 0, i32 0
+  %20 = load i32, i32* %19
+  %21 = mul nsw i32 %20, 2
+  %22 = load i32, i32* %var_n
+  %23 = add nsw i32 %21, %22
+  %24 = getelementptr inbounds %classy.Main, %classy.Main* @inst_main, i32 0, i32 1
+  %25 = load double, double* %24
+  %26 = sitofp i32 %20 to double 
+  %27 = fmul double %25, %26
+  br label %compare1
+
+ compare1:
+  %28 = load i32, i32* %var_m
+  %29 = icmp slt i32 %28, %23
+  br i1 %29, label %then1, label %end1
+
+ then1:
+  %30 = load double, double* %var_r
+  %31 = fadd double %30, %27
+  store double %31, double* %var_r
+
+  %32 = load i32, i32* %var_m
+  %33 = add nsw i32 %32, 1
+  store i32 %33, i32* %var_m
+
+  br label %compare2
+
+ compare2:
+  %34 = load i32, i32* %var_m
+  %35 = icmp sgt i32 %34, 1000
+  br i1 %35, label %then2, label %end2
+
+ then2:
+  ret i32 9
+  br label %end2
+
+ end2:
+  br label %compare1
+
+ end1:
+  %37 = load i32, i32* %var_m
+  %38 = call i32 (i8* , ...) @printf(i8* getelementptr inbounds ([4 x i8], [4 x i8]*@sysvar_printint, i32 0, i32 0), i32 %37)
+
+  %39 = load double, double* %var_r
+  %40 = call i32 (i8* , ...) @printf(i8* getelementptr inbounds ([4 x i8], [4 x i8]*@sysvar_printreal, i32 0, i32 0), double %39)
+
+  store i32 0, i32* %var_m
+
+  br label %compare3
+
+ compare3:
+  %41 = load i32, i32* %var_m
+  %42 = getelementptr inbounds %classy.Main, %classy.Main* @inst_main, i32 0, i32 0
+  %43 = load i32, i32* %42
+  %44 = icmp slt i32 %41, %43
+  br i1 %44, label %then3, label %end3
+
+ then3:
+  %45 = getelementptr inbounds %classy.Main, %classy.Main* @inst_main, i32 0, i32 0
+  %46 = load i32, i32* %45
+  %47 = sub nsw i32 %46, 1
+  %48 = getelementptr inbounds %classy.Main, %classy.Main* @inst_main, i32 0, i32 0
+  store i32 %47, i32* %48
+
+  %49 = getelementptr inbounds %classy.Box, %classy.Box* @inst_box, i32 0, i32 0
+  %50 = load i32, i32* %49
+  %51 = add nsw i32 %50, 1
+  %52 = getelementptr inbounds %classy.Box, %classy.Box* @inst_box, i32 0, i32 0
+  store i32 %51, i32* %52
+
+  %53 = getelementptr inbounds %classy.Box, %classy.Box* @inst_box, i32 0, i32 0
+  %54 = load i32, i32* %53
+  %55 = load i32, i32* %var_m
+  %56 = add nsw i32 %55, %54
+  %57 = sub nsw i32 %56, 4
+  store i32 %57, i32* %var_m
+
+  br label %compare3
+
+ end3:
+  %58 = load i32, i32* %var_m
+  %59 = call i32 (i8* , ...) @printf(i8* getelementptr inbounds ([4 x i8], [4 x i8]*@sysvar_printint, i32 0, i32 0), i32 %58)
+
+  %60 = getelementptr inbounds %classy.Main, %classy.Main* @inst_main, i32 0, i32 0
+  %61 = load i32, i32* %60
+  %62 = call i32 (i8* , ...) @printf(i8* getelementptr inbounds ([4 x i8], [4 x i8]*@sysvar_printint, i32 0, i32 0), i32 %61)
+
+  store i32 0, i32* %var_m
+
+  %63 = getelementptr inbounds %classy.Main, %classy.Main* @inst_main, i32 0, i32 1
+  %64 = load double, double* %63
+  br label %compare4
+
+ compare4:
+  %65 = load i32, i32* %var_m
+  %66 = icmp slt i32 %65, 4
+  br i1 %66, label %then4, label %end4
+
+ then4:
+  %67 = call i32 (i8*, ...) @scanf(i8* getelementptr inbounds ([3 x i8], [3 x i8]* @sysvar_scanint, i32 0, i32 0), i32* %var_n)
+
+  %68 = load i32, i32* %var_n
+  %69 = sitofp i32 %68 to double 
+  %70 = fmul double %69, %64
+  %71 = load double, double* %var_r
+  %72 = fadd double %71, %70
+  store double %72, double* %var_r
+
+  %73 = load i32, i32* %var_m
+  %74 = add nsw i32 %73, 1
+  store i32 %74, i32* %var_m
+
+  br label %compare4
+
+ end4:
+  %75 = load double, double* %var_r
+  %76 = call i32 (i8* , ...) @printf(i8* getelementptr inbounds ([4 x i8], [4 x i8]*@sysvar_printreal, i32 0, i32 0), double %75)
+
+  ret i32 0
+} 
+@inst_box = global %classy.Box zeroinitializer
+@inst_main = global %classy.Main zeroinitializer
+
+declare i32 @printf(i8*, ...)
+declare i32 @scanf(i8*, ...)
+@sysvar_printint = constant [4 x i8] c"%d\0A\00"
+@sysvar_printreal = constant [4 x i8] c"%f\0A\00"
+@sysvar_scanint = constant [3 x i8] c"%d\00"
+@sysvar_scanreal = constant [4 x i8] c"%lf\00"
@@ -0,0 +1,77 @@
+classy Box {
+    int lady size;
+    real lady scale;
+    int lady items[8];
+    int lady grow(int by) {
+        size = size + by;
+        give size;
+    }
+    int lady fill(int limit) {
+        int lady i;
+        int lady k;
+        k = 3;
+        while (i < limit) {
+            items[i] = size * k + i;
+            scale = scale + size / 2;
+            i = i + 1;
+        }
+        give items[limit - 1];
+    }
+    int lady sum() {
+        int lady i;
+        int lady total;
+        while (i < 8) {
+            int lady j;
+            j = 0;
+            while (j < size + 1) {
+                total = total + items[i] * j + size;
+                j = j + 1;
+            }
+            i = i + 1;
+        }
+        give total;
+    }
+}
+classy Main {
+    int lady limit;
+    real lady factor;
+    int lady main() {
+        box = classy Box;
+        int lady n;
+        int lady m;
+        real lady r;
+        hear n;
+        limit = 5;
+        factor = 1.5;
+        whisper box.grow(n);
+        whisper box.fill(limit + 2);
+        whisper box.sum();
+        while (m < limit * 2 + n) {
+            r = r + factor * limit;
+            m = m + 1;
+            if (m > 1000) {
+                give 9;
+            }
+        }
+        whisper m;
+        whisper r;
+        m = 0;
+        while (m < limit) {
+            limit = limit - 1;
+            m = m + box.grow(1) - 4;
+        }
+        whisper m;
+        whisper limit;
+        m = 0;
+        while (m < 4) {
+            hear n;
+            r = r + n * factor;
+            m = m + 1;
+        }
+        whisper r;
+        while (5 < 3) {
+            whisper 77;
+        }
+        give 0;
+    }
+}